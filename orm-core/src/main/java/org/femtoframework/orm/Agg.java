@@ -0,0 +1,90 @@
+package org.femtoframework.orm;
+
+/**
+ * Aggregate function on a column, such as Agg.sum("amount")
+ */
+public class Agg {
+
+    /**
+     * Aggregate functions
+     */
+    public enum Function {
+        COUNT, SUM, MIN, MAX, AVG
+    }
+
+    private Function function;
+    private String column;
+
+    protected Agg(Function function, String column) {
+        if (function == null) {
+            throw new IllegalArgumentException("No aggregate function");
+        }
+        if (column == null && function != Function.COUNT) {
+            throw new IllegalArgumentException("No column for " + function);
+        }
+        this.function = function;
+        this.column = column;
+    }
+
+    /**
+     * COUNT(*)
+     *
+     * @return Agg
+     */
+    public static Agg count() {
+        return new Agg(Function.COUNT, null);
+    }
+
+    /**
+     * COUNT(column), the NULLs are not counted
+     *
+     * @param column Column
+     * @return Agg
+     */
+    public static Agg count(String column) {
+        return new Agg(Function.COUNT, column);
+    }
+
+    public static Agg sum(String column) {
+        return new Agg(Function.SUM, column);
+    }
+
+    public static Agg min(String column) {
+        return new Agg(Function.MIN, column);
+    }
+
+    public static Agg max(String column) {
+        return new Agg(Function.MAX, column);
+    }
+
+    public static Agg avg(String column) {
+        return new Agg(Function.AVG, column);
+    }
+
+    /**
+     * Group by columns
+     *
+     * @param columns Columns
+     * @return Columns
+     */
+    public static String[] groupBy(String... columns) {
+        return columns;
+    }
+
+    public Function getFunction() {
+        return function;
+    }
+
+    /**
+     * Column of the function
+     *
+     * @return Column, null means "*" of COUNT(*)
+     */
+    public String getColumn() {
+        return column;
+    }
+
+    public String toString() {
+        return function + "(" + (column == null ? "*" : column) + ")";
+    }
+}
@@ -0,0 +1,320 @@
+package org.femtoframework.orm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rows of grouped aggregation
+ *
+ * Every row has the values of the group columns and the values of the aggregates,
+ * the aggregate values are kept in primitive arrays by aggregate.
+ * The integral aggregates, such as COUNT and SUM of an integer column, are kept in long[] without precision loss,
+ * the others such as AVG are kept in double[], NULL is Double.NaN.
+ */
+public class AggregateRows {
+
+    private String[] groupBy;
+    private Agg[] aggs;
+    private boolean[] integral;
+
+    private Object[][] keys;
+    private double[][] values;
+    private long[][] longs;
+    private BitSet[] nulls;
+    private int size = 0;
+
+    public AggregateRows(String[] groupBy, Agg[] aggs) {
+        this(groupBy, aggs, new boolean[aggs.length]);
+    }
+
+    /**
+     * Rows with the integral aggregates
+     *
+     * @param groupBy Group columns
+     * @param aggs Aggregates
+     * @param integral Whether the aggregate is kept in long
+     */
+    public AggregateRows(String[] groupBy, Agg[] aggs, boolean[] integral) {
+        this.groupBy = groupBy;
+        this.aggs = aggs;
+        this.integral = integral;
+        this.keys = new Object[16][];
+        this.values = new double[aggs.length][];
+        this.longs = new long[aggs.length][];
+        this.nulls = new BitSet[aggs.length];
+        for(int i = 0; i < aggs.length; i ++) {
+            if (integral[i]) {
+                longs[i] = new long[16];
+                nulls[i] = new BitSet();
+            }
+            else {
+                values[i] = new double[16];
+            }
+        }
+    }
+
+    /**
+     * Add one row
+     *
+     * @param key Values of the group columns
+     * @param value Values of the aggregates
+     */
+    public void add(Object[] key, double[] value) {
+        long[] longValue = new long[value.length];
+        for(int i = 0; i < value.length; i ++) {
+            longValue[i] = (long) value[i];
+        }
+        add(key, value, longValue);
+    }
+
+    /**
+     * Add one row
+     *
+     * @param key Values of the group columns
+     * @param value Values of the aggregates, Double.NaN means NULL for both the double and the integral aggregates
+     * @param longValue Values of the integral aggregates, the others are ignored
+     */
+    public void add(Object[] key, double[] value, long[] longValue) {
+        if (size == keys.length) {
+            int capacity = size * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            for(int i = 0; i < aggs.length; i ++) {
+                if (integral[i]) {
+                    longs[i] = Arrays.copyOf(longs[i], capacity);
+                }
+                else {
+                    values[i] = Arrays.copyOf(values[i], capacity);
+                }
+            }
+        }
+        keys[size] = key;
+        for(int i = 0; i < aggs.length; i ++) {
+            if (!integral[i]) {
+                values[i][size] = value[i];
+            }
+            else if (Double.isNaN(value[i])) {
+                nulls[i].set(size);
+            }
+            else {
+                longs[i][size] = longValue[i];
+            }
+        }
+        size ++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String[] getGroupBy() {
+        return groupBy;
+    }
+
+    public Agg[] getAggs() {
+        return aggs;
+    }
+
+    /**
+     * Whether the aggregate is kept in long
+     *
+     * @param agg Index of the aggregate
+     * @return Integral or not
+     */
+    public boolean isIntegral(int agg) {
+        return integral[agg];
+    }
+
+    /**
+     * Values of the group columns
+     *
+     * @param row Row index
+     * @return Values of the group columns
+     */
+    public Object[] getKey(int row) {
+        checkRow(row);
+        return keys[row];
+    }
+
+    /**
+     * Value of the group column
+     *
+     * @param row Row index
+     * @param group Index of the group column
+     * @return Value
+     */
+    public Object getKey(int row, int group) {
+        return getKey(row)[group];
+    }
+
+    /**
+     * Whether the value of the aggregate is NULL
+     *
+     * @param row Row index
+     * @param agg Index of the aggregate
+     * @return NULL or not
+     */
+    public boolean isNull(int row, int agg) {
+        checkRow(row);
+        return integral[agg] ? nulls[agg].get(row) : Double.isNaN(values[agg][row]);
+    }
+
+    /**
+     * Value of the aggregate
+     *
+     * @param row Row index
+     * @param agg Index of the aggregate
+     * @return Value, Double.NaN if it is NULL
+     */
+    public double getValue(int row, int agg) {
+        checkRow(row);
+        if (integral[agg]) {
+            return nulls[agg].get(row) ? Double.NaN : longs[agg][row];
+        }
+        return values[agg][row];
+    }
+
+    /**
+     * Value of the aggregate in long, it is exact for the integral aggregate
+     *
+     * @param row Row index
+     * @param agg Index of the aggregate
+     * @return Value, 0 if it is NULL
+     */
+    public long getLong(int row, int agg) {
+        checkRow(row);
+        return integral[agg] ? longs[agg][row] : (long) values[agg][row];
+    }
+
+    /**
+     * Values of the aggregate in all rows
+     *
+     * @param agg Index of the aggregate
+     * @return Values, Double.NaN if it is NULL
+     */
+    public double[] getValues(int agg) {
+        if (integral[agg]) {
+            double[] array = new double[size];
+            for(int i = 0; i < size; i ++) {
+                array[i] = nulls[agg].get(i) ? Double.NaN : longs[agg][i];
+            }
+            return array;
+        }
+        return Arrays.copyOf(values[agg], size);
+    }
+
+    /**
+     * Values of the aggregate in all rows in long, they are exact for the integral aggregate
+     *
+     * @param agg Index of the aggregate
+     * @return Values, 0 if it is NULL
+     */
+    public long[] getLongs(int agg) {
+        if (integral[agg]) {
+            return Arrays.copyOf(longs[agg], size);
+        }
+        long[] array = new long[size];
+        for(int i = 0; i < size; i ++) {
+            array[i] = (long) values[agg][i];
+        }
+        return array;
+    }
+
+    /**
+     * Aggregate the listed entities in memory, for the repositories which can't aggregate by the database.
+     * COUNT is integral, SUM, MIN and MAX are integral if all the values are integral.
+     *
+     * @param entities Entities
+     * @param aggs Aggregate functions
+     * @param groupBy Group by columns, null or empty means no group
+     * @return One row per group, one row if there is no group
+     */
+    static AggregateRows reduce(List<?> entities, Agg[] aggs, String[] groupBy) {
+        int groups = groupBy == null ? 0 : groupBy.length;
+        Map<List<Object>, List<Object[]>> reduced = new LinkedHashMap<>();
+        if (groups == 0) {
+            reduced.put(Collections.emptyList(), new ArrayList<>(entities.size()));
+        }
+        boolean[] integral = new boolean[aggs.length];
+        for(int i = 0; i < aggs.length; i ++) {
+            Agg.Function function = aggs[i].getFunction();
+            integral[i] = function == Agg.Function.COUNT || (function != Agg.Function.AVG && !entities.isEmpty());
+        }
+        for(Object entity: entities) {
+            Object[] key = new Object[groups];
+            for(int i = 0; i < groups; i ++) {
+                key[i] = EntityValues.get(entity, groupBy[i]);
+            }
+            Object[] value = new Object[aggs.length];
+            for(int i = 0; i < aggs.length; i ++) {
+                //COUNT(*) counts the entity itself
+                value[i] = aggs[i].getColumn() == null ? entity : EntityValues.get(entity, aggs[i].getColumn());
+                if (aggs[i].getFunction() != Agg.Function.COUNT && value[i] != null) {
+                    integral[i] &= value[i] instanceof Long || value[i] instanceof Integer
+                            || value[i] instanceof Short || value[i] instanceof Byte;
+                }
+            }
+            reduced.computeIfAbsent(Arrays.asList(key), k -> new ArrayList<>()).add(value);
+        }
+
+        AggregateRows rows = new AggregateRows(groupBy, aggs, integral);
+        for(Map.Entry<List<Object>, List<Object[]>> entry: reduced.entrySet()) {
+            double[] value = new double[aggs.length];
+            long[] longValue = new long[aggs.length];
+            for(int i = 0; i < aggs.length; i ++) {
+                long count = 0;
+                long longResult = 0;
+                double result = 0;
+                for(Object[] row: entry.getValue()) {
+                    Object v = row[i];
+                    if (v == null) {
+                        continue;
+                    }
+                    count ++;
+                    if (aggs[i].getFunction() == Agg.Function.COUNT) {
+                        continue;
+                    }
+                    double d = ((Number) v).doubleValue();
+                    long l = integral[i] ? ((Number) v).longValue() : 0;
+                    switch (aggs[i].getFunction()) {
+                        case MIN:
+                            result = count == 1 ? d : Math.min(result, d);
+                            longResult = count == 1 ? l : Math.min(longResult, l);
+                            break;
+                        case MAX:
+                            result = count == 1 ? d : Math.max(result, d);
+                            longResult = count == 1 ? l : Math.max(longResult, l);
+                            break;
+                        default:
+                            result += d;
+                            longResult += l;
+                            break;
+                    }
+                }
+                if (aggs[i].getFunction() == Agg.Function.COUNT) {
+                    value[i] = count;
+                    longValue[i] = count;
+                }
+                else if (count == 0) {
+                    value[i] = Double.NaN;
+                }
+                else {
+                    value[i] = aggs[i].getFunction() == Agg.Function.AVG ? result / count : result;
+                    longValue[i] = longResult;
+                }
+            }
+            rows.add(entry.getKey().toArray(), value, longValue);
+        }
+        return rows;
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row:" + row + " size:" + size);
+        }
+    }
+}
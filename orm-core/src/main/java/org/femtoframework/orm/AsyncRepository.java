@@ -0,0 +1,194 @@
+package org.femtoframework.orm;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous Repository
+ *
+ * It wraps a Repository, every call is executed in background and the result is completed in the future,
+ * so the caller can fan out several calls concurrently. The number of calls in flight is limited,
+ * the calls over the limit wait in queue without blocking the caller.
+ *
+ * The future is completed exceptionally with RepositoryException if the call fails,
+ * or with RejectedExecutionException if the queue is full.
+ *
+ * @param <E> Entity
+ */
+public interface AsyncRepository<E> {
+
+    /**
+     * Repository operation
+     *
+     * @param <E> Entity
+     * @param <R> Result
+     */
+    interface Operation<E, R> {
+
+        R apply(Repository<E> repository) throws RepositoryException;
+    }
+
+    /**
+     * The underlying repository
+     *
+     * @return Repository
+     */
+    Repository<E> getRepository();
+
+    /**
+     * Maximum number of calls in flight, the limit may be shared with the other repositories on the same DataSource
+     *
+     * @return Maximum number of calls in flight
+     */
+    int getMaxInFlight();
+
+    /**
+     * Execute the operation with the underlying repository asynchronously
+     *
+     * @param operation Operation
+     * @param <R> Result
+     * @return Future of the result
+     */
+    <R> CompletableFuture<R> execute(Operation<E, R> operation);
+
+    /**
+     * List entities by given conditions
+     *
+     * @param query Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax
+     * @param parameters Parameters in sequences
+     * @return Future of entities
+     */
+    default CompletableFuture<List<E>> listBy(String query, Object... parameters) {
+        return execute(repository -> repository.listBy(query, parameters));
+    }
+
+    /**
+     * List entities by given conditions
+     *
+     * @param columns Specify the columns to list, if first column is "*", means select all columns
+     * @param limit Limit the result set
+     * @param orderBy OrderBy specific column
+     * @param query Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax
+     * @param parameters Parameters in sequences
+     * @return Future of entities
+     */
+    default CompletableFuture<List<E>> listBy(String[] columns, Limit limit, OrderBy orderBy, String query, Object... parameters) {
+        return execute(repository -> repository.listBy(columns, limit, orderBy, query, parameters));
+    }
+
+    /**
+     * List one page of entities by keyset(seek) pagination
+     *
+     * @param keyset Keyset
+     * @param query Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax
+     * @param parameters Parameters in sequences
+     * @return Future of the page
+     */
+    default CompletableFuture<Page<E>> listPage(Keyset keyset, String query, Object... parameters) {
+        return execute(repository -> repository.listPage(keyset, query, parameters));
+    }
+
+    /**
+     * Retrieve entity by id
+     *
+     * @param id Entity Id
+     * @return Future of the entity, the entity is null if there is no such entity
+     */
+    default CompletableFuture<E> getById(long id) {
+        return execute(repository -> repository.getById(id));
+    }
+
+    /**
+     * Retrieve entity by given conditions
+     *
+     * @param query Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax
+     * @param parameters Parameters in sequences
+     * @return Future of the entity, the entity is null if there is no such entity
+     */
+    default CompletableFuture<E> getBy(String query, Object... parameters) {
+        return execute(repository -> repository.getBy(query, parameters));
+    }
+
+    /**
+     * Count entities by given conditions
+     *
+     * @param query Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax
+     * @param parameters Parameters in sequences
+     * @return Future of the number of entities
+     */
+    default CompletableFuture<Long> countBy(String query, Object... parameters) {
+        return execute(repository -> repository.countBy(query, parameters));
+    }
+
+    /**
+     * Whether there is any entity matching the conditions
+     *
+     * @param query Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax
+     * @param parameters Parameters in sequences
+     * @return Future of exists or not
+     */
+    default CompletableFuture<Boolean> existsBy(String query, Object... parameters) {
+        return execute(repository -> repository.existsBy(query, parameters));
+    }
+
+    /**
+     * Create entity
+     *
+     * @param entity Entity
+     * @return Future of created or not
+     */
+    default CompletableFuture<Boolean> create(E entity) {
+        return execute(repository -> repository.create(entity));
+    }
+
+    /**
+     * Create entities
+     *
+     * @param entities Entities
+     * @return Future of created or not for each entity
+     */
+    default CompletableFuture<boolean[]> create(List<E> entities) {
+        return execute(repository -> repository.create(entities));
+    }
+
+    /**
+     * Update entity
+     *
+     * @param entity Entity
+     * @return Future of updated or not
+     */
+    default CompletableFuture<Boolean> update(E entity) {
+        return execute(repository -> repository.update(entity));
+    }
+
+    /**
+     * Save entity, create it if it doesn't exist, otherwise update it
+     *
+     * @param entity Entity
+     * @return Future of 1: Created 0: Updated -1: Failed
+     */
+    default CompletableFuture<Integer> save(E entity) {
+        return execute(repository -> repository.save(entity));
+    }
+
+    /**
+     * Delete entity by id
+     *
+     * @param id Entity Id
+     * @return Future of deleted or not
+     */
+    default CompletableFuture<Boolean> deleteById(long id) {
+        return execute(repository -> repository.deleteById(id));
+    }
+
+    /**
+     * Delete entities by given conditions
+     *
+     * @param query Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax
+     * @param parameters Parameters in sequences
+     * @return Future of deleted or not
+     */
+    default CompletableFuture<Boolean> deleteBy(String query, Object... parameters) {
+        return execute(repository -> repository.deleteBy(query, parameters));
+    }
+}
@@ -0,0 +1,68 @@
+package org.femtoframework.orm;
+
+import org.femtoframework.bean.info.BeanInfo;
+import org.femtoframework.bean.info.BeanInfoUtil;
+import org.femtoframework.bean.info.PropertyInfo;
+import org.femtoframework.parameters.Parameters;
+import org.femtoframework.text.NamingConvention;
+
+import java.util.Arrays;
+
+/**
+ * Column values of the listed entities, for the default methods of Repository which work on listBy
+ */
+class EntityValues {
+
+    /**
+     * Value of the column
+     *
+     * @param entity Entity or Parameters
+     * @param column Column name or property name
+     * @return Value
+     */
+    static Object get(Object entity, String column) {
+        if (entity instanceof Parameters) {
+            return ((Parameters) entity).get(column);
+        }
+        BeanInfo beanInfo = BeanInfoUtil.getBeanInfo(entity.getClass(), true);
+        PropertyInfo property = beanInfo.getProperty(column);
+        if (property == null) {
+            for(PropertyInfo info: beanInfo.getProperties()) {
+                if (NamingConvention.format(info.getName()).equalsIgnoreCase(column)) {
+                    property = info;
+                    break;
+                }
+            }
+        }
+        if (property == null || !property.isReadable()) {
+            throw new IllegalArgumentException("The column:" + column + " is not a property of " + entity.getClass());
+        }
+        return property.invokeGetter(entity);
+    }
+
+    /**
+     * Columns with the given columns added
+     *
+     * @param columns Columns, if first column is "*", means select all columns
+     * @param extra Columns which must be selected
+     * @return Columns
+     */
+    static String[] withColumns(String[] columns, String... extra) {
+        if (columns == null || columns.length == 0 || "*".equals(columns[0])) {
+            return Repository.LIST_ALL_COLUMNS;
+        }
+        String[] result = new String[columns.length + extra.length];
+        System.arraycopy(columns, 0, result, 0, columns.length);
+        int size = columns.length;
+        for(String column: extra) {
+            boolean found = false;
+            for(int i = 0; i < columns.length && !found; i ++) {
+                found = columns[i].equalsIgnoreCase(column);
+            }
+            if (!found) {
+                result[size ++] = column;
+            }
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+}
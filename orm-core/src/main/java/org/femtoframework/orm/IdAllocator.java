@@ -0,0 +1,36 @@
+package org.femtoframework.orm;
+
+import java.sql.Connection;
+
+/**
+ * Allocator of entity ids, such as sequence
+ *
+ * The implementation should be thread safe, it is shared by all the callers of the repository.
+ */
+public interface IdAllocator {
+
+    /**
+     * Allocate one id
+     *
+     * @param conn Connection which can be used to retrieve ids from the database
+     * @return Id
+     * @throws RepositoryException SQL Exception
+     */
+    long nextId(Connection conn) throws RepositoryException;
+
+    /**
+     * Allocate ids for batch insert
+     *
+     * @param conn Connection which can be used to retrieve ids from the database
+     * @param count Number of ids
+     * @return Ids
+     * @throws RepositoryException SQL Exception
+     */
+    default long[] nextIds(Connection conn, int count) throws RepositoryException {
+        long[] ids = new long[count];
+        for(int i = 0; i < count; i ++) {
+            ids[i] = nextId(conn);
+        }
+        return ids;
+    }
+}
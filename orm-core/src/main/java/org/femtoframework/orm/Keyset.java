@@ -0,0 +1,129 @@
+package org.femtoframework.orm;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Keyset(seek) pagination token
+ *
+ * It carries the sort key columns and the key values of the last row in previous page,
+ * the next page is queried by "WHERE (k1, k2) > (?, ?) ORDER BY k1, k2 LIMIT ?",
+ * so page N costs the same as page 1 when there is an index on the key columns.
+ *
+ * The key columns must be unique and not null together, such as "id" or "created_time, id".
+ */
+public class Keyset implements Externalizable {
+
+    private String[] columns;
+    private boolean ascending = true;
+    private Object[] values;
+    private int size = 100;
+
+    public Keyset() {
+    }
+
+    protected Keyset(int size, boolean ascending, String[] columns, Object[] values) {
+        if (columns == null || columns.length == 0) {
+            throw new IllegalArgumentException("No key column");
+        }
+        if (values != null && values.length != columns.length) {
+            throw new IllegalArgumentException("The number of values doesn't match the key columns");
+        }
+        checkSize(size);
+        this.size = size;
+        this.ascending = ascending;
+        this.columns = columns;
+        this.values = values;
+    }
+
+    public static Keyset first(int size, String... columns) {
+        return new Keyset(size, true, columns, null);
+    }
+
+    public static Keyset first(int size, boolean ascending, String... columns) {
+        return new Keyset(size, ascending, columns, null);
+    }
+
+    /**
+     * Keyset for the page after the row which has given key values
+     *
+     * @param values Key values of the last row
+     * @return Next keyset
+     */
+    public Keyset next(Object... values) {
+        return new Keyset(size, ascending, columns, values);
+    }
+
+    /**
+     * Whether it is the first page
+     *
+     * @return First page or not
+     */
+    public boolean isFirst() {
+        return values == null;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeInt(size);
+        out.writeBoolean(ascending);
+        out.writeInt(columns.length);
+        for(String column: columns) {
+            out.writeUTF(column);
+        }
+        out.writeBoolean(values != null);
+        if (values != null) {
+            for(Object value: values) {
+                out.writeObject(value);
+            }
+        }
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        size = in.readInt();
+        ascending = in.readBoolean();
+        columns = new String[in.readInt()];
+        for(int i = 0; i < columns.length; i ++) {
+            columns[i] = in.readUTF();
+        }
+        if (in.readBoolean()) {
+            values = new Object[columns.length];
+            for(int i = 0; i < values.length; i ++) {
+                values[i] = in.readObject();
+            }
+        }
+        else {
+            values = null;
+        }
+    }
+
+    public String[] getColumns() {
+        return columns;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    public Object[] getValues() {
+        return values;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        checkSize(size);
+        this.size = size;
+    }
+
+    private static void checkSize(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Invalid page size:" + size);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package org.femtoframework.orm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Map from primitive long to object, the keys are not boxed
+ *
+ * Open addressing with linear probing, null value is not allowed.
+ * It is not thread safe.
+ *
+ * @param <V> Value
+ */
+public class LongObjectMap<V> {
+
+    /**
+     * Visitor of the entries
+     *
+     * @param <V> Value
+     */
+    public interface EntryConsumer<V> {
+
+        void accept(long key, V value);
+    }
+
+    private long[] keys;
+    private Object[] values;
+    private int size = 0;
+    private int threshold;
+
+    public LongObjectMap() {
+        this(16);
+    }
+
+    public LongObjectMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize * 2 - 1, 4)) << 1;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        threshold = capacity / 2;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (values[i] != null) {
+            if (keys[i] == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -(i + 1);
+    }
+
+    /**
+     * Return the value of the key
+     *
+     * @param key Key
+     * @return Value, null if there is no such key
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int i = indexOf(key);
+        return i >= 0 ? (V) values[i] : null;
+    }
+
+    public boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Put the value
+     *
+     * @param key Key
+     * @param value Value, it can not be null
+     * @return Previous value, null if there was no such key
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Null value of key:" + key);
+        }
+        int i = indexOf(key);
+        if (i >= 0) {
+            V previous = (V) values[i];
+            values[i] = value;
+            return previous;
+        }
+        i = -i - 1;
+        keys[i] = key;
+        values[i] = value;
+        if (++ size > threshold) {
+            resize();
+        }
+        return null;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new Object[oldValues.length * 2];
+        threshold = keys.length / 2;
+        for(int i = 0; i < oldKeys.length; i ++) {
+            if (oldValues[i] != null) {
+                int j = -indexOf(oldKeys[i]) - 1;
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Visit all the entries
+     *
+     * @param consumer Entry consumer
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super V> consumer) {
+        for(int i = 0; i < keys.length; i ++) {
+            if (values[i] != null) {
+                consumer.accept(keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    /**
+     * All keys
+     *
+     * @return Keys in no particular order
+     */
+    public long[] keys() {
+        long[] array = new long[size];
+        int j = 0;
+        for(int i = 0; i < keys.length; i ++) {
+            if (values[i] != null) {
+                array[j ++] = keys[i];
+            }
+        }
+        return array;
+    }
+
+    /**
+     * All values
+     *
+     * @return Values in no particular order
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> values() {
+        List<V> list = new ArrayList<>(size);
+        for(Object value : values) {
+            if (value != null) {
+                list.add((V) value);
+            }
+        }
+        return list;
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach((key, value) -> {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(key).append('=').append(value);
+        });
+        return sb.append('}').toString();
+    }
+}
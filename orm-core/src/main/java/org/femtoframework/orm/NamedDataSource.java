@@ -30,4 +30,13 @@ public interface NamedDataSource extends DataSource, NamedBean {
      * @return IsDefault
      */
     boolean isDefault();
+
+    /**
+     * Maximum number of connections in the pool, it caps the parallelism of the repositories
+     *
+     * @return Maximum pool size, 0 means unknown
+     */
+    default int getMaximumPoolSize() {
+        return 0;
+    }
 }
@@ -7,11 +7,27 @@ import java.io.ObjectOutput;
 
 /**
  * OrderBy
+ *
+ * Multiple columns are chained, for example,
+ * OrderBy.orderBy("model").then("created_time", false, Nulls.LAST) renders "ORDER BY model, created_time DESC NULLS LAST".
+ * "then" returns a new chain, so a shared OrderBy can be extended safely.
+ *
+ * The external form is the column, the ascending flag, the ordinal of Nulls and the chained next one.
  */
 public class OrderBy implements Externalizable {
 
+    /**
+     * Where the NULLs go
+     */
+    public enum Nulls {
+        DEFAULT, FIRST, LAST
+    }
+
     private String column;
     private boolean ascending = true;
+    private Nulls nulls = Nulls.DEFAULT;
+
+    private OrderBy next;
 
     public OrderBy() {
     }
@@ -21,8 +37,13 @@ public class OrderBy implements Externalizable {
     }
 
     protected OrderBy(String column, boolean ascending) {
+        this(column, ascending, Nulls.DEFAULT);
+    }
+
+    protected OrderBy(String column, boolean ascending, Nulls nulls) {
         this.column = column;
         this.ascending = ascending;
+        this.nulls = nulls;
     }
 
     public static OrderBy orderBy(String column) {
@@ -33,16 +54,68 @@ public class OrderBy implements Externalizable {
         return new OrderBy(column, ascending);
     }
 
+    public static OrderBy orderBy(String column, boolean ascending, Nulls nulls) {
+        return new OrderBy(column, ascending, nulls);
+    }
+
+    /**
+     * Append next column in ascending order
+     *
+     * @param column Column
+     * @return New chain, this one is not changed
+     */
+    public OrderBy then(String column) {
+        return then(column, true);
+    }
+
+    /**
+     * Append next column
+     *
+     * @param column Column
+     * @param ascending Ascending or not
+     * @return New chain, this one is not changed
+     */
+    public OrderBy then(String column, boolean ascending) {
+        return then(column, ascending, Nulls.DEFAULT);
+    }
+
+    /**
+     * Append next column
+     *
+     * @param column Column
+     * @param ascending Ascending or not
+     * @param nulls Nulls first or last
+     * @return New chain, this one is not changed
+     */
+    public OrderBy then(String column, boolean ascending, Nulls nulls) {
+        OrderBy copy = new OrderBy(getColumn(), isAscending(), getNulls());
+        copy.next = next != null ? next.then(column, ascending, nulls) : new OrderBy(column, ascending, nulls);
+        return copy;
+    }
+
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
         out.writeUTF(getColumn());
         out.writeBoolean(isAscending());
+        out.writeByte(getNulls().ordinal());
+        out.writeBoolean(next != null);
+        if (next != null) {
+            next.writeExternal(out);
+        }
     }
 
     @Override
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
         setColumn(in.readUTF());
         setAscending(in.readBoolean());
+        setNulls(Nulls.values()[in.readByte()]);
+        if (in.readBoolean()) {
+            next = new OrderBy();
+            next.readExternal(in);
+        }
+        else {
+            next = null;
+        }
     }
 
     public String getColumn() {
@@ -60,4 +133,21 @@ public class OrderBy implements Externalizable {
     public void setAscending(boolean ascending) {
         this.ascending = ascending;
     }
+
+    public Nulls getNulls() {
+        return nulls;
+    }
+
+    public void setNulls(Nulls nulls) {
+        this.nulls = nulls == null ? Nulls.DEFAULT : nulls;
+    }
+
+    /**
+     * Next column in the chain
+     *
+     * @return Next column, null if this is the last one
+     */
+    public OrderBy getNext() {
+        return next;
+    }
 }
@@ -0,0 +1,46 @@
+package org.femtoframework.orm;
+
+import java.util.List;
+
+/**
+ * One page of entities in keyset pagination
+ *
+ * @param <E> Entity
+ */
+public class Page<E> {
+
+    private List<E> items;
+    private Keyset next;
+
+    public Page(List<E> items, Keyset next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    /**
+     * Entities in this page
+     *
+     * @return Entities, zero size list if there is no entity
+     */
+    public List<E> getItems() {
+        return items;
+    }
+
+    /**
+     * Keyset of next page
+     *
+     * @return Keyset of next page, null if this is the last page
+     */
+    public Keyset getNext() {
+        return next;
+    }
+
+    /**
+     * Whether there is next page
+     *
+     * @return Has next page or not
+     */
+    public boolean hasNext() {
+        return next != null;
+    }
+}
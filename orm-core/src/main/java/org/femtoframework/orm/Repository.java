@@ -4,10 +4,16 @@ import org.femtoframework.bean.NamedBean;
 import org.femtoframework.parameters.Parameters;
 import org.femtoframework.parameters.ParametersMap;
 import org.femtoframework.util.CollectionUtil;
+import org.femtoframework.util.DataUtil;
 import org.femtoframework.util.StringUtil;
+import org.femtoframework.util.convert.ConverterUtil;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static org.femtoframework.orm.Limit.UNLIMITED;
 
@@ -40,6 +46,28 @@ public interface Repository<E> extends NamedBean {
 
     String[] LIST_ALL_COLUMNS = { "*" };
 
+    /**
+     * Option of the number of entities sent in one executeBatch, such as {batch_size->100}
+     */
+    String OPTION_BATCH_SIZE = "batch_size";
+
+    /**
+     * Option to commit every batch on its own, such as {batch_commit->true},
+     * the committed batches are kept even if a later batch fails
+     */
+    String OPTION_BATCH_COMMIT = "batch_commit";
+
+    /**
+     * Option of the number of rows in one multi-row INSERT of batch create, such as {rows_per_insert->64}
+     */
+    String OPTION_ROWS_PER_INSERT = "rows_per_insert";
+
+    /**
+     * Option to report whether every id of deleteByIds was deleted, such as {delete_status->true},
+     * otherwise the statuses are all true, they only tell the rows no longer exist after the deletion
+     */
+    String OPTION_DELETE_STATUS = "delete_status";
+
     /**
      * List all entities
      *
@@ -156,6 +184,213 @@ public interface Repository<E> extends NamedBean {
         return listBy(columns, limit, orderBy, indexedQuery.query, toParameters(indexedQuery.index, parameters));
     }
 
+    //=========KEYSET==========
+    /**
+     * List one page of entities by keyset(seek) pagination
+     *
+     * @param keyset Keyset, Keyset.first(size, "id") for the first page, then Page.getNext() for the following pages
+     * @param query Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax, if it is null and there is no parameter, that means all
+     * @param parameters Parameters in sequences
+     * @return Page of entities and the keyset of next page
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    default Page<E> listPage(Keyset keyset, String query, Object... parameters) throws RepositoryException {
+        return listPage(LIST_ALL_COLUMNS, keyset, query, parameters);
+    }
+
+    /**
+     * List one page of entities by keyset(seek) pagination
+     *
+     * @param keyset Keyset, Keyset.first(size, "id") for the first page, then Page.getNext() for the following pages
+     * @param query Query part after "WHERE" in SQL, query should use "id = :foo_id AND name = :foo_name" syntax
+     * @param parameters Parameters should have {foo_id->123,foo_name->'Sheldon'}
+     * @return Page of entities and the keyset of next page
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    default Page<E> listPage(Keyset keyset, String query, Parameters parameters) throws RepositoryException {
+        if (StringUtil.isInvalid(query)) {
+            throw new IllegalArgumentException("No any condition in the query:" + query);
+        }
+        IndexedQuery indexedQuery = toIndexedQuery(query);
+        return listPage(LIST_ALL_COLUMNS, keyset, indexedQuery.query, toParameters(indexedQuery.index, parameters));
+    }
+
+    /**
+     * List one page of entities by keyset(seek) pagination,
+     * it renders "WHERE (k1, k2) > (?, ?) ORDER BY k1, k2 LIMIT ?", so it costs the same for any page.
+     * The default lists one more entity than the size by listBy to know whether there is next page.
+     *
+     * @param columns Specify the columns to list, if first column is "*", means select all columns, the key columns are always selected
+     * @param keyset Keyset, Keyset.first(size, "id") for the first page, then Page.getNext() for the following pages
+     * @param query Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax, if it is null and there is no parameter, that means all
+     * @param parameters Parameters in sequences
+     * @return Page of entities and the keyset of next page
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    default Page<E> listPage(String[] columns, Keyset keyset, String query, Object... parameters) throws RepositoryException {
+        if (keyset.getSize() <= 0) {
+            throw new IllegalArgumentException("Invalid page size:" + keyset.getSize());
+        }
+        String[] keys = keyset.getColumns();
+        OrderBy orderBy = OrderBy.orderBy(keys[0], keyset.isAscending());
+        for(int i = 1; i < keys.length; i ++) {
+            orderBy = orderBy.then(keys[i], keyset.isAscending());
+        }
+        List<Object> allParameters = new ArrayList<>();
+        if (parameters != null) {
+            allParameters.addAll(Arrays.asList(parameters));
+        }
+        String where = query;
+        if (!keyset.isFirst()) {
+            //"k1 > ?" or "((k1 > ?) OR (k1 = ? AND k2 > ?))" as RdbmsDialect.getKeysetCondition without row values
+            String op = keyset.isAscending() ? " > " : " < ";
+            Object[] values = keyset.getValues();
+            StringBuilder sb = new StringBuilder();
+            if (keys.length == 1) {
+                sb.append(keys[0]).append(op).append('?');
+                allParameters.add(values[0]);
+            }
+            else {
+                sb.append('(');
+                for(int i = 0; i < keys.length; i ++) {
+                    if (i > 0) {
+                        sb.append(" OR ");
+                    }
+                    sb.append('(');
+                    for(int j = 0; j < i; j ++) {
+                        sb.append(keys[j]).append(" = ? AND ");
+                        allParameters.add(values[j]);
+                    }
+                    sb.append(keys[i]).append(op).append("?)");
+                    allParameters.add(values[i]);
+                }
+                sb.append(')');
+            }
+            where = StringUtil.isInvalid(query) ? sb.toString() : "(" + query + ") AND " + sb;
+        }
+
+        int size = keyset.getSize();
+        List<E> list = listBy(EntityValues.withColumns(columns, keys), Limit.limit(size + 1), orderBy,
+                where, allParameters.toArray());
+        Keyset next = null;
+        if (list.size() > size) {
+            list = new ArrayList<>(list.subList(0, size));
+            E last = list.get(size - 1);
+            Object[] values = new Object[keys.length];
+            for(int i = 0; i < keys.length; i ++) {
+                values[i] = EntityValues.get(last, keys[i]);
+            }
+            next = keyset.next(values);
+        }
+        return new Page<>(list, next);
+    }
+
+    //=========STREAM==========
+    /**
+     * Stream entities by given conditions, the stream must be closed after using, e.g. try-with-resources
+     *
+     * @param query Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax, if it is null and there is no parameter, that means all
+     * @param parameters Parameters in sequences
+     * @return Stream which holds the connection and ResultSet until it is closed
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    default Stream<E> stream(String query, Object... parameters) throws RepositoryException {
+        return stream(0, LIST_ALL_COLUMNS, null, query, parameters);
+    }
+
+    /**
+     * Stream entities by given conditions, the stream must be closed after using, e.g. try-with-resources
+     * Rows are hydrated lazily by JdbcRepository, so the heap usage doesn't depend on the size of the result,
+     * the default streams the entities listed by listBy.
+     *
+     * @param fetchSize Number of rows fetched in one round trip, 0 means the default fetch size of the repository
+     * @param columns Specify the columns to list, if first column is "*", means select all columns
+     * @param orderBy OrderBy specific column
+     * @param query Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax, if it is null and there is no parameter, that means all
+     * @param parameters Parameters in sequences
+     * @return Stream which holds the connection and ResultSet until it is closed
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    default Stream<E> stream(int fetchSize, String[] columns, OrderBy orderBy, String query, Object... parameters) throws RepositoryException {
+        return listBy(columns, UNLIMITED, orderBy, query, parameters).stream();
+    }
+
+    /**
+     * Visit entities by given conditions one by one
+     *
+     * @param consumer Entity consumer
+     * @param query Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax, if it is null and there is no parameter, that means all
+     * @param parameters Parameters in sequences
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    default void forEach(Consumer<? super E> consumer, String query, Object... parameters) throws RepositoryException {
+        forEach(consumer, 0, LIST_ALL_COLUMNS, null, query, parameters);
+    }
+
+    /**
+     * Visit entities by given conditions one by one, the connection is released after all entities are visited
+     *
+     * @param consumer Entity consumer
+     * @param fetchSize Number of rows fetched in one round trip, 0 means the default fetch size of the repository
+     * @param columns Specify the columns to list, if first column is "*", means select all columns
+     * @param orderBy OrderBy specific column
+     * @param query Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax, if it is null and there is no parameter, that means all
+     * @param parameters Parameters in sequences
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    default void forEach(Consumer<? super E> consumer, int fetchSize, String[] columns, OrderBy orderBy,
+                         String query, Object... parameters) throws RepositoryException {
+        listBy(columns, UNLIMITED, orderBy, query, parameters).forEach(consumer);
+    }
+
+    //=========PARALLEL SCAN==========
+    /**
+     * Visit all entities matching the query by scanning id ranges in parallel
+     *
+     * @param consumer Thread safe consumer, it is invoked concurrently
+     * @param query Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax, if it is null and there is no parameter, that means all
+     * @param parameters Parameters in sequences
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    default void parallelForEach(Consumer<? super E> consumer, String query, Object... parameters) throws RepositoryException {
+        parallelForEach(consumer, 0, ScanPartition.RANGE, LIST_ALL_COLUMNS, query, parameters);
+    }
+
+    /**
+     * Visit entities by splitting the table into partitions, every partition is scanned on its own connection and thread.
+     * It returns after all partitions are scanned. The default visits the entities by forEach in the calling thread.
+     *
+     * @param consumer Thread safe consumer, it is invoked concurrently in the scanning threads
+     * @param parallelism Number of partitions, it is capped by the maximum pool size of the DataSource, 0 means the maximum pool size
+     * @param partition How the table is split
+     * @param columns Specify the columns to list, if first column is "*", means select all columns
+     * @param query Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax, if it is null and there is no parameter, that means all
+     * @param parameters Parameters in sequences
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    default void parallelForEach(Consumer<? super E> consumer, int parallelism, ScanPartition partition, String[] columns,
+                                 String query, Object... parameters) throws RepositoryException {
+        forEach(consumer, 0, columns, null, query, parameters);
+    }
+
+    /**
+     * Stream entities by splitting the table into partitions, every partition is scanned on its own connection and thread,
+     * the entities are merged into the stream in no particular order. The stream must be closed after using.
+     * The default is the stream of one scan.
+     *
+     * @param parallelism Number of partitions, it is capped by the maximum pool size of the DataSource, 0 means the maximum pool size
+     * @param partition How the table is split
+     * @param columns Specify the columns to list, if first column is "*", means select all columns
+     * @param query Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax, if it is null and there is no parameter, that means all
+     * @param parameters Parameters in sequences
+     * @return Stream which holds the connections until it is closed
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    default Stream<E> parallelStream(int parallelism, ScanPartition partition, String[] columns,
+                                     String query, Object... parameters) throws RepositoryException {
+        return stream(0, columns, null, query, parameters);
+    }
+
     /**
      * Retrieve entity by id
      *
@@ -167,6 +402,37 @@ public interface Repository<E> extends NamedBean {
         return getByColumn("id", id);
     }
 
+    /**
+     * Retrieve entities by ids, the ids are queried by "id IN (?, ?, ...)" in chunks
+     *
+     * @param ids Entity Ids
+     * @return Map from id to entity, the ids which don't exist are not in the map
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    default LongObjectMap<E> getByIds(long... ids) throws RepositoryException {
+        return getByIds(LIST_ALL_COLUMNS, ids);
+    }
+
+    /**
+     * Retrieve entities by ids, the ids are queried by "id IN (?, ?, ...)" in chunks,
+     * the default retrieves them one by one by getById with all columns
+     *
+     * @param columns Specify the columns to list, if first column is "*", means select all columns, the id is always selected
+     * @param ids Entity Ids
+     * @return Map from id to entity, the ids which don't exist are not in the map
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    default LongObjectMap<E> getByIds(String[] columns, long... ids) throws RepositoryException {
+        LongObjectMap<E> map = new LongObjectMap<>(ids.length);
+        for(long id: ids) {
+            E entity = getById(id);
+            if (entity != null) {
+                map.put(id, entity);
+            }
+        }
+        return map;
+    }
+
     /**
      * Retrieve entity by column
      *
@@ -206,6 +472,258 @@ public interface Repository<E> extends NamedBean {
         return getBy(indexedQuery.query, toParameters(indexedQuery.index, parameters));
     }
 
+    //=========COUNT==========
+    /**
+     * Count all entities
+     *
+     * @return Number of entities
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    default long countAll() throws RepositoryException {
+        return countBy(null);
+    }
+
+    /**
+     * Count entities by "SELECT COUNT(*)", no entity is created, the default counts the ids listed by listBy
+     *
+     * @param query Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax, if it is null and there is no parameter, that means all
+     * @param parameters Parameters in sequences
+     * @return Number of entities
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    default long countBy(String query, Object... parameters) throws RepositoryException {
+        return listBy(new String[] {"id"}, UNLIMITED, null, query, parameters).size();
+    }
+
+    /**
+     * Count entities by "SELECT COUNT(*)", no entity is created
+     *
+     * @param query Query part after "WHERE" in SQL, query should use "id = :foo_id AND name = :foo_name" syntax
+     * @param parameters Parameters should have {foo_id->123,foo_name->'Sheldon'}
+     * @return Number of entities
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    default long countBy(String query, Parameters parameters) throws RepositoryException {
+        if (StringUtil.isInvalid(query)) {
+            throw new IllegalArgumentException("No any condition in the query:" + query);
+        }
+        IndexedQuery indexedQuery = toIndexedQuery(query);
+        return countBy(indexedQuery.query, toParameters(indexedQuery.index, parameters));
+    }
+
+    /**
+     * Whether there is any entity matching the conditions, it reads at most one row of "SELECT 1", no entity is created,
+     * the default lists at most one id by listBy
+     *
+     * @param query Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax
+     * @param parameters Parameters in sequences
+     * @return Exists or not
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    default boolean existsBy(String query, Object... parameters) throws RepositoryException {
+        return !listBy(new String[] {"id"}, Limit.limit(1), null, query, parameters).isEmpty();
+    }
+
+    /**
+     * Whether there is any entity matching the conditions, it reads at most one row of "SELECT 1", no entity is created
+     *
+     * @param query Query part after "WHERE" in SQL, query should use "id = :foo_id AND name = :foo_name" syntax
+     * @param parameters Parameters should have {foo_id->123,foo_name->'Sheldon'}
+     * @return Exists or not
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    default boolean existsBy(String query, Parameters parameters) throws RepositoryException {
+        if (StringUtil.isInvalid(query)) {
+            throw new IllegalArgumentException("No any condition in the query:" + query);
+        }
+        IndexedQuery indexedQuery = toIndexedQuery(query);
+        return existsBy(indexedQuery.query, toParameters(indexedQuery.index, parameters));
+    }
+
+    //=========COLUMN==========
+    /**
+     * List values of one column, no entity is created, for example listColumn("uuid", String.class, "model = ?", "M1").
+     * The default reads the column from the entities listed by listBy.
+     *
+     * @param column Column or property name
+     * @param type Value type, the values are converted to this type if they aren't
+     * @param query Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax, if it is null and there is no parameter, that means all
+     * @param parameters Parameters in sequences
+     * @param <T> Value type
+     * @return Values, NULL is null
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    default <T> List<T> listColumn(String column, Class<T> type, String query, Object... parameters) throws RepositoryException {
+        List<E> entities = listBy(new String[] {column}, UNLIMITED, null, query, parameters);
+        List<T> values = new ArrayList<>(entities.size());
+        for(E entity: entities) {
+            Object value = EntityValues.get(entity, column);
+            values.add(value == null || type.isInstance(value) ? type.cast(value) : ConverterUtil.convertToType(value, type));
+        }
+        return values;
+    }
+
+    /**
+     * List values of one column in long, they are read by ResultSet.getLong without boxing
+     *
+     * @param column Column or property name
+     * @param query Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax, if it is null and there is no parameter, that means all
+     * @param parameters Parameters in sequences
+     * @return Values, NULL is 0
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    default long[] listLongColumn(String column, String query, Object... parameters) throws RepositoryException {
+        List<E> entities = listBy(new String[] {column}, UNLIMITED, null, query, parameters);
+        long[] values = new long[entities.size()];
+        for(int i = 0; i < values.length; i ++) {
+            values[i] = DataUtil.getLong(EntityValues.get(entities.get(i), column), 0L);
+        }
+        return values;
+    }
+
+    /**
+     * List values of one column in int, they are read by ResultSet.getInt without boxing
+     *
+     * @param column Column or property name
+     * @param query Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax, if it is null and there is no parameter, that means all
+     * @param parameters Parameters in sequences
+     * @return Values, NULL is 0
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    default int[] listIntColumn(String column, String query, Object... parameters) throws RepositoryException {
+        List<E> entities = listBy(new String[] {column}, UNLIMITED, null, query, parameters);
+        int[] values = new int[entities.size()];
+        for(int i = 0; i < values.length; i ++) {
+            values[i] = DataUtil.getInt(EntityValues.get(entities.get(i), column), 0);
+        }
+        return values;
+    }
+
+    /**
+     * List values of one column in double, they are read by ResultSet.getDouble without boxing
+     *
+     * @param column Column or property name
+     * @param query Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax, if it is null and there is no parameter, that means all
+     * @param parameters Parameters in sequences
+     * @return Values, NULL is Double.NaN
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    default double[] listDoubleColumn(String column, String query, Object... parameters) throws RepositoryException {
+        List<E> entities = listBy(new String[] {column}, UNLIMITED, null, query, parameters);
+        double[] values = new double[entities.size()];
+        for(int i = 0; i < values.length; i ++) {
+            values[i] = DataUtil.getDouble(EntityValues.get(entities.get(i), column), Double.NaN);
+        }
+        return values;
+    }
+
+    /**
+     * List ids of the entities matching the conditions
+     *
+     * @param query Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax, if it is null and there is no parameter, that means all
+     * @param parameters Parameters in sequences
+     * @return Ids
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    default long[] listIds(String query, Object... parameters) throws RepositoryException {
+        return listLongColumn("id", query, parameters);
+    }
+
+    /**
+     * List ids of the entities matching the conditions
+     *
+     * @param query Query part after "WHERE" in SQL, query should use "id = :foo_id AND name = :foo_name" syntax
+     * @param parameters Parameters should have {foo_id->123,foo_name->'Sheldon'}
+     * @return Ids
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    default long[] listIds(String query, Parameters parameters) throws RepositoryException {
+        if (StringUtil.isInvalid(query)) {
+            throw new IllegalArgumentException("No any condition in the query:" + query);
+        }
+        IndexedQuery indexedQuery = toIndexedQuery(query);
+        return listIds(indexedQuery.query, toParameters(indexedQuery.index, parameters));
+    }
+
+    //=========AGGREGATE==========
+    /**
+     * Aggregate one value by the database, for example aggregate(Agg.sum("amount"), "device_id = ?", 12)
+     *
+     * @param agg Aggregate function
+     * @param query Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax, if it is null and there is no parameter, that means all
+     * @param parameters Parameters in sequences
+     * @return Value, Double.NaN if it is NULL, for example, SUM of no row
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    default double aggregate(Agg agg, String query, Object... parameters) throws RepositoryException {
+        return aggregate(new Agg[] {agg}, query, parameters)[0];
+    }
+
+    /**
+     * Aggregate one integral value by the database, such as COUNT or SUM of an integer column,
+     * the value is read by getLong, so it doesn't lose the precision of double beyond 2^53
+     *
+     * @param agg Aggregate function
+     * @param query Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax, if it is null and there is no parameter, that means all
+     * @param parameters Parameters in sequences
+     * @return Value, 0 if it is NULL
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    default long aggregateLong(Agg agg, String query, Object... parameters) throws RepositoryException {
+        AggregateRows rows = aggregate(new Agg[] {agg}, null, query, parameters);
+        return rows.size() > 0 ? rows.getLong(0, 0) : 0;
+    }
+
+    /**
+     * Aggregate values by the database in one query
+     *
+     * @param aggs Aggregate functions
+     * @param query Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax, if it is null and there is no parameter, that means all
+     * @param parameters Parameters in sequences
+     * @return Values in sequence of the aggregate functions, Double.NaN if it is NULL
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    default double[] aggregate(Agg[] aggs, String query, Object... parameters) throws RepositoryException {
+        AggregateRows rows = aggregate(aggs, null, query, parameters);
+        double[] values = new double[aggs.length];
+        for(int i = 0; i < values.length; i ++) {
+            values[i] = rows.size() > 0 ? rows.getValue(0, i) : Double.NaN;
+        }
+        return values;
+    }
+
+    /**
+     * Aggregate by groups, for example aggregate(Agg.sum("amount"), Agg.groupBy("device_id"), "amount > ?", 0)
+     *
+     * @param agg Aggregate function
+     * @param groupBy Group by columns
+     * @param query Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax, if it is null and there is no parameter, that means all
+     * @param parameters Parameters in sequences
+     * @return One row per group
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    default AggregateRows aggregate(Agg agg, String[] groupBy, String query, Object... parameters) throws RepositoryException {
+        return aggregate(new Agg[] {agg}, groupBy, query, parameters);
+    }
+
+    /**
+     * Aggregate by groups in one query, the reduction is done by the database,
+     * the default reduces the entities listed by listBy in memory
+     *
+     * @param aggs Aggregate functions
+     * @param groupBy Group by columns
+     * @param query Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax, if it is null and there is no parameter, that means all
+     * @param parameters Parameters in sequences
+     * @return One row per group
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    default AggregateRows aggregate(Agg[] aggs, String[] groupBy, String query, Object... parameters) throws RepositoryException {
+        if (aggs == null || aggs.length == 0) {
+            throw new IllegalArgumentException("No aggregate function");
+        }
+        return AggregateRows.reduce(listBy(query, parameters), aggs, groupBy);
+    }
+
     //=========CREATE==========
     /**
      * Create entity with no option
@@ -263,7 +781,8 @@ public interface Repository<E> extends NamedBean {
     }
 
     /**
-     * Update entity with specific options such as {force->true} to avoid cache
+     * Update entity with specific options such as {force->true} to avoid cache.
+     * With dirty tracking, an entity without any change returns true and the row is not checked.
      *
      * @param entity Entity entity
      * @param options Options
@@ -308,11 +827,15 @@ public interface Repository<E> extends NamedBean {
     }
 
     /**
-     * Update entity with specific options such as {force->true} to avoid cache
+     * Save entity with specific options such as {force->true} to avoid cache.
+     * If the entity with id is saved by native upsert, the databases with MERGE can't tell
+     * the created row from the updated one, the upsert returns 0 for both of them.
+     * MySQL returns 1 for the created row only if the repository is told the connection uses "useAffectedRows=true",
+     * otherwise it returns 0 for both, since an unchanged row counts 1 as a created row does.
      *
      * @param entity Entity entity
      * @param options Options
-     * @return Updated or not
+     * @return 1: Created 0: Updated -1: Failed
      * @throws RepositoryException SQL Exception or downstream exceptions
      */
     int save(E entity, Parameters options) throws RepositoryException;
@@ -354,11 +877,32 @@ public interface Repository<E> extends NamedBean {
      * Delete entity by ids
      *
      * @param id Entity Id
-     * @return Deleted or not
+     * @return All true if the deletion succeeds, the rows no longer exist,
+     * only "delete_status" of {@link #deleteByIds(Parameters, long...)} tells which ids were deleted
      * @throws RepositoryException SQL Exception or downstream exceptions
      */
     boolean[] deleteByIds(long... id) throws RepositoryException;
 
+    /**
+     * Delete entity by ids with specific options such as {delete_status->true},
+     * the default deletes them one by one by deleteById with "delete_status", otherwise by {@link #deleteByIds(long...)}
+     *
+     * @param options Options
+     * @param id Entity Id
+     * @return Deleted or not with "delete_status", otherwise all true as {@link #deleteByIds(long...)}
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    default boolean[] deleteByIds(Parameters options, long... id) throws RepositoryException {
+        if (options == null || !DataUtil.getBoolean(options.get(OPTION_DELETE_STATUS), false)) {
+            return deleteByIds(id);
+        }
+        boolean[] deleted = new boolean[id.length];
+        for(int i = 0; i < id.length; i ++) {
+            deleted[i] = deleteById(id[i]);
+        }
+        return deleted;
+    }
+
     /**
      * Delete entity by column
      *
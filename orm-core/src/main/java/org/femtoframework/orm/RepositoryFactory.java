@@ -1,5 +1,6 @@
 package org.femtoframework.orm;
 
+import org.femtoframework.orm.ext.SimpleAsyncRepository;
 import org.femtoframework.parameters.Parameters;
 import org.femtoframework.pattern.Factory;
 
@@ -30,6 +31,31 @@ public interface RepositoryFactory extends Factory<Repository> {
      * @return Repository
      */
     <E> Repository<E> getRepository(String tableName, Class<E> domainClass);
+
+    /**
+     * Return AsyncRepository by domainClass
+     *
+     * @param domainClass Domain Class
+     * @param <E> Entity
+     * @return AsyncRepository
+     */
+    default <E> AsyncRepository<E> getAsyncRepository(Class<E> domainClass) {
+        return getAsyncRepository(null, domainClass);
+    }
+
+    /**
+     * Return AsyncRepository by domainClass, the calls in flight are limited by the maximum pool size of the DataSource.
+     * The default wraps the repository in SimpleAsyncRepository on the shared default executor.
+     *
+     * @param tableName If it is null, will use name conversion from DomainClass
+     * @param domainClass Domain Class
+     * @param <E> Entity
+     * @return AsyncRepository
+     */
+    default <E> AsyncRepository<E> getAsyncRepository(String tableName, Class<E> domainClass) {
+        return new SimpleAsyncRepository<>(getRepository(tableName, domainClass));
+    }
+
     /**
      * Type Safe Repository
      *
@@ -58,6 +58,16 @@ public class RepositoryUtil {
         }
     }
 
+    /**
+     * Maximum number of connections could be used concurrently on the DataSource
+     *
+     * @param dataSource DataSource
+     * @return Maximum pool size of NamedDataSource, the number of processors if it is unknown
+     */
+    public static int getMaximumPoolSize(DataSource dataSource) {
+        int poolSize = dataSource instanceof NamedDataSource ? ((NamedDataSource) dataSource).getMaximumPoolSize() : 0;
+        return poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+    }
 
     /**
      * Return RepositoryFactory by DataSource
@@ -0,0 +1,19 @@
+package org.femtoframework.orm;
+
+/**
+ * How a table is split for parallel scan
+ */
+public enum ScanPartition {
+
+    /**
+     * Contiguous id ranges between MIN(id) and MAX(id), each range is an index range scan,
+     * it fits the dense ids which are generated by sequence
+     */
+    RANGE,
+
+    /**
+     * Hash buckets by "MOD(id, n)", the buckets are even if the ids are sparse or skewed,
+     * but each bucket reads the whole table or index
+     */
+    MOD
+}
@@ -56,6 +56,55 @@ public interface TypeMapping {
         }
     }
 
+    /**
+     * Map Java type to SQLType, java.util.Date is mapped to TIMESTAMP, since it is stored as Timestamp
+     *
+     * @param type Java type, primitive type is supported
+     * @return SQLType, returns null if the type is unknown
+     */
+    static SQLType toSQLType(Class<?> type) {
+        if (type == String.class) {
+            return JDBCType.VARCHAR;
+        }
+        else if (type == int.class || type == Integer.class) {
+            return JDBCType.INTEGER;
+        }
+        else if (type == long.class || type == Long.class) {
+            return JDBCType.BIGINT;
+        }
+        else if (type == byte.class || type == Byte.class) {
+            return JDBCType.TINYINT;
+        }
+        else if (type == short.class || type == Short.class) {
+            return JDBCType.SMALLINT;
+        }
+        else if (type == double.class || type == Double.class) {
+            return JDBCType.DOUBLE;
+        }
+        else if (type == float.class || type == Float.class) {
+            return JDBCType.FLOAT;
+        }
+        else if (type == char.class || type == Character.class) {
+            return JDBCType.CHAR;
+        }
+        else if (type == boolean.class || type == Boolean.class) {
+            return JDBCType.BOOLEAN;
+        }
+        else if (type == Time.class) {
+            return JDBCType.TIME;
+        }
+        else if (type == java.sql.Date.class) {
+            return JDBCType.DATE;
+        }
+        else if (type != null && Date.class.isAssignableFrom(type)) {
+            return JDBCType.TIMESTAMP;
+        }
+        else if (type == byte[].class) {
+            return JDBCType.BINARY;
+        }
+        return null;
+    }
+
     /**
      * Convert SQLType to JavaType
      *
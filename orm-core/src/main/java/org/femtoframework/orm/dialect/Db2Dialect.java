@@ -1,5 +1,7 @@
 package org.femtoframework.orm.dialect;
 
+import org.femtoframework.orm.Agg;
+
 public class Db2Dialect implements RdbmsDialect {
     /**
      * Get the default driver class
@@ -19,18 +21,27 @@ public class Db2Dialect implements RdbmsDialect {
         return "com.ibm.db2.jcc.DB2SimpleDataSource";
     }
 
+    /**
+     * Whether the DB supports "LIMIT" in SELECT SQL
+     *
+     * @return LIMIT the records
+     */
+    public boolean supportsLimit() {
+        return true;
+    }
+
     public boolean useMaxForLimit()
     {
         return true;
     }
 
     /**
-     * Render the <tt>rownumber() over ( .... ) as rownumber_,</tt>
+     * Render the <tt>row_number() over ( .... ) as rownumber_,</tt>
      * bit, that goes in the select list
      */
     private StringBuilder appendRowNumber(StringBuilder sb, String sql)
     {
-        sb.append("rownumber() over(");
+        sb.append("row_number() over(");
         int orderByIndex = sql.toLowerCase().indexOf("order by");
 
         if (orderByIndex > 0 && !hasDistinct(sql)) {
@@ -79,10 +90,35 @@ public class Db2Dialect implements RdbmsDialect {
         else {
             pagingSelect.append("<= ?");
         }
+        //The outer select keeps the order of the inner "order by"
+        pagingSelect.append(" order by rownumber_");
 
         return pagingSelect.toString();
     }
 
+    /**
+     * AVG of integer column is truncated to integer, so it is cast to DOUBLE
+     *
+     * @param function Aggregate function
+     * @param column Column, null means "*"
+     * @return Expression
+     */
+    public String getAggregateExpression(Agg.Function function, String column) {
+        if (function == Agg.Function.AVG) {
+            return "AVG(CAST(" + column + " AS DOUBLE))";
+        }
+        return RdbmsDialect.super.getAggregateExpression(function, column);
+    }
+
+    /**
+     * Whether the DB supports row value comparison, such as "(a, b) > (?, ?)"
+     *
+     * @return true
+     */
+    public boolean supportsRowValueComparison() {
+        return true;
+    }
+
     /**
      * Whether the database supports Sequence
      *
@@ -116,7 +152,16 @@ public class Db2Dialect implements RdbmsDialect {
      * @return String
      */
     public String getSelectSequenceNextVal(String name) {
-        return "VALUES NEXT VALUE FOR " + name;
+        return "NEXT VALUE FOR " + name;
+    }
+
+    /**
+     * Select statement retrieving the increment of a sequence from the catalog
+     *
+     * @return SQL with one parameter, the sequence name
+     */
+    public String getSequenceIncrement() {
+        return "SELECT INCREMENT FROM SYSCAT.SEQUENCES WHERE SEQNAME = UPPER(?)";
     }
 
     /**
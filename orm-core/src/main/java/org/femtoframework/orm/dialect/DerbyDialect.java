@@ -14,6 +14,45 @@ public class DerbyDialect extends Db2Dialect {
         return "derby";
     }
 
+    /**
+     * Derby doesn't support "rownumber() over(order by ...)", it supports "OFFSET ? ROWS FETCH NEXT ? ROWS ONLY",
+     * which takes the number of rows
+     */
+    public boolean useMaxForLimit() {
+        return false;
+    }
+
+    /**
+     * Add LIMIT on query
+     *
+     * @param querySelect Original SELECT query
+     * @param hasOffset   whether the offset start with 0
+     * @return new SQL
+     */
+    @Override
+    public String getLimitString(String querySelect, boolean hasOffset) {
+        return querySelect + (hasOffset ? " OFFSET ? ROWS FETCH NEXT ? ROWS ONLY" : " FETCH FIRST ? ROWS ONLY");
+    }
+
+    /**
+     * Select statement retrieving the increment of a sequence from the catalog
+     *
+     * @return SQL with one parameter, the sequence name
+     */
+    @Override
+    public String getSequenceIncrement() {
+        return "SELECT INCREMENT FROM SYS.SYSSEQUENCES WHERE SEQUENCENAME = UPPER(?)";
+    }
+
+    /**
+     * Derby doesn't support row value comparison
+     *
+     * @return false
+     */
+    public boolean supportsRowValueComparison() {
+        return false;
+    }
+
     /**
      * Return the data source class name
      *
@@ -0,0 +1,26 @@
+package org.femtoframework.orm.dialect;
+
+/**
+ * SQL fragments shared by the dialects
+ */
+class DialectUtil {
+
+    /**
+     * Close the "ON (t.id = s.id" of MERGE and append the clauses of matched and not matched rows,
+     * the target table is aliased "t" and the source "s"
+     *
+     * @param sb SQL ending with the ON condition
+     * @param columns Columns, the first one is the key
+     */
+    static void appendMergeClauses(StringBuilder sb, String[] columns) {
+        sb.append(") WHEN MATCHED THEN UPDATE SET ");
+        for(int i = 1; i < columns.length; i ++) {
+            sb.append(i > 1 ? ", t." : "t.").append(columns[i]).append(" = s.").append(columns[i]);
+        }
+        sb.append(" WHEN NOT MATCHED THEN INSERT (").append(String.join(",", columns)).append(") VALUES (");
+        for(int i = 0; i < columns.length; i ++) {
+            sb.append(i > 0 ? ",s." : "s.").append(columns[i]);
+        }
+        sb.append(')');
+    }
+}
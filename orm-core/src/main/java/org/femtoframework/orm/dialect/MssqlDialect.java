@@ -1,5 +1,9 @@
 package org.femtoframework.orm.dialect;
 
+import org.femtoframework.orm.Agg;
+
+import java.util.List;
+
 /**
  * SQL Server 2012
  */
@@ -28,12 +32,12 @@ public class MssqlDialect implements RdbmsDialect {
     }
 
     /**
-     * Does the <tt>LIMIT</tt> clause take a "maximum" row number instead
-     * of a total number of returned rows?
+     * Whether the DB supports "NULLS FIRST" and "NULLS LAST" in ORDER BY
+     *
+     * @return false
      */
-    public boolean useMaxForLimit()
-    {
-        return true;
+    public boolean supportsNullsOrdering() {
+        return false;
     }
 
     /**
@@ -44,10 +48,25 @@ public class MssqlDialect implements RdbmsDialect {
      * FETCH NEXT 10 ROWS ONLY;
      * OFFSET: number of skipped rows
      * NEXT: required number of next rows
+     *
+     * OFFSET is mandatory for FETCH, and OFFSET requires ORDER BY, so the query must be ordered.
      */
     public String getLimitString(String sql, boolean hasOffset)
     {
-        return sql + (hasOffset ? " OFFSET ? ROWS FETCH NEXT ? ROWS ONLY" : " FETCH NEXT ? ROWS ONLY");
+        return sql + (hasOffset ? " OFFSET ? ROWS FETCH NEXT ? ROWS ONLY" : " OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY");
+    }
+
+    /**
+     * "ORDER BY (SELECT NULL)" is added when the query is not ordered, since OFFSET requires ORDER BY
+     *
+     * @param sql Original SELECT query
+     * @param offset Offset
+     * @param limit LIMIT
+     * @param ordered Whether the SELECT ends with ORDER BY
+     * @return NEW SQL
+     */
+    public String getLimitString(String sql, int offset, int limit, boolean ordered) {
+        return getLimitString(ordered ? sql : sql + " ORDER BY (SELECT NULL)", offset > 0);
     }
 
     /**
@@ -69,7 +88,7 @@ public class MssqlDialect implements RdbmsDialect {
      * @return String The "nextval" select string.
      */
     public String getSequenceNextVal(String name) {
-        return "NEXTVAL ('" + name + "')";
+        return "SELECT " + getSelectSequenceNextVal(name);
     }
 
     /**
@@ -83,7 +102,76 @@ public class MssqlDialect implements RdbmsDialect {
      * @return String
      */
     public String getSelectSequenceNextVal(String name) {
-        return "SELECT " + getSequenceNextVal(name);
+        return "NEXT VALUE FOR " + name;
+    }
+
+    /**
+     * AVG of integer column is truncated to integer, so it is cast to FLOAT
+     *
+     * @param function Aggregate function
+     * @param column Column, null means "*"
+     * @return Expression
+     */
+    public String getAggregateExpression(Agg.Function function, String column) {
+        if (function == Agg.Function.AVG) {
+            return "AVG(CAST(" + column + " AS FLOAT))";
+        }
+        return RdbmsDialect.super.getAggregateExpression(function, column);
+    }
+
+    /**
+     * SQL Server doesn't have MOD function
+     *
+     * @param column Column
+     * @param divisor Divisor
+     * @return "(column % divisor)"
+     */
+    public String getModExpression(String column, int divisor) {
+        return "(" + column + " % " + divisor + ")";
+    }
+
+    /**
+     * "MERGE INTO t WITH (HOLDLOCK) AS t USING (VALUES (?,?)) AS s (id,a) ON (t.id = s.id) WHEN MATCHED THEN UPDATE SET t.a = s.a
+     * WHEN NOT MATCHED THEN INSERT (id,a) VALUES (s.id,s.a);", HOLDLOCK keeps concurrent upserts of one key from both inserting
+     *
+     * @param table Table name
+     * @param columns Columns, the first one is the key
+     * @param parameters Indexes of the columns in the sequence of the parameters
+     * @return SQL
+     */
+    @Override
+    public String getUpsert(String table, String[] columns, List<Integer> parameters) {
+        StringBuilder sb = new StringBuilder(96 + 32 * columns.length);
+        sb.append("MERGE INTO ").append(table).append(" WITH (HOLDLOCK) AS t USING (VALUES (?");
+        parameters.add(0);
+        for(int i = 1; i < columns.length; i ++) {
+            sb.append(",?");
+            parameters.add(i);
+        }
+        sb.append(")) AS s (").append(String.join(",", columns)).append(") ON (t.").append(columns[0])
+                .append(" = s.").append(columns[0]);
+        DialectUtil.appendMergeClauses(sb, columns);
+        return sb.append(';').toString();
+    }
+
+    /**
+     * SQL Server accepts 2100 parameters in one statement and 1000 rows in one VALUES
+     *
+     * @return Maximum number of parameters
+     */
+    @Override
+    public int getMaxParameters() {
+        return 2000;
+    }
+
+    /**
+     * SQL Server rejects a table value constructor with more than 1000 rows
+     *
+     * @return Maximum number of rows per insert
+     */
+    @Override
+    public int getMaxRowsPerInsert() {
+        return 1000;
     }
 
     /**
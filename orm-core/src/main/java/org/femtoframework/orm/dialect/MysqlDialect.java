@@ -1,5 +1,7 @@
 package org.femtoframework.orm.dialect;
 
+import java.util.List;
+
 /**
  * Mysql Dialect
  */
@@ -31,6 +33,74 @@ public class MysqlDialect implements RdbmsDialect {
         return true;
     }
 
+    /**
+     * Whether the DB supports "NULLS FIRST" and "NULLS LAST" in ORDER BY
+     *
+     * @return false
+     */
+    public boolean supportsNullsOrdering() {
+        return false;
+    }
+
+    /**
+     * The driver returns the AUTO_INCREMENT ids of all the rows in batch
+     *
+     * @return true
+     */
+    public boolean supportsBatchGeneratedKeys() {
+        return true;
+    }
+
+    /**
+     * AUTO_INCREMENT column accepts explicit ids
+     *
+     * @return true
+     */
+    public boolean supportsIdentityInsert() {
+        return true;
+    }
+
+    /**
+     * "INSERT INTO t (id,a) VALUES (?,?) ON DUPLICATE KEY UPDATE a = VALUES(a)"
+     *
+     * @param table Table name
+     * @param columns Columns, the first one is the key
+     * @param parameters Indexes of the columns in the sequence of the parameters
+     * @return SQL
+     */
+    @Override
+    public String getUpsert(String table, String[] columns, List<Integer> parameters) {
+        StringBuilder sb = new StringBuilder(64 + 24 * columns.length);
+        sb.append("INSERT INTO ").append(table).append(" (").append(String.join(",", columns)).append(") VALUES (?");
+        parameters.add(0);
+        for(int i = 1; i < columns.length; i ++) {
+            sb.append(",?");
+            parameters.add(i);
+        }
+        sb.append(") ON DUPLICATE KEY UPDATE ");
+        for(int i = 1; i < columns.length; i ++) {
+            sb.append(i > 1 ? ", " : "").append(columns[i]).append(" = VALUES(").append(columns[i]).append(')');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * "ON DUPLICATE KEY UPDATE" counts 1 for the inserted row and 2 for the updated row.
+     * An existing row with the same values counts 1 with CLIENT_FOUND_ROWS which is the default of Connector/J,
+     * so 1 is reported as created only if the connection sets "useAffectedRows=true", then the row counts 0.
+     *
+     * @param updateCount Update count of the upsert
+     * @param affectedRows Whether the connection sets "useAffectedRows=true"
+     * @return 1: Created 0: Updated or unknown -1: Failed
+     */
+    @Override
+    public int getUpsertStatus(int updateCount, boolean affectedRows) {
+        if (updateCount < 0) {
+            return -1;
+        }
+        return affectedRows && updateCount == 1 ? 1 : 0;
+    }
+
     /**
      * Add LIMIT on query
      *
@@ -44,6 +114,26 @@ public class MysqlDialect implements RdbmsDialect {
         return querySelect + (hasOffset ? " LIMIT ?, ?" : " LIMIT ?");
     }
 
+    /**
+     * Whether the DB supports row value comparison, such as "(a, b) > (?, ?)"
+     *
+     * @return true
+     */
+    public boolean supportsRowValueComparison() {
+        return true;
+    }
+
+    /**
+     * MySQL Connector/J streams the rows one by one only when the fetch size is Integer.MIN_VALUE,
+     * otherwise it reads the whole result set into memory.
+     *
+     * @param fetchSize Expected fetch size
+     * @return Integer.MIN_VALUE
+     */
+    public int getCursorFetchSize(int fetchSize) {
+        return Integer.MIN_VALUE;
+    }
+
     /**
      * Name of the object
      *
@@ -1,5 +1,7 @@
 package org.femtoframework.orm.dialect;
 
+import java.util.List;
+
 public class OracleDialect implements RdbmsDialect {
     /**
      * Get the default driver class
@@ -19,6 +21,24 @@ public class OracleDialect implements RdbmsDialect {
         return "oracle.jdbc.pool.OracleDataSource\n";
     }
 
+    /**
+     * Whether the DB supports "LIMIT" in SELECT SQL
+     *
+     * @return LIMIT the records
+     */
+    public boolean supportsLimit() {
+        return true;
+    }
+
+    /**
+     * RETURN_GENERATED_KEYS returns ROWID, so the id column is requested by name
+     *
+     * @return true
+     */
+    public boolean useGeneratedKeyColumnNames() {
+        return true;
+    }
+
     /**
      * Some databases don't need to specify the maximum limit, since the ResultSet is lazy loading
      */
@@ -64,6 +84,13 @@ public class OracleDialect implements RdbmsDialect {
         return pagingSelect.toString();
     }
 
+    /**
+     * "ROWNUM <= ?" goes first, then "ROWNUM_ > ?"
+     */
+    public boolean bindLimitParametersInReverseOrder() {
+        return true;
+    }
+
     /**
      * Whether the database supports Sequence
      *
@@ -83,7 +110,7 @@ public class OracleDialect implements RdbmsDialect {
      * @return String The "nextval" select string.
      */
     public String getSequenceNextVal(String name) {
-        return name + ".NEXTVAL";
+        return "SELECT " + getSelectSequenceNextVal(name) + " FROM DUAL";
     }
 
     /**
@@ -97,7 +124,66 @@ public class OracleDialect implements RdbmsDialect {
      * @return String
      */
     public String getSelectSequenceNextVal(String name) {
-        return "SELECT " + getSelectSequenceNextVal(name) + " FROM DUAL";
+        return name + ".NEXTVAL";
+    }
+
+    /**
+     * Select statement retrieving multiple next values of a sequence in one round trip
+     *
+     * @param name the name of the sequence
+     * @return SQL with one parameter, the number of values
+     */
+    public String getSequenceNextValues(String name) {
+        return "SELECT " + getSelectSequenceNextVal(name) + " FROM DUAL CONNECT BY LEVEL <= ?";
+    }
+
+    /**
+     * Select statement retrieving the increment of a sequence of the current user
+     *
+     * @return SQL with one parameter, the sequence name
+     */
+    public String getSequenceIncrement() {
+        return "SELECT INCREMENT_BY FROM USER_SEQUENCES WHERE SEQUENCE_NAME = UPPER(?)";
+    }
+
+    /**
+     * Oracle inserts multiple rows by "INSERT ALL INTO t (a,b) VALUES (?,?) INTO t (a,b) VALUES (?,?) SELECT 1 FROM DUAL"
+     *
+     * @param insertSql Single row INSERT
+     * @param rows Number of rows
+     * @return Multi-row INSERT
+     */
+    @Override
+    public String getMultiRowInsert(String insertSql, int rows) {
+        String into = insertSql.substring(6);
+        StringBuilder sb = new StringBuilder(10 + into.length() * rows + 20);
+        sb.append("INSERT ALL");
+        for(int i = 0; i < rows; i ++) {
+            sb.append(into);
+        }
+        return sb.append(" SELECT 1 FROM DUAL").toString();
+    }
+
+    /**
+     * "MERGE INTO t USING (SELECT ? id, ? a FROM DUAL) s ON (t.id = s.id) WHEN MATCHED THEN UPDATE SET t.a = s.a
+     * WHEN NOT MATCHED THEN INSERT (id,a) VALUES (s.id,s.a)"
+     *
+     * @param table Table name
+     * @param columns Columns, the first one is the key
+     * @param parameters Indexes of the columns in the sequence of the parameters
+     * @return SQL
+     */
+    @Override
+    public String getUpsert(String table, String[] columns, List<Integer> parameters) {
+        StringBuilder sb = new StringBuilder(96 + 32 * columns.length);
+        sb.append("MERGE INTO ").append(table).append(" t USING (SELECT ");
+        for(int i = 0; i < columns.length; i ++) {
+            sb.append(i > 0 ? ", ? " : "? ").append(columns[i]);
+            parameters.add(i);
+        }
+        sb.append(" FROM DUAL) s ON (t.").append(columns[0]).append(" = s.").append(columns[0]);
+        DialectUtil.appendMergeClauses(sb, columns);
+        return sb.toString();
     }
 
     /**
@@ -1,5 +1,7 @@
 package org.femtoframework.orm.dialect;
 
+import java.util.List;
+
 /**
  * Postgres
  */
@@ -22,6 +24,78 @@ public class PostgresDialect implements RdbmsDialect {
         return "org.postgresql.ds.PGSimpleDataSource";
     }
 
+    /**
+     * Whether the DB supports "LIMIT" in SELECT SQL
+     *
+     * @return LIMIT the records
+     */
+    public boolean supportsLimit() {
+        return true;
+    }
+
+    /**
+     * The driver appends "RETURNING" to the INSERT, so the keys of all the rows in batch are returned
+     *
+     * @return true
+     */
+    public boolean supportsBatchGeneratedKeys() {
+        return true;
+    }
+
+    /**
+     * Only "RETURNING id" rather than "RETURNING *"
+     *
+     * @return true
+     */
+    public boolean useGeneratedKeyColumnNames() {
+        return true;
+    }
+
+    /**
+     * Array parameter, one statement for any number of values
+     *
+     * @param column Column
+     * @return "column = ANY(?)"
+     */
+    @Override
+    public String getArrayCondition(String column) {
+        return column + " = ANY(?)";
+    }
+
+    /**
+     * "INSERT INTO t (id,a) VALUES (?,?) ON CONFLICT (id) DO UPDATE SET a = EXCLUDED.a"
+     *
+     * @param table Table name
+     * @param columns Columns, the first one is the key
+     * @param parameters Indexes of the columns in the sequence of the parameters
+     * @return SQL
+     */
+    @Override
+    public String getUpsert(String table, String[] columns, List<Integer> parameters) {
+        StringBuilder sb = new StringBuilder(64 + 24 * columns.length);
+        sb.append("INSERT INTO ").append(table).append(" (").append(String.join(",", columns)).append(") VALUES (?");
+        parameters.add(0);
+        for(int i = 1; i < columns.length; i ++) {
+            sb.append(",?");
+            parameters.add(i);
+        }
+        sb.append(") ON CONFLICT (").append(columns[0]).append(") DO UPDATE SET ");
+        for(int i = 1; i < columns.length; i ++) {
+            sb.append(i > 1 ? ", " : "").append(columns[i]).append(" = EXCLUDED.").append(columns[i]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * The row version "xmax" of a newly inserted row is 0, the updated row gets the id of the updating transaction
+     *
+     * @return " RETURNING (xmax = 0)"
+     */
+    @Override
+    public String getUpsertCreatedClause() {
+        return " RETURNING (xmax = 0)";
+    }
+
     /**
      * Add LIMIT on query
      *
@@ -34,6 +108,24 @@ public class PostgresDialect implements RdbmsDialect {
         return querySelect + (hasOffset ? " offset ? limit ?" : " limit ?");
     }
 
+    /**
+     * Whether the DB supports row value comparison, such as "(a, b) > (?, ?)"
+     *
+     * @return true
+     */
+    public boolean supportsRowValueComparison() {
+        return true;
+    }
+
+    /**
+     * Postgres only fetches rows by cursor when the auto commit is off
+     *
+     * @return true
+     */
+    public boolean isCursorInTransaction() {
+        return true;
+    }
+
     /**
      * Whether the database supports Sequence
      *
@@ -70,6 +162,16 @@ public class PostgresDialect implements RdbmsDialect {
         return "nextval ('" + name + "')";
     }
 
+    /**
+     * Select statement retrieving multiple next values of a sequence in one round trip
+     *
+     * @param name the name of the sequence
+     * @return SQL with one parameter, the number of values
+     */
+    public String getSequenceNextValues(String name) {
+        return "select " + getSelectSequenceNextVal(name) + " from generate_series(1, ?)";
+    }
+
     /**
      * Name of the object
      *
@@ -1,6 +1,11 @@
 package org.femtoframework.orm.dialect;
 
 import org.femtoframework.bean.NamedBean;
+import org.femtoframework.orm.Agg;
+import org.femtoframework.orm.OrderBy;
+
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Represents a dialect of SQL implemented by a particular RDBMS.
@@ -47,6 +52,19 @@ public interface RdbmsDialect extends NamedBean {
         return getLimitString(querySelect, offset > 0);
     }
 
+    /**
+     * Wrap the SELECT with given offset and limit, for the DB which needs ORDER BY to page
+     *
+     * @param querySelect Original SELECT query
+     * @param offset Offset
+     * @param limit LIMIT
+     * @param ordered Whether the SELECT ends with ORDER BY
+     * @return NEW SQL
+     */
+    default String getLimitString(String querySelect, int offset, int limit, boolean ordered) {
+        return getLimitString(querySelect, offset, limit);
+    }
+
     /**
      * Add LIMIT on query
      *
@@ -56,6 +74,266 @@ public interface RdbmsDialect extends NamedBean {
      */
     String getLimitString(String querySelect, boolean hasOffset);
 
+    /**
+     * Whether the DB supports "NULLS FIRST" and "NULLS LAST" in ORDER BY
+     *
+     * @return Supports or not
+     */
+    default boolean supportsNullsOrdering() {
+        return true;
+    }
+
+    /**
+     * Render one column of ORDER BY, the NULLs ordering is emulated by "CASE WHEN" if the DB doesn't support it
+     *
+     * @param sb StringBuilder
+     * @param column Column
+     * @param ascending Ascending or not
+     * @param nulls Nulls first or last
+     */
+    default void appendOrderBy(StringBuilder sb, String column, boolean ascending, OrderBy.Nulls nulls) {
+        boolean nullsOrdering = nulls != null && nulls != OrderBy.Nulls.DEFAULT;
+        if (nullsOrdering && !supportsNullsOrdering()) {
+            boolean first = nulls == OrderBy.Nulls.FIRST;
+            sb.append("CASE WHEN ").append(column).append(" IS NULL THEN ")
+                    .append(first ? 0 : 1).append(" ELSE ").append(first ? 1 : 0).append(" END,");
+        }
+        sb.append(column);
+        if (!ascending) {
+            sb.append(" DESC");
+        }
+        if (nullsOrdering && supportsNullsOrdering()) {
+            sb.append(nulls == OrderBy.Nulls.FIRST ? " NULLS FIRST" : " NULLS LAST");
+        }
+    }
+
+    /**
+     * Whether the LIMIT parameters are bound as (limit, offset) rather than (offset, limit)
+     */
+    default boolean bindLimitParametersInReverseOrder() {
+        return false;
+    }
+
+    /**
+     * Whether the DB supports row value comparison, such as "(a, b) > (?, ?)"
+     *
+     * @return Supports or not
+     */
+    default boolean supportsRowValueComparison() {
+        return false;
+    }
+
+    /**
+     * Whether the driver returns the generated keys of all the rows after executeBatch,
+     * some drivers only return the key of the last row
+     *
+     * @return Supports or not
+     */
+    default boolean supportsBatchGeneratedKeys() {
+        return false;
+    }
+
+    /**
+     * Whether the generated keys should be requested by column names rather than Statement.RETURN_GENERATED_KEYS,
+     * for example, Oracle returns ROWID for RETURN_GENERATED_KEYS
+     *
+     * @return Request by column names or not
+     */
+    default boolean useGeneratedKeyColumnNames() {
+        return false;
+    }
+
+    /**
+     * Whether an explicit id can be inserted into the identity column, it is required by upsert on identity tables
+     *
+     * @return Supports or not
+     */
+    default boolean supportsIdentityInsert() {
+        return false;
+    }
+
+    /**
+     * Render the condition matching the column with any value of one array parameter, "column = ANY(?)"
+     * The parameter is bound by Connection.createArrayOf("bigint", values).
+     *
+     * @param column Column
+     * @return Condition, null if the database doesn't support array parameter
+     */
+    default String getArrayCondition(String column) {
+        return null;
+    }
+
+    /**
+     * Rewrite the single row INSERT into one statement inserting multiple rows,
+     * "INSERT INTO t (a,b) VALUES (?,?),(?,?)" by default.
+     * The parameters of the rows are in sequence.
+     *
+     * @param insertSql Single row INSERT, "INSERT INTO t (a,b) VALUES (?,?)"
+     * @param rows Number of rows
+     * @return Multi-row INSERT
+     */
+    default String getMultiRowInsert(String insertSql, int rows) {
+        int index = insertSql.lastIndexOf(" VALUES ");
+        String values = insertSql.substring(index + 8);
+        StringBuilder sb = new StringBuilder(index + 8 + (values.length() + 1) * rows);
+        sb.append(insertSql, 0, index + 8).append(values);
+        for(int i = 1; i < rows; i ++) {
+            sb.append(',').append(values);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Maximum number of parameters in one statement, it limits the rows of multi-row INSERT
+     *
+     * @return Maximum number of parameters
+     */
+    default int getMaxParameters() {
+        return 32767;
+    }
+
+    /**
+     * Maximum number of rows in one multi-row INSERT, no limit other than the parameters by default
+     *
+     * @return Maximum number of rows per insert
+     */
+    default int getMaxRowsPerInsert() {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Render one statement which inserts the row or updates it if the key exists,
+     * "MERGE INTO t USING SYSIBM.SYSDUMMY1 ON t.id = ? WHEN MATCHED THEN UPDATE SET a = ? WHEN NOT MATCHED THEN INSERT (id,a) VALUES (?,?)" by default.
+     *
+     * @param table Table name
+     * @param columns Columns, the first one is the key, there is at least one column to update
+     * @param parameters Indexes of the columns in the sequence of the parameters, it is filled by this method
+     * @return SQL, null if the database doesn't support
+     */
+    default String getUpsert(String table, String[] columns, List<Integer> parameters) {
+        StringBuilder sb = new StringBuilder(64 + 16 * columns.length);
+        sb.append("MERGE INTO ").append(table).append(" t USING SYSIBM.SYSDUMMY1 ON t.").append(columns[0])
+                .append(" = ? WHEN MATCHED THEN UPDATE SET ");
+        parameters.add(0);
+        for(int i = 1; i < columns.length; i ++) {
+            sb.append(i > 1 ? ", " : "").append(columns[i]).append(" = ?");
+            parameters.add(i);
+        }
+        sb.append(" WHEN NOT MATCHED THEN INSERT (").append(String.join(",", columns)).append(") VALUES (?");
+        parameters.add(0);
+        for(int i = 1; i < columns.length; i ++) {
+            sb.append(",?");
+            parameters.add(i);
+        }
+        return sb.append(')').toString();
+    }
+
+    /**
+     * Clause appended to the upsert of one row, so it returns one boolean column which is true if the row was created
+     *
+     * @return Clause, null if the database doesn't support
+     */
+    default String getUpsertCreatedClause() {
+        return null;
+    }
+
+    /**
+     * Save status of the upsert of one row by its update count.
+     * MERGE counts one row either way, so the created row can't be told from the updated one by default.
+     *
+     * @param updateCount Update count of the upsert
+     * @param affectedRows Whether the driver reports the affected rows instead of the found rows, e.g. "useAffectedRows=true" of MySQL
+     * @return 1: Created 0: Updated or unknown -1: Failed
+     */
+    default int getUpsertStatus(int updateCount, boolean affectedRows) {
+        return updateCount >= 1 ? 0 : -1;
+    }
+
+    /**
+     * Render the condition of keyset pagination,
+     * "(k1, k2) > (?, ?)" if the DB supports row value comparison, otherwise "(k1 > ? OR (k1 = ? AND k2 > ?))"
+     *
+     * @param columns Key columns
+     * @param ascending Ascending or descending
+     * @param values Key values of last row
+     * @param parameters Parameters in sequence of the placeholders are added to this list
+     * @return Condition
+     */
+    default String getKeysetCondition(String[] columns, boolean ascending, Object[] values, List<Object> parameters) {
+        String op = ascending ? " > " : " < ";
+        StringBuilder sb = new StringBuilder(32 * columns.length);
+        if (columns.length == 1) {
+            sb.append(columns[0]).append(op).append('?');
+            parameters.add(values[0]);
+        }
+        else if (supportsRowValueComparison()) {
+            sb.append('(').append(String.join(",", columns)).append(')').append(op).append("(?");
+            for(int i = 1; i < columns.length; i ++) {
+                sb.append(",?");
+            }
+            sb.append(')');
+            parameters.addAll(Arrays.asList(values));
+        }
+        else {
+            sb.append('(');
+            for(int i = 0; i < columns.length; i ++) {
+                if (i > 0) {
+                    sb.append(" OR ");
+                }
+                sb.append('(');
+                for(int j = 0; j < i; j ++) {
+                    sb.append(columns[j]).append(" = ? AND ");
+                    parameters.add(values[j]);
+                }
+                sb.append(columns[i]).append(op).append("?)");
+                parameters.add(values[i]);
+            }
+            sb.append(')');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Render the aggregate expression, such as "SUM(amount)"
+     *
+     * @param function Aggregate function
+     * @param column Column, null means "*"
+     * @return Expression
+     */
+    default String getAggregateExpression(Agg.Function function, String column) {
+        return function.name() + "(" + (column == null ? "*" : column) + ")";
+    }
+
+    /**
+     * Render the remainder expression, such as "MOD(id, 8)"
+     *
+     * @param column Column
+     * @param divisor Divisor
+     * @return Expression
+     */
+    default String getModExpression(String column, int divisor) {
+        return "MOD(" + column + ", " + divisor + ")";
+    }
+
+    /**
+     * Whether the cursor needs the auto commit turned off to fetch rows in batches,
+     * otherwise the driver loads the whole result set into memory.
+     *
+     * @return Needs transaction or not
+     */
+    default boolean isCursorInTransaction() {
+        return false;
+    }
+
+    /**
+     * Fetch size given to the driver for streaming rows
+     *
+     * @param fetchSize Expected fetch size
+     * @return Fetch size for the driver
+     */
+    default int getCursorFetchSize(int fetchSize) {
+        return fetchSize;
+    }
 
     /**
      * Whether the database supports Sequence
@@ -93,6 +371,27 @@ public interface RdbmsDialect extends NamedBean {
         throw new IllegalStateException("DB:" + getName() + " doesn't support sequence");
     }
 
+    /**
+     * Generate the select statement retrieving multiple next values of a sequence in one round trip,
+     * the number of values is the only parameter.
+     *
+     * @param name the name of the sequence
+     * @return SQL, null if the database can't select multiple values in one statement
+     */
+    default String getSequenceNextValues(String name) {
+        return null;
+    }
+
+    /**
+     * Select statement retrieving the increment of a sequence from the catalog,
+     * the sequence name without schema is the only parameter, it is compared case insensitively.
+     *
+     * @return SQL, null if the database can't tell
+     */
+    default String getSequenceIncrement() {
+        return "SELECT CAST(INCREMENT AS BIGINT) FROM INFORMATION_SCHEMA.SEQUENCES WHERE UPPER(SEQUENCE_NAME) = UPPER(?)";
+    }
+
     /**
      * Test Query
      *
@@ -0,0 +1,171 @@
+package org.femtoframework.orm.ext;
+
+import org.femtoframework.orm.LongObjectMap;
+import org.femtoframework.orm.Repository;
+import org.femtoframework.orm.RepositoryException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Repository which coalesces the concurrent getById calls (data loader)
+ *
+ * The first caller opens a batch and waits for a short window, the ids requested by other callers in the window
+ * are added to the batch, then one "id IN (...)" query loads the whole batch and completes every waiter.
+ * The batch is loaded immediately when it reaches the max batch size, by the caller who fills it.
+ * No extra thread is used, the query runs in the caller's thread.
+ *
+ * The entities are shared by the callers who request the same id in the same batch, they should be treated as read only.
+ *
+ * @param <E> Entity
+ */
+public class CoalescingRepository<E> extends DelegatingRepository<E> {
+
+    private long windowNanos;
+
+    private int maxBatchSize;
+
+    private final Object lock = new Object();
+
+    private Batch<E> current = null;
+
+    private AtomicLong requests = new AtomicLong();
+
+    private AtomicLong batches = new AtomicLong();
+
+    private static class Batch<E> {
+
+        private LongObjectMap<CompletableFuture<E>> futures = new LongObjectMap<>();
+
+        private boolean loading = false;
+    }
+
+    /**
+     * Coalescing in 1 millisecond window and up to 128 ids in one batch
+     *
+     * @param delegate Repository
+     */
+    public CoalescingRepository(Repository<E> delegate) {
+        this(delegate, 1000, 128);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param delegate Repository
+     * @param windowMicros Window to collect the ids in micro seconds
+     * @param maxBatchSize Maximum number of ids in one batch
+     */
+    public CoalescingRepository(Repository<E> delegate, long windowMicros, int maxBatchSize) {
+        super(delegate);
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Invalid maxBatchSize:" + maxBatchSize);
+        }
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Retrieve entity by id, it is loaded with other concurrent calls in one query
+     *
+     * @param id Entity Id
+     * @return Entity, null if there is no such entity
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    @Override
+    public E getById(long id) throws RepositoryException {
+        requests.incrementAndGet();
+        Batch<E> batch;
+        CompletableFuture<E> future;
+        boolean leader = false;
+        boolean full = false;
+        synchronized (lock) {
+            batch = current;
+            if (batch == null) {
+                batch = new Batch<>();
+                current = batch;
+                leader = true;
+            }
+            future = batch.futures.get(id);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                batch.futures.put(id, future);
+            }
+            if (batch.futures.size() >= maxBatchSize) {
+                current = null;
+                batch.loading = true;
+                full = true;
+            }
+        }
+        if (full) {
+            load(batch);
+        }
+        else if (leader) {
+            long deadline = System.nanoTime() + windowNanos;
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > 0 && !future.isDone()) {
+                LockSupport.parkNanos(remaining);
+            }
+            boolean load = false;
+            synchronized (lock) {
+                if (!batch.loading) {
+                    if (current == batch) {
+                        current = null;
+                    }
+                    batch.loading = true;
+                    load = true;
+                }
+            }
+            if (load) {
+                load(batch);
+            }
+        }
+        try {
+            return future.get();
+        }
+        catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new RepositoryException("Interrupted while loading entity:" + id, ie);
+        }
+        catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof RepositoryException) {
+                throw (RepositoryException) cause;
+            }
+            throw new RepositoryException("Loading entity:" + id + " error", cause);
+        }
+    }
+
+    private void load(Batch<E> batch) {
+        batches.incrementAndGet();
+        LongObjectMap<CompletableFuture<E>> futures = batch.futures;
+        try {
+            LongObjectMap<E> entities = getDelegate().getByIds(futures.keys());
+            futures.forEach((id, future) -> future.complete(entities.get(id)));
+        }
+        catch (Throwable t) {
+            futures.forEach((id, future) -> future.completeExceptionally(t));
+        }
+    }
+
+    /**
+     * Number of getById calls
+     *
+     * @return Number of getById calls
+     */
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    /**
+     * Number of queries issued to the delegate repository
+     *
+     * @return Number of batches
+     */
+    public long getBatchCount() {
+        return batches.get();
+    }
+}
@@ -0,0 +1,156 @@
+package org.femtoframework.orm.ext;
+
+import org.femtoframework.orm.RepositoryUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Cursor over an open ResultSet
+ *
+ * It holds the connection, statement and ResultSet until all rows are read or it is closed,
+ * rows are hydrated lazily one by one.
+ *
+ * @param <E> Entity
+ */
+public class Cursor<E> implements Iterator<E>, AutoCloseable {
+
+    private static Logger logger = LoggerFactory.getLogger(Cursor.class);
+
+    /**
+     * Read current row as entity
+     *
+     * @param <E> Entity
+     */
+    public interface RowReader<E> {
+
+        E read(ResultSet rs) throws Exception;
+    }
+
+    private Connection conn;
+    private PreparedStatement pstmt;
+    private ResultSet rs;
+    private RowReader<E> reader;
+    private boolean inTransaction;
+    private boolean autoCommit;
+
+    private boolean fetched = false;
+    private boolean hasRow = false;
+    private boolean closed = false;
+
+    /**
+     * Constructor
+     *
+     * @param conn Connection, it will be closed with the cursor
+     * @param inTransaction Whether the auto commit was turned off for this cursor
+     * @param autoCommit Original auto commit, it will be restored when it is closed
+     * @param pstmt Statement
+     * @param rs ResultSet
+     * @param reader Row reader
+     */
+    public Cursor(Connection conn, boolean inTransaction, boolean autoCommit,
+                  PreparedStatement pstmt, ResultSet rs, RowReader<E> reader) {
+        this.conn = conn;
+        this.inTransaction = inTransaction;
+        this.autoCommit = autoCommit;
+        this.pstmt = pstmt;
+        this.rs = rs;
+        this.reader = reader;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        if (!fetched) {
+            try {
+                hasRow = rs.next();
+            }
+            catch(SQLException sqle) {
+                close();
+                throw new IllegalStateException("Fetching next row error", sqle);
+            }
+            fetched = true;
+            if (!hasRow) {
+                close();
+            }
+        }
+        return hasRow;
+    }
+
+    @Override
+    public E next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more rows");
+        }
+        fetched = false;
+        try {
+            return reader.read(rs);
+        }
+        catch(Exception e) {
+            close();
+            throw new IllegalStateException("Reading row error", e);
+        }
+    }
+
+    /**
+     * Sequential stream over this cursor, closing the stream closes the cursor
+     *
+     * @return Stream
+     */
+    public Stream<E> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this,
+                Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(this::close);
+    }
+
+    /**
+     * Whether it has been closed
+     *
+     * @return Closed or not
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            rs.close();
+        }
+        catch(SQLException sqle) {
+            logger.warn("Closing ResultSet error", sqle);
+        }
+        try {
+            pstmt.close();
+        }
+        catch(SQLException sqle) {
+            logger.warn("Closing statement error", sqle);
+        }
+        if (inTransaction) {
+            //Read only, nothing to commit
+            RepositoryUtil.rollback(conn);
+            RepositoryUtil.setAutoCommit(conn, autoCommit);
+        }
+        try {
+            conn.close();
+        }
+        catch(SQLException sqle) {
+            logger.warn("Closing connection error", sqle);
+        }
+    }
+}
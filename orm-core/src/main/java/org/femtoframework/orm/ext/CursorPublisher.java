@@ -0,0 +1,268 @@
+package org.femtoframework.orm.ext;
+
+import org.femtoframework.orm.OrderBy;
+import org.femtoframework.orm.Repository;
+import org.femtoframework.orm.RepositoryException;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Publisher over a Cursor
+ *
+ * Every subscriber gets its own cursor, the cursor is opened when the subscriber requests rows at the first time.
+ * The rows are pulled from the ResultSet only as the subscriber requests them,
+ * the cursor and its connection are released on completion, error or cancel.
+ *
+ * The rows are emitted by the given executor, or the thread calling Subscription.request if there is no executor.
+ *
+ * The Publisher is org.reactivestreams.Publisher, it is an optional dependency the caller must provide,
+ * so it is not a part of Repository, the entities of a repository are published by
+ * {@link #of(Repository, String, Object...)}. On Java 9+ it converts to java.util.concurrent.Flow.Publisher
+ * by FlowAdapters.toFlowPublisher.
+ *
+ * @param <E> Entity
+ */
+public class CursorPublisher<E> implements Publisher<E> {
+
+    private static Logger logger = LoggerFactory.getLogger(CursorPublisher.class);
+
+    /**
+     * Open a new cursor
+     *
+     * @param <E> Entity
+     */
+    public interface CursorOpener<E> {
+
+        Cursor<E> open() throws RepositoryException;
+    }
+
+    /**
+     * Open the rows as a stream, closing the stream releases them
+     *
+     * @param <E> Entity
+     */
+    interface StreamOpener<E> {
+
+        Stream<E> open() throws RepositoryException;
+    }
+
+    private StreamOpener<E> opener;
+
+    private Executor executor;
+
+    public CursorPublisher(CursorOpener<E> opener, Executor executor) {
+        this(executor, () -> opener.open().stream());
+    }
+
+    private CursorPublisher(Executor executor, StreamOpener<E> opener) {
+        this.opener = opener;
+        this.executor = executor;
+    }
+
+    /**
+     * Create the publisher, the callers declare the Publisher type only,
+     * so they can be loaded without reactive-streams if they don't publish
+     *
+     * @param opener Cursor opener
+     * @param executor Executor to emit the rows, null means the thread calling Subscription.request
+     * @param <E> Entity
+     * @return Publisher
+     */
+    public static <E> Publisher<E> of(CursorOpener<E> opener, Executor executor) {
+        return new CursorPublisher<>(opener, executor);
+    }
+
+    /**
+     * Publish entities of the repository by given conditions, every subscriber runs the query with its own connection
+     *
+     * @param repository Repository
+     * @param query Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax, if it is null and there is no parameter, that means all
+     * @param parameters Parameters in sequences
+     * @param <E> Entity
+     * @return Publisher, the connection is held from the first request until completion, error or cancel
+     */
+    public static <E> Publisher<E> of(Repository<E> repository, String query, Object... parameters) {
+        return of(repository, null, 0, Repository.LIST_ALL_COLUMNS, null, query, parameters);
+    }
+
+    /**
+     * Publish entities of the repository by given conditions, every subscriber runs the query with its own connection.
+     * The rows are pulled from the stream of the repository, so they are pulled from the ResultSet
+     * only as the subscriber requests them if the repository streams lazily, as JdbcRepository does.
+     *
+     * @param repository Repository
+     * @param executor Executor to run the query and emit rows, null means the thread calling Subscription.request
+     * @param fetchSize Number of rows fetched in one round trip, 0 means the default fetch size of the repository
+     * @param columns Specify the columns to list, if first column is "*", means select all columns
+     * @param orderBy OrderBy specific column
+     * @param query Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax, if it is null and there is no parameter, that means all
+     * @param parameters Parameters in sequences
+     * @param <E> Entity
+     * @return Publisher, the connection is held from the first request until completion, error or cancel
+     */
+    public static <E> Publisher<E> of(Repository<E> repository, Executor executor, int fetchSize, String[] columns,
+                                      OrderBy orderBy, String query, Object... parameters) {
+        return new CursorPublisher<>(executor, () -> repository.stream(fetchSize, columns, orderBy, query, parameters));
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super E> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Subscriber is null");
+        }
+        CursorSubscription subscription = new CursorSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    private class CursorSubscription implements Subscription, Runnable {
+
+        private Subscriber<? super E> subscriber;
+
+        private Stream<E> rows;
+
+        private Iterator<E> cursor;
+
+        private AtomicLong requested = new AtomicLong(0);
+
+        //Work in progress, only one thread drains at the same time
+        private AtomicInteger wip = new AtomicInteger(0);
+
+        private volatile boolean cancelled = false;
+
+        private volatile Throwable invalidRequest;
+
+        private boolean done = false;
+
+        CursorSubscription(Subscriber<? super E> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Non-positive request:" + n);
+            }
+            else {
+                long current;
+                long next;
+                do {
+                    current = requested.get();
+                    if (current == Long.MAX_VALUE) {
+                        break;
+                    }
+                    next = current + n;
+                    if (next < 0) {
+                        next = Long.MAX_VALUE;
+                    }
+                }
+                while (!requested.compareAndSet(current, next));
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                if (executor != null) {
+                    executor.execute(this);
+                }
+                else {
+                    run();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                drain();
+                missed = wip.addAndGet(-missed);
+            }
+            while (missed != 0);
+        }
+
+        private void drain() {
+            if (done) {
+                return;
+            }
+            if (cancelled) {
+                terminate();
+                return;
+            }
+            if (invalidRequest != null) {
+                terminate();
+                subscriber.onError(invalidRequest);
+                return;
+            }
+            long demand = requested.get();
+            if (demand == 0) {
+                return;
+            }
+            try {
+                if (cursor == null) {
+                    rows = opener.open();
+                    cursor = rows.iterator();
+                }
+                long emitted = 0;
+                while (emitted != demand) {
+                    if (cancelled) {
+                        terminate();
+                        return;
+                    }
+                    if (!cursor.hasNext()) {
+                        terminate();
+                        subscriber.onComplete();
+                        return;
+                    }
+                    subscriber.onNext(cursor.next());
+                    emitted ++;
+                }
+                //Complete eagerly, so the connection is released without waiting for next request
+                if (!cursor.hasNext()) {
+                    terminate();
+                    subscriber.onComplete();
+                    return;
+                }
+                if (demand != Long.MAX_VALUE) {
+                    requested.addAndGet(-emitted);
+                }
+            }
+            catch (RepositoryException re) {
+                terminate();
+                subscriber.onError(re);
+            }
+            catch (IllegalStateException ise) {
+                terminate();
+                Throwable cause = ise.getCause() != null ? ise.getCause() : ise;
+                subscriber.onError(new RepositoryException("Reading rows error", cause));
+            }
+            catch (RuntimeException re) {
+                //The subscriber violates the rule by throwing exception, the subscription is cancelled
+                logger.warn("Subscriber error, the subscription is cancelled", re);
+                terminate();
+            }
+        }
+
+        private void terminate() {
+            done = true;
+            if (rows != null) {
+                rows.close();
+            }
+        }
+    }
+}
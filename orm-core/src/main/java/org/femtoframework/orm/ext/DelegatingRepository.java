@@ -0,0 +1,182 @@
+package org.femtoframework.orm.ext;
+
+import org.femtoframework.orm.Agg;
+import org.femtoframework.orm.AggregateRows;
+import org.femtoframework.orm.Keyset;
+import org.femtoframework.orm.Limit;
+import org.femtoframework.orm.LongObjectMap;
+import org.femtoframework.orm.OrderBy;
+import org.femtoframework.orm.Page;
+import org.femtoframework.orm.Repository;
+import org.femtoframework.orm.RepositoryException;
+import org.femtoframework.orm.ScanPartition;
+import org.femtoframework.parameters.Parameters;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Repository which delegates all calls to another repository,
+ * it is the base of the repositories which add behaviors on particular calls
+ *
+ * @param <E> Entity
+ */
+public class DelegatingRepository<E> implements Repository<E> {
+
+    private Repository<E> delegate;
+
+    public DelegatingRepository(Repository<E> delegate) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("No delegate repository");
+        }
+        this.delegate = delegate;
+    }
+
+    public Repository<E> getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public List<E> listBy(String[] columns, Limit limit, OrderBy orderBy, String query, Object... parameters)
+            throws RepositoryException {
+        return delegate.listBy(columns, limit, orderBy, query, parameters);
+    }
+
+    @Override
+    public Page<E> listPage(String[] columns, Keyset keyset, String query, Object... parameters)
+            throws RepositoryException {
+        return delegate.listPage(columns, keyset, query, parameters);
+    }
+
+    @Override
+    public Stream<E> stream(int fetchSize, String[] columns, OrderBy orderBy, String query, Object... parameters)
+            throws RepositoryException {
+        return delegate.stream(fetchSize, columns, orderBy, query, parameters);
+    }
+
+    @Override
+    public void forEach(Consumer<? super E> consumer, int fetchSize, String[] columns, OrderBy orderBy,
+                        String query, Object... parameters) throws RepositoryException {
+        delegate.forEach(consumer, fetchSize, columns, orderBy, query, parameters);
+    }
+
+    @Override
+    public void parallelForEach(Consumer<? super E> consumer, int parallelism, ScanPartition partition,
+                                String[] columns, String query, Object... parameters) throws RepositoryException {
+        delegate.parallelForEach(consumer, parallelism, partition, columns, query, parameters);
+    }
+
+    @Override
+    public Stream<E> parallelStream(int parallelism, ScanPartition partition, String[] columns,
+                                    String query, Object... parameters) throws RepositoryException {
+        return delegate.parallelStream(parallelism, partition, columns, query, parameters);
+    }
+
+    @Override
+    public E getById(long id) throws RepositoryException {
+        return delegate.getById(id);
+    }
+
+    @Override
+    public LongObjectMap<E> getByIds(String[] columns, long... ids) throws RepositoryException {
+        return delegate.getByIds(columns, ids);
+    }
+
+    @Override
+    public <C> E getBy(String query, Object... parameters) throws RepositoryException {
+        return delegate.getBy(query, parameters);
+    }
+
+    @Override
+    public long countBy(String query, Object... parameters) throws RepositoryException {
+        return delegate.countBy(query, parameters);
+    }
+
+    @Override
+    public boolean existsBy(String query, Object... parameters) throws RepositoryException {
+        return delegate.existsBy(query, parameters);
+    }
+
+    @Override
+    public <T> List<T> listColumn(String column, Class<T> type, String query, Object... parameters)
+            throws RepositoryException {
+        return delegate.listColumn(column, type, query, parameters);
+    }
+
+    @Override
+    public long[] listLongColumn(String column, String query, Object... parameters) throws RepositoryException {
+        return delegate.listLongColumn(column, query, parameters);
+    }
+
+    @Override
+    public int[] listIntColumn(String column, String query, Object... parameters) throws RepositoryException {
+        return delegate.listIntColumn(column, query, parameters);
+    }
+
+    @Override
+    public double[] listDoubleColumn(String column, String query, Object... parameters) throws RepositoryException {
+        return delegate.listDoubleColumn(column, query, parameters);
+    }
+
+    @Override
+    public double[] aggregate(Agg[] aggs, String query, Object... parameters) throws RepositoryException {
+        return delegate.aggregate(aggs, query, parameters);
+    }
+
+    @Override
+    public AggregateRows aggregate(Agg[] aggs, String[] groupBy, String query, Object... parameters)
+            throws RepositoryException {
+        return delegate.aggregate(aggs, groupBy, query, parameters);
+    }
+
+    @Override
+    public boolean create(E entity, Parameters options) throws RepositoryException {
+        return delegate.create(entity, options);
+    }
+
+    @Override
+    public boolean[] create(List<E> entities, Parameters options) throws RepositoryException {
+        return delegate.create(entities, options);
+    }
+
+    @Override
+    public boolean update(E entity, Parameters options) throws RepositoryException {
+        return delegate.update(entity, options);
+    }
+
+    @Override
+    public boolean[] update(List<E> entities, Parameters options) throws RepositoryException {
+        return delegate.update(entities, options);
+    }
+
+    @Override
+    public int save(E entity, Parameters options) throws RepositoryException {
+        return delegate.save(entity, options);
+    }
+
+    @Override
+    public boolean[] save(List<E> entities, Parameters options) throws RepositoryException {
+        return delegate.save(entities, options);
+    }
+
+    @Override
+    public boolean[] deleteByIds(long... ids) throws RepositoryException {
+        return delegate.deleteByIds(ids);
+    }
+
+    @Override
+    public boolean[] deleteByIds(Parameters options, long... ids) throws RepositoryException {
+        return delegate.deleteByIds(options, ids);
+    }
+
+    @Override
+    public <C> boolean deleteBy(String query, Object... parameters) throws RepositoryException {
+        return delegate.deleteBy(query, parameters);
+    }
+}
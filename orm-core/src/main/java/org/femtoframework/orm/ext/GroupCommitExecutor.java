@@ -0,0 +1,300 @@
+package org.femtoframework.orm.ext;
+
+import org.femtoframework.orm.RepositoryException;
+import org.femtoframework.orm.RepositoryUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Group commit of the concurrent synchronous writes on one data source
+ *
+ * The first caller opens a group and waits for a short window, the writes of other callers in the window
+ * join the group, then the first caller runs all the writes on one connection in one transaction and commits once.
+ * Every caller is blocked until the transaction is committed, so the write is durable when execute returns.
+ * The group is executed immediately when it reaches the max group size, by the caller who fills it.
+ * No extra thread is used.
+ *
+ * While the writes are running, the JdbcRepositories on the data source get the connection of the group,
+ * its commit, rollback, setAutoCommit and close are ignored. Every write runs under a savepoint,
+ * the failed write is rolled back to its savepoint and fails alone, the others are still committed.
+ * The writes should not open cursors or streams which outlive them.
+ */
+public class GroupCommitExecutor {
+
+    private static Logger logger = LoggerFactory.getLogger(GroupCommitExecutor.class);
+
+    private static final ThreadLocal<Group> BOUND = new ThreadLocal<>();
+
+    private final DataSource dataSource;
+
+    private long windowNanos;
+
+    private int maxGroupSize;
+
+    private final Object lock = new Object();
+
+    private Group current = null;
+
+    private AtomicLong writes = new AtomicLong();
+
+    private AtomicLong commits = new AtomicLong();
+
+    /**
+     * Write in the group
+     *
+     * @param <R> Result
+     */
+    public interface Write<R> {
+
+        R execute() throws RepositoryException;
+    }
+
+    private static class Pending {
+
+        private final Write<?> write;
+
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+
+        Pending(Write<?> write) {
+            this.write = write;
+        }
+    }
+
+    private class Group {
+
+        private List<Pending> writes = new ArrayList<>();
+
+        private boolean executing = false;
+
+        private Connection connection;
+
+        DataSource getDataSource() {
+            return dataSource;
+        }
+    }
+
+    /**
+     * Group the writes in 1 millisecond window and up to 64 writes in one transaction
+     *
+     * @param dataSource DataSource
+     */
+    public GroupCommitExecutor(DataSource dataSource) {
+        this(dataSource, 1000, 64);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param dataSource DataSource
+     * @param windowMicros Window to collect the writes in micro seconds
+     * @param maxGroupSize Maximum number of writes in one transaction
+     */
+    public GroupCommitExecutor(DataSource dataSource, long windowMicros, int maxGroupSize) {
+        if (maxGroupSize <= 0) {
+            throw new IllegalArgumentException("Invalid maxGroupSize:" + maxGroupSize);
+        }
+        this.dataSource = dataSource;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxGroupSize = maxGroupSize;
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * Execute the write in the group transaction, it returns after the transaction is committed
+     *
+     * @param write Write
+     * @param <R> Result
+     * @return Result of the write
+     * @throws RepositoryException the write or the commit failed
+     */
+    @SuppressWarnings("unchecked")
+    public <R> R execute(Write<R> write) throws RepositoryException {
+        Group bound = BOUND.get();
+        if (bound != null && bound.getDataSource() == dataSource) {
+            //Nested write of a write in the group
+            return write.execute();
+        }
+        writes.incrementAndGet();
+        Pending pending = new Pending(write);
+        Group group;
+        boolean leader = false;
+        boolean full = false;
+        synchronized (lock) {
+            group = current;
+            if (group == null) {
+                group = new Group();
+                current = group;
+                leader = true;
+            }
+            group.writes.add(pending);
+            if (group.writes.size() >= maxGroupSize) {
+                current = null;
+                group.executing = true;
+                full = true;
+            }
+        }
+        if (full) {
+            execute(group);
+        }
+        else if (leader) {
+            long deadline = System.nanoTime() + windowNanos;
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > 0 && !pending.future.isDone()) {
+                LockSupport.parkNanos(remaining);
+            }
+            boolean execute = false;
+            synchronized (lock) {
+                if (!group.executing) {
+                    if (current == group) {
+                        current = null;
+                    }
+                    group.executing = true;
+                    execute = true;
+                }
+            }
+            if (execute) {
+                execute(group);
+            }
+        }
+        try {
+            return (R) pending.future.get();
+        }
+        catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new RepositoryException("Interrupted while waiting for the group commit", ie);
+        }
+        catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof RepositoryException) {
+                throw (RepositoryException) cause;
+            }
+            throw new RepositoryException("Group commit error", cause);
+        }
+    }
+
+    private void execute(Group group) {
+        commits.incrementAndGet();
+        List<Pending> pendings = group.writes;
+        Object[] results = new Object[pendings.size()];
+        Throwable[] errors = new Throwable[pendings.size()];
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = RepositoryUtil.setAutoCommit(conn, false);
+            group.connection = conn;
+            BOUND.set(group);
+            try {
+                for(int i = 0; i < pendings.size(); i ++) {
+                    Savepoint savepoint = conn.setSavepoint();
+                    try {
+                        results[i] = pendings.get(i).write.execute();
+                        conn.releaseSavepoint(savepoint);
+                    }
+                    catch (Throwable t) {
+                        errors[i] = t;
+                        conn.rollback(savepoint);
+                    }
+                }
+                conn.commit();
+            }
+            catch (SQLException sqle) {
+                RepositoryUtil.rollback(conn);
+                throw sqle;
+            }
+            finally {
+                BOUND.remove();
+                group.connection = null;
+                RepositoryUtil.setAutoCommit(conn, autoCommit);
+            }
+        }
+        catch (Throwable t) {
+            logger.error("Committing " + pendings.size() + " writes error", t);
+            RepositoryException re = new RepositoryException("Group commit error", t);
+            for(Pending pending : pendings) {
+                pending.future.completeExceptionally(re);
+            }
+            return;
+        }
+        for(int i = 0; i < pendings.size(); i ++) {
+            if (errors[i] != null) {
+                pendings.get(i).future.completeExceptionally(errors[i]);
+            }
+            else {
+                pendings.get(i).future.complete(results[i]);
+            }
+        }
+    }
+
+    /**
+     * Connection of the group which is executing in the current thread on the data source
+     *
+     * @param dataSource DataSource
+     * @return Connection which ignores commit, rollback, setAutoCommit and close, null if there is no such group
+     */
+    static Connection getConnection(DataSource dataSource) {
+        Group group = BOUND.get();
+        if (group == null || group.getDataSource() != dataSource || group.connection == null) {
+            return null;
+        }
+        Connection conn = group.connection;
+        return (Connection) Proxy.newProxyInstance(GroupCommitExecutor.class.getClassLoader(),
+                new Class[] {Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                        case "commit":
+                        case "setAutoCommit":
+                            return null;
+                        case "rollback":
+                            if (args == null || args.length == 0) {
+                                return null;
+                            }
+                            break;
+                        case "getAutoCommit":
+                            return false;
+                        case "isClosed":
+                            return conn.isClosed();
+                        default:
+                            break;
+                    }
+                    try {
+                        return method.invoke(conn, args);
+                    }
+                    catch (InvocationTargetException ite) {
+                        throw ite.getCause();
+                    }
+                });
+    }
+
+    /**
+     * Number of writes executed
+     *
+     * @return Number of writes
+     */
+    public long getWriteCount() {
+        return writes.get();
+    }
+
+    /**
+     * Number of transactions committed
+     *
+     * @return Number of commits
+     */
+    public long getCommitCount() {
+        return commits.get();
+    }
+}
@@ -0,0 +1,78 @@
+package org.femtoframework.orm.ext;
+
+import org.femtoframework.orm.Repository;
+import org.femtoframework.orm.RepositoryException;
+import org.femtoframework.parameters.Parameters;
+
+import java.util.List;
+
+/**
+ * Repository which commits the concurrent writes in groups by GroupCommitExecutor
+ *
+ * Every write returns after the transaction of its group is committed.
+ * The delegate must be a JdbcRepository (or delegate to one) on the data source of the executor,
+ * the reads are not grouped.
+ *
+ * @param <E> Entity
+ */
+public class GroupCommitRepository<E> extends DelegatingRepository<E> {
+
+    private final GroupCommitExecutor executor;
+
+    public GroupCommitRepository(Repository<E> delegate, GroupCommitExecutor executor) {
+        super(delegate);
+        if (executor == null) {
+            throw new IllegalArgumentException("No group commit executor");
+        }
+        this.executor = executor;
+    }
+
+    public GroupCommitExecutor getExecutor() {
+        return executor;
+    }
+
+    @Override
+    public boolean create(E entity, Parameters options) throws RepositoryException {
+        return executor.execute(() -> getDelegate().create(entity, options));
+    }
+
+    @Override
+    public boolean[] create(List<E> entities, Parameters options) throws RepositoryException {
+        return executor.execute(() -> getDelegate().create(entities, options));
+    }
+
+    @Override
+    public boolean update(E entity, Parameters options) throws RepositoryException {
+        return executor.execute(() -> getDelegate().update(entity, options));
+    }
+
+    @Override
+    public boolean[] update(List<E> entities, Parameters options) throws RepositoryException {
+        return executor.execute(() -> getDelegate().update(entities, options));
+    }
+
+    @Override
+    public int save(E entity, Parameters options) throws RepositoryException {
+        return executor.execute(() -> getDelegate().save(entity, options));
+    }
+
+    @Override
+    public boolean[] save(List<E> entities, Parameters options) throws RepositoryException {
+        return executor.execute(() -> getDelegate().save(entities, options));
+    }
+
+    @Override
+    public boolean[] deleteByIds(long... ids) throws RepositoryException {
+        return executor.execute(() -> getDelegate().deleteByIds(ids));
+    }
+
+    @Override
+    public boolean[] deleteByIds(Parameters options, long... ids) throws RepositoryException {
+        return executor.execute(() -> getDelegate().deleteByIds(options, ids));
+    }
+
+    @Override
+    public <C> boolean deleteBy(String query, Object... parameters) throws RepositoryException {
+        return executor.execute(() -> getDelegate().deleteBy(query, parameters));
+    }
+}
@@ -0,0 +1,138 @@
+package org.femtoframework.orm.ext;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limit of the repository calls in flight on one DataSource
+ *
+ * The calls are queued and dispatched to the executor, at most "maxInFlight" calls are running at the same time,
+ * so the calls don't wait for connections in the pool. At most "maxPending" calls wait in the queue,
+ * the calls over it are rejected, so the overloaded callers get backpressure instead of an unbounded queue.
+ *
+ * All the AsyncRepositories on the same DataSource should share one limiter, the pool is shared by them.
+ */
+public class InFlightLimiter {
+
+    private static Logger logger = LoggerFactory.getLogger(InFlightLimiter.class);
+
+    /**
+     * Default maximum number of pending calls
+     */
+    public static final int DEFAULT_MAX_PENDING = 1024;
+
+    private final Executor executor;
+
+    private final int maxInFlight;
+
+    private final int maxPending;
+
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+
+    private final AtomicInteger pendingCount = new AtomicInteger(0);
+
+    private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+
+    public InFlightLimiter(Executor executor, int maxInFlight) {
+        this(executor, maxInFlight, DEFAULT_MAX_PENDING);
+    }
+
+    public InFlightLimiter(Executor executor, int maxInFlight, int maxPending) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("Invalid maxInFlight:" + maxInFlight);
+        }
+        if (maxPending <= 0) {
+            throw new IllegalArgumentException("Invalid maxPending:" + maxPending);
+        }
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Queue the task, it is dispatched to the executor when there is free slot.
+     * The task must call {@link #release()} when it is done.
+     *
+     * @param task Task
+     * @throws RejectedExecutionException if there are "maxPending" calls in queue already
+     */
+    public void submit(Runnable task) {
+        if (pendingCount.incrementAndGet() > maxPending) {
+            pendingCount.decrementAndGet();
+            throw new RejectedExecutionException("Too many pending repository calls, maxPending:" + maxPending);
+        }
+        pending.add(task);
+        dispatch();
+    }
+
+    /**
+     * Release the slot of a task which is done, and dispatch the next pending one
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+        dispatch();
+    }
+
+    /**
+     * Dispatch the pending calls while there is free slot
+     */
+    private void dispatch() {
+        while (!pending.isEmpty()) {
+            int current = inFlight.get();
+            if (current >= maxInFlight) {
+                //The running call dispatches the pending one when it is done
+                return;
+            }
+            if (!inFlight.compareAndSet(current, current + 1)) {
+                continue;
+            }
+            Runnable task = pending.poll();
+            if (task == null) {
+                inFlight.decrementAndGet();
+                continue;
+            }
+            pendingCount.decrementAndGet();
+            try {
+                //The task releases the slot when it is done
+                executor.execute(task);
+            }
+            catch (RuntimeException re) {
+                inFlight.decrementAndGet();
+                logger.error("Dispatching repository call error", re);
+                throw re;
+            }
+        }
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public int getMaxPending() {
+        return maxPending;
+    }
+
+    /**
+     * Number of calls which are running
+     *
+     * @return Number of calls in flight
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Number of calls which are waiting in queue
+     *
+     * @return Number of pending calls
+     */
+    public int getPending() {
+        return pendingCount.get();
+    }
+}
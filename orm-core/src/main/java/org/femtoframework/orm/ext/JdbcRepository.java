@@ -5,27 +5,59 @@ import org.femtoframework.bean.annotation.Ignore;
 import org.femtoframework.bean.info.BeanInfo;
 import org.femtoframework.bean.info.BeanInfoUtil;
 import org.femtoframework.bean.info.PropertyInfo;
+import org.femtoframework.io.IOUtil;
 import org.femtoframework.lang.reflect.Reflection;
 import org.femtoframework.orm.*;
 import org.femtoframework.orm.dialect.RdbmsDialect;
 import org.femtoframework.parameters.Parameters;
 import org.femtoframework.text.NamingConvention;
+import org.femtoframework.util.CollectionUtil;
+import org.femtoframework.util.DataUtil;
 import org.femtoframework.util.StringUtil;
+import org.femtoframework.util.convert.ConverterUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.sql.DataSource;
+import java.lang.invoke.MethodType;
 import java.sql.*;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class JdbcRepository<E> implements Repository<E>, InitializableMBean {
 
     private static Logger logger = LoggerFactory.getLogger(JdbcRepository.class);
 
+    private static final String[] COUNT_COLUMNS = { "COUNT(*)" };
+
+    private static final String[] EXISTS_COLUMNS = { "1" };
+
+    private static final String[] ID_COLUMNS = { "id" };
+
+    /**
+     * Sizes of IN-list, so the number of distinct SQL shapes and statement cache entries is bounded
+     */
+    protected static final int[] IN_LIST_BUCKETS = { 1, 8, 32, 128, 512 };
+
+    private static final int INITIAL_COLUMN_CAPACITY = 64;
+
+    /**
+     * Maximum number of statements cached by their columns, the statements beyond it are generated every time
+     */
+    protected static final int MAX_CACHED_STATEMENTS = 256;
+
     private DataSource dataSource;
 
     private String entityType;
@@ -35,11 +67,19 @@ public class JdbcRepository<E> implements Repository<E>, InitializableMBean {
 
     private BeanInfo beanInfo;
 
-    private PropertyInfo idPropertyInfo = null;
+    private PropertyAccessor idAccessor = null;
+
+    private PropertyAccessor[] insertAccessors;
+
+    private PropertyAccessor[] updateAccessors;
 
     private String tableName;
 
     protected Connection getConnection() throws RepositoryException {
+        Connection group = GroupCommitExecutor.getConnection(dataSource);
+        if (group != null) {
+            return group;
+        }
         try {
             return dataSource.getConnection();
         }
@@ -61,69 +101,50 @@ public class JdbcRepository<E> implements Repository<E>, InitializableMBean {
      */
     @Override
     public List<E> listBy(String[] columns, Limit limit, OrderBy orderBy, String query, Object... parameters) throws RepositoryException {
-        StringBuilder sb = new StringBuilder(128);
-        sb.append("SELECT ");
-        if (columns == null || columns.length == 0) {
-            sb.append(LIST_ALL_COLUMNS[0]);
-        }
-        else {
-            if (columns.length == 1 && "*".equals(columns[0])) {
-                sb.append(LIST_ALL_COLUMNS[0]);
-            }
-            else {
-                boolean first = true;
-                for(String column: columns) {
-                    if (first) {
-                        first = false;
-                        sb.append(column);
-                    }
-                    else {
-                        sb.append(',').append(column);
-                    }
-                }
-            }
-        }
-        sb.append(" FROM ").append(tableName);
-
-        if (StringUtil.isInvalid(query)) {
-            if (!(parameters == null || parameters.length == 0)) {
-                throw new IllegalArgumentException("There is parameter, but not query condition");
-            }
-        }
-        else {
-            sb.append(" WHERE ").append(query);
-        }
+        String[] projection = toProjection(columns);
+        StringBuilder sb = toSelectSQL(projection, query, parameters);
+        int length = sb.length();
+        appendOrderBy(sb, orderBy);
+        boolean ordered = sb.length() > length;
 
         int off = limit == null ? 0 : limit.getOffset();
-        int lmt = limit == null || dialect.useMaxForLimit() ? -1 : limit.getLimit();
+        int lmt = limit == null ? Integer.MAX_VALUE : limit.getLimit();
+        boolean limited = off > 0 || lmt != Integer.MAX_VALUE;
+        boolean useLimit = limited && dialect.supportsLimit();
         String newSql = sb.toString();
-        if (dialect.supportsLimit()) {
-            newSql = dialect.getLimitString(newSql, off, lmt);
+        if (useLimit) {
+            newSql = dialect.getLimitString(newSql, off, lmt, ordered);
         }
 
         try (Connection conn = getConnection()) {
             ResultSet rs = null;
             try (PreparedStatement pstmt = conn.prepareStatement(newSql)) {
-                if (parameters != null && parameters.length > 0) {
-                    for(int i = 0; i < parameters.length; i ++) {
-                        pstmt.setObject(i+1, convert(parameters[i]));
-                    }
-                }
-
-                if (off > 0) {
-                    pstmt.setInt(parameters.length+1, off); //offset
+                int index = setParameters(pstmt, parameters);
+                int skip = 0;
+                if (useLimit) {
+                    bindLimit(pstmt, index, off, lmt);
                 }
-                if (lmt > 0) {
-                    pstmt.setInt(parameters.length+1, lmt);
+                else if (limited) {
+                    //Skip the offset in client side
+                    skip = off;
+                    if (lmt < Integer.MAX_VALUE - off) {
+                        pstmt.setMaxRows(off + lmt);
+                    }
                 }
 
-                int end = lmt > 0 ? lmt : limit != null ? limit.getLimit() : Integer.MAX_VALUE; //end
                 rs = pstmt.executeQuery();
+                while (skip > 0 && rs.next()) {
+                    skip --;
+                }
 
-                List<E> list = new ArrayList<E>(lmt > 0 ? lmt : 10);
+                List<E> list = new ArrayList<E>(Math.min(lmt, 16));
+                RowMapping mapping = projection != null ? getRowMapping(projection) : null;
+                if (mapping == null) {
+                    mapping = getRowMapping(rs);
+                }
                 int i = 0;
-                while (rs.next() && i < end) {
-                    list.add(newEntity(rs));
+                while (i < lmt && rs.next()) {
+                    list.add(newEntity(rs, mapping));
                     i ++;
                 }
                 rs.close();
@@ -145,402 +166,2269 @@ public class JdbcRepository<E> implements Repository<E>, InitializableMBean {
     }
 
     /**
-     * Retrieve entity by given conditions
+     * List one page of entities by keyset(seek) pagination
      *
+     * @param columns    Specify the columns to list, if first column is "*", means select all columns
+     * @param keyset     Keyset, the sort key columns and the key values of the last row in previous page
      * @param query      Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax
      * @param parameters Parameters in sequences
-     * @return Entity, null if there is no such entity
+     * @return Page of entities and the keyset of next page
      * @throws RepositoryException SQL Exception or downstream exceptions
      */
     @Override
-    public <C> E getBy(String query, Object... parameters) throws RepositoryException {
-        String sql = "SELECT * FROM " + tableName + " WHERE " + query ;
+    public Page<E> listPage(String[] columns, Keyset keyset, String query, Object... parameters) throws RepositoryException {
+        if (keyset.getSize() <= 0) {
+            throw new IllegalArgumentException("Invalid page size:" + keyset.getSize());
+        }
+        String[] keys = toProjection(keyset.getColumns());
+        String[] projection = toProjection(columns);
+        if (projection != null) {
+            projection = withColumns(projection, keys);
+        }
+
+        List<Object> allParameters = new ArrayList<>();
+        if (parameters != null) {
+            allParameters.addAll(Arrays.asList(parameters));
+        }
+        String where = query;
+        if (!keyset.isFirst()) {
+            String condition = dialect.getKeysetCondition(keys, keyset.isAscending(), keyset.getValues(), allParameters);
+            where = StringUtil.isInvalid(query) ? condition : "(" + query + ") AND " + condition;
+        }
+        Object[] params = allParameters.toArray();
+        StringBuilder sb = toSelectSQL(projection, where, params);
+        sb.append(" ORDER BY ");
+        for(int i = 0; i < keys.length; i ++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            dialect.appendOrderBy(sb, keys[i], keyset.isAscending(), OrderBy.Nulls.DEFAULT);
+        }
+
+        //Fetch one more row to know whether there is next page
+        int size = keyset.getSize();
+        String sql = sb.toString();
+        boolean useLimit = dialect.supportsLimit();
+        if (useLimit) {
+            sql = dialect.getLimitString(sql, 0, size + 1, true);
+        }
+
         try (Connection conn = getConnection()) {
             ResultSet rs = null;
             try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                if (parameters != null && parameters.length > 0) {
-                    for(int i = 0; i < parameters.length; i ++) {
-                        pstmt.setObject(i+1, convert(parameters[i]));
-                    }
+                int index = setParameters(pstmt, params);
+                if (useLimit) {
+                    bindLimit(pstmt, index, 0, size + 1);
+                }
+                else {
+                    pstmt.setMaxRows(size + 1);
                 }
                 rs = pstmt.executeQuery();
-                if (rs.next()) {
-                    E entity = newEntity(rs);
-                    rs.close();
-                    return entity;
+
+                List<E> list = new ArrayList<E>(size + 1);
+                RowMapping mapping = projection != null ? getRowMapping(projection) : null;
+                if (mapping == null) {
+                    mapping = getRowMapping(rs);
                 }
-                else {
-                    rs.close();
-                    return null;
+                while (list.size() <= size && rs.next()) {
+                    list.add(newEntity(rs, mapping));
+                }
+                rs.close();
+
+                Keyset next = null;
+                if (list.size() > size) {
+                    list.remove(size);
+                    E last = list.get(size - 1);
+                    Object[] values = new Object[keys.length];
+                    for(int i = 0; i < keys.length; i ++) {
+                        values[i] = getColumnValue(last, keys[i]);
+                    }
+                    next = keyset.next(values);
                 }
+                return new Page<>(list, next);
             } catch (Exception e) {
                 if (rs != null) {
                     rs.close();
                 }
-                String msg = "Creating entity " + toString(sql, parameters) + " error";
+                String msg = "Listing page " + toString(sql, params) + " error";
                 logger.error(msg, e);
                 throw new RepositoryException(msg, e);
             }
         }
         catch(SQLException sqle) {
-            String msg = "Execute sql:" + toString(sql, parameters) + " error";
+            String msg = "Execute sql:" + toString(sql, params) + " error";
             logger.error(msg, sqle);
             throw new RepositoryException(msg, sqle);
         }
     }
 
-    protected E newEntity(ResultSet rs) throws Exception {
-        E entity = entityClass.newInstance();
-        Collection<PropertyInfo> propertyInfos = beanInfo.getProperties();
-        for(PropertyInfo info: propertyInfos) {
-            if (info.isWritable()) {
-                info.invokeSetter(entity, rs.getObject(NamingConvention.format(info.getName())));
+    /**
+     * Append the columns which are not in the projection
+     */
+    private static String[] withColumns(String[] projection, String[] columns) {
+        List<String> list = new ArrayList<>(Arrays.asList(projection));
+        for(String column: columns) {
+            boolean found = false;
+            for(String c : projection) {
+                if (c.equalsIgnoreCase(column)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                list.add(column);
             }
         }
-        return entity;
+        return list.size() == projection.length ? projection : list.toArray(new String[0]);
     }
 
-    private String idSeqSql = null;
+    /**
+     * Bind the parameters of the LIMIT rendered by dialect.getLimitString
+     *
+     * @param pstmt PreparedStatement
+     * @param index Index of first LIMIT parameter
+     * @param offset Offset
+     * @param limit Limit
+     * @return Next parameter index
+     * @throws SQLException SQL Exception
+     */
+    protected int bindLimit(PreparedStatement pstmt, int index, int offset, int limit) throws SQLException {
+        int value = limit;
+        if (dialect.useMaxForLimit()) {
+            value = limit > Integer.MAX_VALUE - offset ? Integer.MAX_VALUE : offset + limit;
+        }
+        if (offset > 0) {
+            if (dialect.bindLimitParametersInReverseOrder()) {
+                pstmt.setInt(index++, value);
+                pstmt.setInt(index++, offset);
+            }
+            else {
+                pstmt.setInt(index++, offset);
+                pstmt.setInt(index++, value);
+            }
+        }
+        else {
+            pstmt.setInt(index++, value);
+        }
+        return index;
+    }
 
-    protected void setId(Connection conn, E entity) throws RepositoryException {
-        if (dialect.supportsSequence()) {
-            if (idPropertyInfo != null && idPropertyInfo.isWritable()) {
-                if (idSeqSql == null) {
-                    idSeqSql = dialect.getSelectSequenceNextVal(tableName + "_id_seq");
+    /**
+     * Build "SELECT ... FROM ... WHERE ..."
+     *
+     * @param projection Column names, null means select all columns
+     * @param query Query part after "WHERE" in SQL
+     * @param parameters Parameters in sequences
+     * @return SQL
+     */
+    protected StringBuilder toSelectSQL(String[] projection, String query, Object... parameters) {
+        StringBuilder sb = new StringBuilder(128);
+        sb.append("SELECT ");
+        if (projection == null) {
+            sb.append(LIST_ALL_COLUMNS[0]);
+        }
+        else {
+            boolean first = true;
+            for(String column: projection) {
+                if (first) {
+                    first = false;
+                    sb.append(column);
                 }
-
-                try (PreparedStatement pstmt = conn.prepareStatement(idSeqSql)) {
-                    ResultSet rs = pstmt.executeQuery();
-                    if (rs.next()) {
-                        long id = rs.getLong(1);
-                        idPropertyInfo.invokeSetter(entity, id);
-                    }
-                    rs.close();
-                } catch (SQLException sqle) {
-                    String msg = "Execute sql:" + toString(idSeqSql, null) + " error";
-                    logger.error(msg, sqle);
-                    throw new RepositoryException(msg, sqle);
+                else {
+                    sb.append(',').append(column);
                 }
             }
         }
+        sb.append(" FROM ").append(tableName);
+
+        if (StringUtil.isInvalid(query)) {
+            if (!(parameters == null || parameters.length == 0)) {
+                throw new IllegalArgumentException("There is parameter, but not query condition");
+            }
+        }
+        else {
+            sb.append(" WHERE ").append(query);
+        }
+        return sb;
     }
 
-    private String insertSQL = null;
+    /**
+     * Set the parameters from index 1
+     *
+     * @param pstmt PreparedStatement
+     * @param parameters Parameters
+     * @return Next parameter index
+     * @throws SQLException SQL Exception
+     */
+    protected int setParameters(PreparedStatement pstmt, Object... parameters) throws SQLException {
+        int index = 1;
+        if (parameters != null) {
+            for (Object parameter : parameters) {
+                pstmt.setObject(index++, convert(parameter));
+            }
+        }
+        return index;
+    }
 
+    /**
+     * Stream entities by given conditions
+     *
+     * @param fetchSize  Number of rows fetched in one round trip, 0 means the default fetch size of this repository
+     * @param columns    Specify the columns to list, if first column is "*", means select all columns
+     * @param orderBy    OrderBy specific column
+     * @param query      Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax
+     * @param parameters Parameters in sequences
+     * @return Stream which holds the connection until it is closed
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    @Override
+    public Stream<E> stream(int fetchSize, String[] columns, OrderBy orderBy, String query, Object... parameters)
+            throws RepositoryException {
+        return openCursor(fetchSize, columns, orderBy, query, parameters).stream();
+    }
 
-    protected String getInsertSQL() {
-        if (insertSQL == null) {
-            StringBuilder sb = new StringBuilder(128);
-            sb.append("INSERT INTO " + tableName + " (");
-            Collection<PropertyInfo> propertyInfos = beanInfo.getProperties();
-            boolean first = true;
-            int count = 0;
-            for(PropertyInfo propertyInfo: propertyInfos) {
-                if (propertyInfo.isReadable()) {
-                    String columnName = NamingConvention.format(propertyInfo.getName());
-                    if (first) {
-                        first = false;
-                        sb.append(columnName);
-                    }
-                    else {
-                        sb.append(',').append(columnName);
+    /**
+     * Visit entities by given conditions one by one, the connection is released after all entities are visited
+     *
+     * @param consumer   Entity consumer
+     * @param fetchSize  Number of rows fetched in one round trip, 0 means the default fetch size of this repository
+     * @param columns    Specify the columns to list, if first column is "*", means select all columns
+     * @param orderBy    OrderBy specific column
+     * @param query      Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax
+     * @param parameters Parameters in sequences
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    @Override
+    public void forEach(Consumer<? super E> consumer, int fetchSize, String[] columns, OrderBy orderBy,
+                        String query, Object... parameters) throws RepositoryException {
+        try (Cursor<E> cursor = openCursor(fetchSize, columns, orderBy, query, parameters)) {
+            while (cursor.hasNext()) {
+                consumer.accept(cursor.next());
+            }
+        }
+        catch(IllegalStateException ise) {
+            if (ise.getCause() instanceof SQLException) {
+                String msg = "Iterating entities on table:" + tableName + " error";
+                logger.error(msg, ise.getCause());
+                throw new RepositoryException(msg, ise.getCause());
+            }
+            throw ise;
+        }
+    }
+
+    /**
+     * Open a cursor by given conditions, the cursor must be closed.
+     *
+     * @param fetchSize  Number of rows fetched in one round trip, 0 means the default fetch size of this repository
+     * @param columns    Specify the columns to list, if first column is "*", means select all columns
+     * @param orderBy    OrderBy specific column
+     * @param query      Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax
+     * @param parameters Parameters in sequences
+     * @return Cursor
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    public Cursor<E> openCursor(int fetchSize, String[] columns, OrderBy orderBy, String query, Object... parameters)
+            throws RepositoryException {
+        String[] projection = toProjection(columns);
+        String sql = appendOrderBy(toSelectSQL(projection, query, parameters), orderBy).toString();
+        int size = dialect.getCursorFetchSize(fetchSize > 0 ? fetchSize : this.fetchSize);
+
+        Connection conn = getConnection();
+        boolean inTransaction = dialect.isCursorInTransaction();
+        boolean autoCommit = inTransaction && RepositoryUtil.setAutoCommit(conn, false);
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(size);
+            setParameters(pstmt, parameters);
+            rs = pstmt.executeQuery();
+            RowMapping mapping = projection != null ? getRowMapping(projection) : null;
+            if (mapping == null) {
+                mapping = getRowMapping(rs);
+            }
+            RowMapping rowMapping = mapping;
+            return new Cursor<>(conn, inTransaction, autoCommit, pstmt, rs, r -> newEntity(r, rowMapping));
+        }
+        catch(SQLException sqle) {
+            IOUtil.close(rs);
+            IOUtil.close(pstmt);
+            if (inTransaction) {
+                RepositoryUtil.rollback(conn);
+                RepositoryUtil.setAutoCommit(conn, autoCommit);
+            }
+            IOUtil.close(conn);
+            String msg = "Execute sql:" + toString(sql, parameters) + " error";
+            logger.error(msg, sqle);
+            throw new RepositoryException(msg, sqle);
+        }
+    }
+
+    /**
+     * Visit entities by splitting the table into partitions, every partition is scanned on its own connection and thread.
+     *
+     * @param consumer    Thread safe consumer, it is invoked concurrently in the scanning threads
+     * @param parallelism Number of partitions, it is capped by the maximum pool size of the DataSource
+     * @param partition   How the table is split
+     * @param columns     Specify the columns to list, if first column is "*", means select all columns
+     * @param query       Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax
+     * @param parameters  Parameters in sequences
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    @Override
+    public void parallelForEach(Consumer<? super E> consumer, int parallelism, ScanPartition partition, String[] columns,
+                                String query, Object... parameters) throws RepositoryException {
+        openParallelScan(parallelism, partition, columns, query, parameters).forEach(consumer);
+    }
+
+    /**
+     * Stream entities by splitting the table into partitions, the entities are merged in no particular order.
+     *
+     * @param parallelism Number of partitions, it is capped by the maximum pool size of the DataSource
+     * @param partition   How the table is split
+     * @param columns     Specify the columns to list, if first column is "*", means select all columns
+     * @param query       Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax
+     * @param parameters  Parameters in sequences
+     * @return Stream which holds the connections until it is closed
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    @Override
+    public Stream<E> parallelStream(int parallelism, ScanPartition partition, String[] columns,
+                                    String query, Object... parameters) throws RepositoryException {
+        return openParallelScan(parallelism, partition, columns, query, parameters).stream();
+    }
+
+    /**
+     * Split the table into partitions, nothing is scanned until the scan is iterated
+     *
+     * @param parallelism Number of partitions, it is capped by the maximum pool size of the DataSource
+     * @param partition   How the table is split
+     * @param columns     Specify the columns to list, if first column is "*", means select all columns
+     * @param query       Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax
+     * @param parameters  Parameters in sequences
+     * @return Parallel scan
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    public ParallelScan<E> openParallelScan(int parallelism, ScanPartition partition, String[] columns,
+                                            String query, Object... parameters) throws RepositoryException {
+        int n = getParallelism(parallelism);
+        List<ParallelScan.Partition<E>> partitions = new ArrayList<>(n);
+        Object[] params = parameters == null ? new Object[0] : parameters;
+        if (partition == ScanPartition.MOD) {
+            String mod = "ABS(" + dialect.getModExpression("id", n) + ") = ?";
+            for(int i = 0; i < n; i ++) {
+                partitions.add(toPartition(columns, query, params, mod, i));
+            }
+        }
+        else {
+            long[] range = getIdRange(query, params);
+            if (range != null) {
+                //Every range has "step" ids, the last one may have less
+                long min = range[0];
+                long max = range[1];
+                long span = max - min + 1;
+                long step = span <= 0 ? Long.MAX_VALUE / n : (span + n - 1) / n;
+                for(long lo = min; ; lo += step) {
+                    long hi = max - lo < step ? max : lo + step - 1;
+                    partitions.add(toPartition(columns, query, params, "id BETWEEN ? AND ?", lo, hi));
+                    if (hi == max) {
+                        break;
                     }
-                    count ++;
                 }
             }
-            sb.append(") VALUES (?");
-            for(int i = 1; i < count; i ++) {
-                sb.append(",?");
-            }
-            sb.append(')');
-            insertSQL = sb.toString();
         }
-        return insertSQL;
+        return new ParallelScan<>(tableName, partitions, fetchSize);
     }
 
-    private String updateSQL = null;
+    private ParallelScan.Partition<E> toPartition(String[] columns, String query, Object[] parameters,
+                                                  String condition, Object... values) {
+        String where = StringUtil.isInvalid(query) ? condition : "(" + query + ") AND " + condition;
+        Object[] params = Arrays.copyOf(parameters, parameters.length + values.length);
+        System.arraycopy(values, 0, params, parameters.length, values.length);
+        return () -> openCursor(0, columns, null, where, params);
+    }
 
-    protected String getUpdateSQL() {
-        if (updateSQL == null) {
-            StringBuilder sb = new StringBuilder(128);
-            sb.append("UPDATE ").append(tableName).append(" SET ");
-            Collection<PropertyInfo> propertyInfos = beanInfo.getProperties();
-            boolean first = true;
-            for(PropertyInfo propertyInfo: propertyInfos) {
-                if (propertyInfo.isReadable()) {
-                    String name = propertyInfo.getName();
-                    if (!"id".equalsIgnoreCase(name)) {
-                        String columnName = NamingConvention.format(name);
-                        if (first) {
-                            first = false;
-                            sb.append(columnName).append("=?");
-                        }
-                        else {
-                            sb.append(',').append(columnName).append("=?");
-                        }
+    /**
+     * The parallelism is capped by the maximum pool size, so the scan doesn't wait for connections
+     *
+     * @param parallelism Expected parallelism, 0 means the maximum pool size
+     * @return Parallelism
+     */
+    protected int getParallelism(int parallelism) {
+        int poolSize = RepositoryUtil.getMaximumPoolSize(dataSource);
+        return parallelism <= 0 ? poolSize : Math.min(parallelism, poolSize);
+    }
+
+    /**
+     * Query MIN(id) and MAX(id) by given conditions
+     *
+     * @param query      Query part after "WHERE" in SQL
+     * @param parameters Parameters in sequences
+     * @return [min, max], null if there is no entity
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    protected long[] getIdRange(String query, Object... parameters) throws RepositoryException {
+        String sql = toSelectSQL(new String[] {"MIN(id)", "MAX(id)"}, query, parameters).toString();
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            setParameters(pstmt, parameters);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    long min = rs.getLong(1);
+                    if (!rs.wasNull()) {
+                        return new long[] {min, rs.getLong(2)};
                     }
                 }
+                return null;
             }
-            sb.append(" WHERE id = ?");
-            updateSQL = sb.toString();
         }
-        return updateSQL;
+        catch(SQLException sqle) {
+            String msg = "Execute sql:" + toString(sql, parameters) + " error";
+            logger.error(msg, sqle);
+            throw new RepositoryException(msg, sqle);
+        }
     }
 
     /**
-     * Create entity with specific options such as {force->true} to avoid cache
+     * Count entities by "SELECT COUNT(*)"
      *
-     * @param entity  Entity entity
-     * @param options Options
-     * @return Created or not
+     * @param query      Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax
+     * @param parameters Parameters in sequences
+     * @return Number of entities
      * @throws RepositoryException SQL Exception or downstream exceptions
      */
     @Override
-    public boolean create(E entity, Parameters options) throws RepositoryException {
-        String sql = getInsertSQL();
-        try (Connection conn = getConnection()) {
-            setId(conn, entity);
-            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                int i = 1;
-                for(PropertyInfo propertyInfo: beanInfo.getProperties()) {
-                    if (propertyInfo.isReadable()) {
-                        pstmt.setObject(i ++, convert(propertyInfo.invokeGetter(entity)));
+    public long countBy(String query, Object... parameters) throws RepositoryException {
+        String sql = toSelectSQL(COUNT_COLUMNS, query, parameters).toString();
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            setParameters(pstmt, parameters);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+        catch(SQLException sqle) {
+            String msg = "Execute sql:" + toString(sql, parameters) + " error";
+            logger.error(msg, sqle);
+            throw new RepositoryException(msg, sqle);
+        }
+    }
+
+    /**
+     * Whether there is any entity matching the conditions, "SELECT 1 ..." is limited to one row
+     *
+     * @param query      Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax
+     * @param parameters Parameters in sequences
+     * @return Exists or not
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    @Override
+    public boolean existsBy(String query, Object... parameters) throws RepositoryException {
+        String sql = toSelectSQL(EXISTS_COLUMNS, query, parameters).toString();
+        boolean useLimit = dialect.supportsLimit();
+        if (useLimit) {
+            sql = dialect.getLimitString(sql, 0, 1, false);
+        }
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int index = setParameters(pstmt, parameters);
+            if (useLimit) {
+                bindLimit(pstmt, index, 0, 1);
+            }
+            else {
+                pstmt.setMaxRows(1);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+        catch(SQLException sqle) {
+            String msg = "Execute sql:" + toString(sql, parameters) + " error";
+            logger.error(msg, sqle);
+            throw new RepositoryException(msg, sqle);
+        }
+    }
+
+    /**
+     * Read the whole ResultSet of a single column query
+     *
+     * @param <R> Result
+     */
+    protected interface ColumnReader<R> {
+
+        R read(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Execute "SELECT column FROM table WHERE query" and read the values by given reader
+     *
+     * @param column     Column or property name
+     * @param query      Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax
+     * @param parameters Parameters in sequences
+     * @param reader     Reader of the ResultSet
+     * @param <R>        Result
+     * @return Result of the reader
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    protected <R> R queryColumn(String column, String query, Object[] parameters, ColumnReader<R> reader)
+            throws RepositoryException {
+        if (StringUtil.isInvalid(column)) {
+            throw new IllegalArgumentException("No column to list");
+        }
+        String sql = toSelectSQL(new String[] {toColumnName(column)}, query, parameters).toString();
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            setParameters(pstmt, parameters);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return reader.read(rs);
+            }
+        }
+        catch(SQLException sqle) {
+            String msg = "Execute sql:" + toString(sql, parameters) + " error";
+            logger.error(msg, sqle);
+            throw new RepositoryException(msg, sqle);
+        }
+    }
+
+    /**
+     * List values of one column, no entity is created
+     *
+     * @param column     Column or property name
+     * @param type       Value type, the values are converted to this type if they aren't
+     * @param query      Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax
+     * @param parameters Parameters in sequences
+     * @return Values, NULL is null
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> List<T> listColumn(String column, Class<T> type, String query, Object... parameters)
+            throws RepositoryException {
+        Class<T> valueType = (Class<T>) MethodType.methodType(type).wrap().returnType();
+        return queryColumn(column, query, parameters, rs -> {
+            List<T> values = new ArrayList<>();
+            while (rs.next()) {
+                Object value = rs.getObject(1);
+                values.add(value == null || valueType.isInstance(value) ? (T) value
+                        : ConverterUtil.convertToType(value, valueType));
+            }
+            return values;
+        });
+    }
+
+    /**
+     * List values of one column in long, they are read by ResultSet.getLong into a growable long[]
+     *
+     * @param column     Column or property name
+     * @param query      Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax
+     * @param parameters Parameters in sequences
+     * @return Values, NULL is 0
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    @Override
+    public long[] listLongColumn(String column, String query, Object... parameters) throws RepositoryException {
+        return queryColumn(column, query, parameters, rs -> {
+            long[] values = new long[INITIAL_COLUMN_CAPACITY];
+            int size = 0;
+            while (rs.next()) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                values[size ++] = rs.getLong(1);
+            }
+            return size == values.length ? values : Arrays.copyOf(values, size);
+        });
+    }
+
+    /**
+     * List values of one column in int, they are read by ResultSet.getInt into a growable int[]
+     *
+     * @param column     Column or property name
+     * @param query      Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax
+     * @param parameters Parameters in sequences
+     * @return Values, NULL is 0
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    @Override
+    public int[] listIntColumn(String column, String query, Object... parameters) throws RepositoryException {
+        return queryColumn(column, query, parameters, rs -> {
+            int[] values = new int[INITIAL_COLUMN_CAPACITY];
+            int size = 0;
+            while (rs.next()) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                values[size ++] = rs.getInt(1);
+            }
+            return size == values.length ? values : Arrays.copyOf(values, size);
+        });
+    }
+
+    /**
+     * List values of one column in double, they are read by ResultSet.getDouble into a growable double[]
+     *
+     * @param column     Column or property name
+     * @param query      Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax
+     * @param parameters Parameters in sequences
+     * @return Values, NULL is Double.NaN
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    @Override
+    public double[] listDoubleColumn(String column, String query, Object... parameters) throws RepositoryException {
+        return queryColumn(column, query, parameters, rs -> {
+            double[] values = new double[INITIAL_COLUMN_CAPACITY];
+            int size = 0;
+            while (rs.next()) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                double value = rs.getDouble(1);
+                values[size ++] = rs.wasNull() ? Double.NaN : value;
+            }
+            return size == values.length ? values : Arrays.copyOf(values, size);
+        });
+    }
+
+    /**
+     * Aggregate by groups in one query, "SELECT g1, g2, SUM(c) ... GROUP BY g1, g2"
+     *
+     * @param aggs       Aggregate functions
+     * @param groupBy    Group by columns, null or empty means no group
+     * @param query      Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax
+     * @param parameters Parameters in sequences
+     * @return One row per group
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    @Override
+    public AggregateRows aggregate(Agg[] aggs, String[] groupBy, String query, Object... parameters)
+            throws RepositoryException {
+        if (aggs == null || aggs.length == 0) {
+            throw new IllegalArgumentException("No aggregate function");
+        }
+        int groups = groupBy == null ? 0 : groupBy.length;
+        String[] groupColumns = new String[groups];
+        String[] projection = new String[groups + aggs.length];
+        for(int i = 0; i < groups; i ++) {
+            groupColumns[i] = toColumnName(groupBy[i]);
+            projection[i] = groupColumns[i];
+        }
+        for(int i = 0; i < aggs.length; i ++) {
+            String column = aggs[i].getColumn();
+            projection[groups + i] = dialect.getAggregateExpression(aggs[i].getFunction(),
+                    column == null ? null : toColumnName(column));
+        }
+        StringBuilder sb = toSelectSQL(projection, query, parameters);
+        if (groups > 0) {
+            sb.append(" GROUP BY ").append(String.join(",", groupColumns));
+        }
+        String sql = sb.toString();
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            setParameters(pstmt, parameters);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                ResultSetMetaData metaData = rs.getMetaData();
+                boolean[] integral = new boolean[aggs.length];
+                for(int i = 0; i < aggs.length; i ++) {
+                    integral[i] = isIntegral(aggs[i], metaData.getColumnType(groups + i + 1));
+                }
+                AggregateRows rows = new AggregateRows(groupColumns, aggs, integral);
+                double[] values = new double[aggs.length];
+                long[] longValues = new long[aggs.length];
+                while (rs.next()) {
+                    Object[] key = new Object[groups];
+                    for(int i = 0; i < groups; i ++) {
+                        key[i] = rs.getObject(i + 1);
+                    }
+                    for(int i = 0; i < values.length; i ++) {
+                        if (integral[i]) {
+                            longValues[i] = rs.getLong(groups + i + 1);
+                            values[i] = rs.wasNull() ? Double.NaN : 0;
+                        }
+                        else {
+                            double value = rs.getDouble(groups + i + 1);
+                            values[i] = rs.wasNull() ? Double.NaN : value;
+                        }
+                    }
+                    rows.add(key, values, longValues);
+                }
+                return rows;
+            }
+        }
+        catch(SQLException sqle) {
+            String msg = "Execute sql:" + toString(sql, parameters) + " error";
+            logger.error(msg, sqle);
+            throw new RepositoryException(msg, sqle);
+        }
+    }
+
+    /**
+     * Whether the result of the aggregate is read by getLong, AVG is never integral, COUNT always is.
+     * SUM, MIN and MAX are integral if the result is an integer type or the property of the column is,
+     * for example, SUM of BIGINT is NUMERIC in Postgres.
+     *
+     * @param agg Aggregate function
+     * @param sqlType java.sql.Types of the result
+     * @return Integral or not
+     */
+    protected boolean isIntegral(Agg agg, int sqlType) {
+        switch (agg.getFunction()) {
+            case AVG:
+                return false;
+            case COUNT:
+                return true;
+            default:
+                break;
+        }
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return true;
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                PropertyAccessor accessor = columnAccessors != null
+                        ? columnAccessors.get(toColumnName(agg.getColumn()).toLowerCase()) : null;
+                if (accessor != null) {
+                    Class<?> type = accessor.getType();
+                    return type == long.class || type == Long.class || type == int.class || type == Integer.class
+                            || type == short.class || type == Short.class || type == byte.class || type == Byte.class;
+                }
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Retrieve entities by ids, the ids are queried by "id IN (?, ?, ...)" in chunks on one connection.
+     * The size of IN-list is one of the IN_LIST_BUCKETS, the last chunk is padded by repeating its last id,
+     * so the number of distinct SQL shapes is bounded.
+     *
+     * @param columns Specify the columns to list, if first column is "*", means select all columns
+     * @param ids     Entity Ids
+     * @return Map from id to entity
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    @Override
+    public LongObjectMap<E> getByIds(String[] columns, long... ids) throws RepositoryException {
+        int n = ids == null ? 0 : ids.length;
+        LongObjectMap<E> map = new LongObjectMap<>(n);
+        if (n == 0) {
+            return map;
+        }
+        long[] unique = toUniqueIds(ids);
+        n = unique.length;
+
+        String[] projection = toProjection(columns);
+        if (projection != null) {
+            projection = withColumns(projection, ID_COLUMNS);
+        }
+        RowMapping mapping = projection != null ? getRowMapping(projection) : null;
+        String sql = null;
+        try (Connection conn = getConnection()) {
+            PreparedStatement[] statements = new PreparedStatement[IN_LIST_BUCKETS.length];
+            try {
+                for(int start = 0; start < n; ) {
+                    int bucket = toBucket(n - start);
+                    int size = IN_LIST_BUCKETS[bucket];
+                    int count = Math.min(size, n - start);
+                    PreparedStatement pstmt = statements[bucket];
+                    if (pstmt == null) {
+                        sql = toSelectSQL(projection, toInList("id", size)).toString();
+                        pstmt = conn.prepareStatement(sql);
+                        statements[bucket] = pstmt;
+                    }
+                    for(int i = 0; i < size; i ++) {
+                        pstmt.setLong(i + 1, unique[start + Math.min(i, count - 1)]);
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        RowMapping rowMapping = mapping != null ? mapping : getRowMapping(rs);
+                        while (rs.next()) {
+                            E entity = newEntity(rs, rowMapping);
+                            map.put(getId(entity), entity);
+                        }
+                    }
+                    start += count;
+                }
+            }
+            finally {
+                for(PreparedStatement pstmt : statements) {
+                    IOUtil.close(pstmt);
+                }
+            }
+            return map;
+        }
+        catch(SQLException sqle) {
+            String msg = "Execute sql:" + sql + " error";
+            logger.error(msg, sqle);
+            throw new RepositoryException(msg, sqle);
+        }
+        catch(RepositoryException re) {
+            throw re;
+        }
+        catch(Exception e) {
+            String msg = "Creating entities by ids on table:" + tableName + " error";
+            logger.error(msg, e);
+            throw new RepositoryException(msg, e);
+        }
+    }
+
+    /**
+     * Sort the ids and remove the duplicates
+     *
+     * @param ids Ids
+     * @return Distinct ids in ascending sequence
+     */
+    protected static long[] toUniqueIds(long[] ids) {
+        long[] unique = ids.clone();
+        Arrays.sort(unique);
+        int n = unique.length > 0 ? 1 : 0;
+        for(int i = 1; i < unique.length; i ++) {
+            if (unique[i] != unique[n - 1]) {
+                unique[n ++] = unique[i];
+            }
+        }
+        return n == unique.length ? unique : Arrays.copyOf(unique, n);
+    }
+
+    /**
+     * Index of the smallest bucket which is not less than the number of values, or the largest bucket
+     *
+     * @param count Number of values
+     * @return Index in IN_LIST_BUCKETS
+     */
+    protected static int toBucket(int count) {
+        for(int i = 0; i < IN_LIST_BUCKETS.length; i ++) {
+            if (count <= IN_LIST_BUCKETS[i]) {
+                return i;
+            }
+        }
+        return IN_LIST_BUCKETS.length - 1;
+    }
+
+    /**
+     * Render "column IN (?,?,...)"
+     *
+     * @param column Column
+     * @param size Number of placeholders
+     * @return Condition
+     */
+    protected static String toInList(String column, int size) {
+        StringBuilder sb = new StringBuilder(column.length() + 6 + size * 2);
+        sb.append(column).append(" IN (?");
+        for(int i = 1; i < size; i ++) {
+            sb.append(",?");
+        }
+        return sb.append(')').toString();
+    }
+
+    /**
+     * Retrieve entity by given conditions
+     *
+     * @param query      Query part after "WHERE" in SQL, query should use "id = ? AND name = ?" syntax
+     * @param parameters Parameters in sequences
+     * @return Entity, null if there is no such entity
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    @Override
+    public <C> E getBy(String query, Object... parameters) throws RepositoryException {
+        String sql = "SELECT * FROM " + tableName + " WHERE " + query ;
+        try (Connection conn = getConnection()) {
+            ResultSet rs = null;
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                setParameters(pstmt, parameters);
+                rs = pstmt.executeQuery();
+                if (rs.next()) {
+                    E entity = newEntity(rs, getRowMapping(rs));
+                    rs.close();
+                    return entity;
+                }
+                else {
+                    rs.close();
+                    return null;
+                }
+            } catch (Exception e) {
+                if (rs != null) {
+                    rs.close();
+                }
+                String msg = "Creating entity " + toString(sql, parameters) + " error";
+                logger.error(msg, e);
+                throw new RepositoryException(msg, e);
+            }
+        }
+        catch(SQLException sqle) {
+            String msg = "Execute sql:" + toString(sql, parameters) + " error";
+            logger.error(msg, sqle);
+            throw new RepositoryException(msg, sqle);
+        }
+    }
+
+    protected E newEntity(ResultSet rs) throws Exception {
+        return newEntity(rs, getRowMapping(rs));
+    }
+
+    protected E newEntity(ResultSet rs, RowMapping mapping) throws Exception {
+        E entity = entityClass.newInstance();
+        mapping.fill(entity, rs);
+        if (dirtyTracking) {
+            snapshot(entity);
+        }
+        return entity;
+    }
+
+    private Map<String, PropertyAccessor> columnAccessors;
+
+    private Map<String, RowMapping> rowMappings = new ConcurrentHashMap<>();
+
+    private Map<String, RowMapping> projectionMappings = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the cached mapping plan of the ResultSet's shape, builds one if it doesn't exist
+     *
+     * @param rs ResultSet
+     * @return RowMapping
+     * @throws SQLException SQL Exception
+     */
+    protected RowMapping getRowMapping(ResultSet rs) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        String key = RowMapping.toShapeKey(metaData);
+        RowMapping mapping = rowMappings.get(key);
+        if (mapping == null) {
+            mapping = RowMapping.build(metaData, columnAccessors);
+            rowMappings.put(key, mapping);
+        }
+        return mapping;
+    }
+
+    /**
+     * Normalize the columns to select, property names are converted to column names
+     *
+     * @param columns Columns, if first column is "*", means select all columns
+     * @return Column names, null if it selects all columns
+     */
+    protected String[] toProjection(String[] columns) {
+        if (columns == null || columns.length == 0 || "*".equals(columns[0])) {
+            return null;
+        }
+        String[] projection = new String[columns.length];
+        for(int i = 0; i < columns.length; i ++) {
+            projection[i] = toColumnName(columns[i]);
+        }
+        return projection;
+    }
+
+    /**
+     * Convert the property name to column name if it is not a known column
+     *
+     * @param column Column name or property name
+     * @return Column name, or the given value if it is an expression
+     */
+    protected String toColumnName(String column) {
+        if (!columnAccessors.containsKey(column.toLowerCase())) {
+            String columnName = NamingConvention.format(column);
+            if (columnAccessors.containsKey(columnName)) {
+                return columnName;
+            }
+        }
+        return column;
+    }
+
+    /**
+     * Append " ORDER BY ..." with all the columns in the OrderBy chain
+     *
+     * @param sb SQL
+     * @param orderBy OrderBy, nothing is appended if it is null
+     * @return The StringBuilder
+     */
+    protected StringBuilder appendOrderBy(StringBuilder sb, OrderBy orderBy) {
+        if (orderBy == null || StringUtil.isInvalid(orderBy.getColumn())) {
+            return sb;
+        }
+        sb.append(" ORDER BY ");
+        for(OrderBy order = orderBy; order != null; order = order.getNext()) {
+            if (order != orderBy) {
+                sb.append(',');
+            }
+            dialect.appendOrderBy(sb, toColumnName(order.getColumn()), order.isAscending(), order.getNulls());
+        }
+        return sb;
+    }
+
+    /**
+     * Returns the cached mapping plan of the projection, so it doesn't need the ResultSetMetaData
+     *
+     * @param projection Column names in selecting sequence
+     * @return RowMapping, null if there is any column which is an expression rather than a plain column name
+     */
+    protected RowMapping getRowMapping(String[] projection) {
+        String key = String.join(",", projection);
+        RowMapping mapping = projectionMappings.get(key);
+        if (mapping == null) {
+            mapping = RowMapping.build(projection, columnAccessors);
+            if (mapping == null) {
+                return null;
+            }
+            projectionMappings.put(key, mapping);
+        }
+        return mapping;
+    }
+
+    /**
+     * Value of the column in the entity
+     *
+     * @param entity Entity
+     * @param column Column name
+     * @return Value
+     */
+    protected Object getColumnValue(E entity, String column) {
+        PropertyAccessor accessor = columnAccessors.get(column.toLowerCase());
+        if (accessor == null) {
+            throw new IllegalArgumentException("The key column:" + column + " is not a property of " + entityType);
+        }
+        return accessor.get(entity);
+    }
+
+    private IdAllocator idAllocator;
+
+    private int idBlockSize = 1;
+
+    private boolean identity = false;
+
+    /**
+     * Whether the id of the entity should be allocated before insert
+     *
+     * @param entity Entity
+     * @return true if there is an IdAllocator and the entity has a writable id
+     */
+    protected boolean needsId(E entity) {
+        return idAllocator != null && idAccessor != null && idAccessor.getPropertyInfo().isWritable();
+    }
+
+    /**
+     * Whether the id of the entity is generated by the identity column and should be read back after insert
+     *
+     * @param entity Entity
+     * @return true if the table uses identity column and the entity has a writable id
+     */
+    protected boolean needsGeneratedId(E entity) {
+        return isIdentity() && idAccessor != null && idAccessor.getPropertyInfo().isWritable();
+    }
+
+    protected void setId(Connection conn, E entity) throws RepositoryException {
+        if (needsId(entity)) {
+            setId(entity, nextId(conn));
+        }
+    }
+
+    /**
+     * Set the allocated id into the entity
+     *
+     * @param entity Entity
+     * @param id Id, it is ignored if it is 0
+     */
+    protected void setId(E entity, long id) {
+        if (id != 0 && idAccessor != null) {
+            idAccessor.set(entity, id);
+        }
+    }
+
+    /**
+     * Allocate ids for the entities which need, one block or one multi-row statement serves the whole batch
+     *
+     * @param conn Connection
+     * @param entities Entities
+     * @throws RepositoryException SQL Exception
+     */
+    protected void setIds(Connection conn, List<E> entities) throws RepositoryException {
+        int count = 0;
+        for(E entity : entities) {
+            if (needsId(entity)) {
+                count ++;
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+        long[] ids = idAllocator.nextIds(conn, count);
+        int i = 0;
+        for(E entity : entities) {
+            if (i < count && needsId(entity)) {
+                setId(entity, ids[i ++]);
+            }
+        }
+    }
+
+    /**
+     * Next id from the IdAllocator, it is the sequence "tableName_id_seq" by default
+     *
+     * @param conn Connection
+     * @return Next id, 0 if there is no IdAllocator, for example, the database doesn't support sequence
+     * @throws RepositoryException SQL Exception
+     */
+    protected long nextId(Connection conn) throws RepositoryException {
+        return idAllocator != null ? idAllocator.nextId(conn) : 0;
+    }
+
+    /**
+     * Allocator of the ids
+     *
+     * @return IdAllocator, null if the ids are not allocated by the repository
+     */
+    public IdAllocator getIdAllocator() {
+        return idAllocator;
+    }
+
+    public void setIdAllocator(IdAllocator idAllocator) {
+        this.idAllocator = idAllocator;
+    }
+
+    /**
+     * Number of ids allocated by one sequence round trip,
+     * if it is greater than 1, the sequence must be created with "INCREMENT BY idBlockSize", it is checked on init
+     *
+     * @return Block size of the ids
+     */
+    public int getIdBlockSize() {
+        return idBlockSize;
+    }
+
+    public void setIdBlockSize(int idBlockSize) {
+        this.idBlockSize = idBlockSize;
+    }
+
+    /**
+     * Whether the id is generated by the identity (AUTO_INCREMENT) column of the table,
+     * the id column is not inserted and the generated ids are read back into the entities.
+     * It is false by default, so the ids assigned by the client are inserted,
+     * set it to true if the table generates every id.
+     *
+     * @return Identity or not
+     */
+    public boolean isIdentity() {
+        return identity;
+    }
+
+    public void setIdentity(boolean identity) {
+        this.identity = identity;
+    }
+
+    private String insertSQL = null;
+
+
+    protected String getInsertSQL() {
+        if (insertSQL == null) {
+            StringBuilder sb = new StringBuilder(128);
+            sb.append("INSERT INTO " + tableName + " (");
+            boolean first = true;
+            for(PropertyAccessor accessor: insertAccessors) {
+                if (first) {
+                    first = false;
+                    sb.append(accessor.getColumnName());
+                }
+                else {
+                    sb.append(',').append(accessor.getColumnName());
+                }
+            }
+            sb.append(") VALUES (?");
+            for(int i = 1; i < insertAccessors.length; i ++) {
+                sb.append(",?");
+            }
+            sb.append(')');
+            insertSQL = sb.toString();
+        }
+        return insertSQL;
+    }
+
+    private String updateSQL = null;
+
+    private final SnapshotMap snapshots = new SnapshotMap();
+
+    private final Map<BitSet, String> partialUpdateSQLs = new ConcurrentHashMap<>();
+
+    /**
+     * Take the snapshot of the columns to update, the entity is compared with it in the next update
+     *
+     * @param entity Entity
+     */
+    protected void snapshot(E entity) {
+        Object[] values = new Object[updateAccessors.length];
+        for(int i = 0; i < values.length; i ++) {
+            values[i] = copyOf(updateAccessors[i].get(entity));
+        }
+        snapshots.put(entity, values);
+    }
+
+    private static Object copyOf(Object value) {
+        if (value instanceof Date) {
+            return ((Date)value).clone();
+        }
+        else if (value instanceof byte[]) {
+            return ((byte[])value).clone();
+        }
+        return value;
+    }
+
+    /**
+     * Columns modified since the entity was loaded, the bits are the indexes of the columns to update
+     *
+     * @param entity Entity
+     * @return Modified columns, null if the entity isn't tracked
+     */
+    protected BitSet getDirtyColumns(E entity) {
+        Object[] values = snapshots.get(entity);
+        if (values == null) {
+            return null;
+        }
+        BitSet dirty = new BitSet(values.length);
+        for(int i = 0; i < values.length; i ++) {
+            if (!Objects.deepEquals(values[i], updateAccessors[i].get(entity))) {
+                dirty.set(i);
+            }
+        }
+        return dirty;
+    }
+
+    /**
+     * Update SQL which only sets the modified columns.
+     * The statements are cached by the modified columns, the cache is bounded,
+     * the statements of the shapes beyond the bound are generated every time.
+     *
+     * @param dirty Modified columns
+     * @return Update SQL
+     */
+    protected String getUpdateSQL(BitSet dirty) {
+        if (dirty.cardinality() == updateAccessors.length) {
+            return getUpdateSQL();
+        }
+        String sql = partialUpdateSQLs.get(dirty);
+        if (sql == null) {
+            StringBuilder sb = new StringBuilder(64);
+            sb.append("UPDATE ").append(tableName).append(" SET ");
+            boolean first = true;
+            for(int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1)) {
+                if (first) {
+                    first = false;
+                    sb.append(updateAccessors[i].getColumnName()).append("=?");
+                }
+                else {
+                    sb.append(',').append(updateAccessors[i].getColumnName()).append("=?");
+                }
+            }
+            sb.append(" WHERE id = ?");
+            sql = sb.toString();
+            if (partialUpdateSQLs.size() < MAX_CACHED_STATEMENTS) {
+                partialUpdateSQLs.put(dirty, sql);
+            }
+        }
+        return sql;
+    }
+
+    protected String getUpdateSQL() {
+        if (updateSQL == null) {
+            StringBuilder sb = new StringBuilder(128);
+            sb.append("UPDATE ").append(tableName).append(" SET ");
+            boolean first = true;
+            for(PropertyAccessor accessor: updateAccessors) {
+                if (first) {
+                    first = false;
+                    sb.append(accessor.getColumnName()).append("=?");
+                }
+                else {
+                    sb.append(',').append(accessor.getColumnName()).append("=?");
+                }
+            }
+            sb.append(" WHERE id = ?");
+            updateSQL = sb.toString();
+        }
+        return updateSQL;
+    }
+
+    /**
+     * Insert SQL of the entity, all the entities share the same SQL by default
+     *
+     * @param entity Entity
+     * @return Insert SQL
+     */
+    protected String getInsertSQL(E entity) {
+        return getInsertSQL();
+    }
+
+    /**
+     * Update SQL of the entity, all the entities share the same SQL by default
+     *
+     * @param entity Entity
+     * @return Update SQL
+     */
+    protected String getUpdateSQL(E entity) {
+        return getUpdateSQL();
+    }
+
+    /**
+     * Upsert statement and the indexes of its columns in the sequence of the parameters
+     */
+    protected static final class UpsertStatement {
+
+        private final String sql;
+        private final String createdSql;
+        private final int[] parameters;
+
+        UpsertStatement(String sql, int[] parameters) {
+            this(sql, null, parameters);
+        }
+
+        UpsertStatement(String sql, String createdSql, int[] parameters) {
+            this.sql = sql;
+            this.createdSql = createdSql;
+            this.parameters = parameters;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        /**
+         * Upsert of one row which returns whether the row was created
+         *
+         * @return SQL, null if the dialect doesn't support
+         */
+        public String getCreatedSql() {
+            return createdSql;
+        }
+
+        /**
+         * Index of the column of the parameter
+         *
+         * @param index Index of the parameter, from 0
+         * @return Index of the column, the key is 0
+         */
+        public int getColumn(int index) {
+            return parameters[index];
+        }
+
+        public int getParameterCount() {
+            return parameters.length;
+        }
+    }
+
+    /**
+     * Build the upsert statement by the dialect
+     *
+     * @param columns Columns, the first one is the key
+     * @return Upsert statement, null if the dialect doesn't support or there is no column to update
+     */
+    protected UpsertStatement toUpsertStatement(String[] columns) {
+        if (columns.length < 2) {
+            return null;
+        }
+        List<Integer> parameters = new ArrayList<>(columns.length * 2);
+        String sql = dialect.getUpsert(tableName, columns, parameters);
+        if (sql == null) {
+            return null;
+        }
+        int[] array = new int[parameters.size()];
+        for(int i = 0; i < array.length; i ++) {
+            array[i] = parameters.get(i);
+        }
+        String clause = dialect.getUpsertCreatedClause();
+        return new UpsertStatement(sql, clause != null ? sql + clause : null, array);
+    }
+
+    private PropertyAccessor[] upsertAccessors;
+
+    private UpsertStatement upsertStatement;
+
+    /**
+     * Upsert statement of the entity, the columns are "id" and the columns to update
+     *
+     * @param entity Entity
+     * @return Upsert statement, null if the dialect doesn't support
+     */
+    protected UpsertStatement getUpsertStatement(E entity) {
+        if (upsertAccessors == null && idAccessor != null) {
+            String[] columns = new String[updateAccessors.length + 1];
+            PropertyAccessor[] accessors = new PropertyAccessor[columns.length];
+            columns[0] = idAccessor.getColumnName();
+            accessors[0] = idAccessor;
+            for(int i = 0; i < updateAccessors.length; i ++) {
+                columns[i + 1] = updateAccessors[i].getColumnName();
+                accessors[i + 1] = updateAccessors[i];
+            }
+            upsertStatement = toUpsertStatement(columns);
+            upsertAccessors = accessors;
+        }
+        return upsertStatement;
+    }
+
+    protected void fillForUpsert(PreparedStatement pstmt, UpsertStatement upsert, E entity) throws SQLException {
+        for(int i = 0; i < upsert.getParameterCount(); i ++) {
+            bind(pstmt, i + 1, upsertAccessors[upsert.getColumn(i)], entity);
+        }
+    }
+
+    /**
+     * Upsert the entities which have ids in batch, they share the upsert statement of the first entity
+     *
+     * @param conn Connection
+     * @param entities Entities
+     * @param options Options
+     * @return Statuses of the upsert
+     * @throws SQLException SQL Exception
+     * @throws RepositoryException Downstream exceptions
+     */
+    protected boolean[] upsert(Connection conn, List<E> entities, Parameters options)
+            throws SQLException, RepositoryException {
+        UpsertStatement upsert = getUpsertStatement(entities.get(0));
+        return executeBatch(conn, upsert.getSql(), entities.size(), options,
+                (pstmt, i) -> fillForUpsert(pstmt, upsert, entities.get(i)));
+    }
+
+    /**
+     * Create entity with specific options such as {force->true} to avoid cache
+     *
+     * @param entity  Entity entity
+     * @param options Options
+     * @return Created or not
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    @Override
+    public boolean create(E entity, Parameters options) throws RepositoryException {
+        String sql = getInsertSQL(entity);
+        try (Connection conn = getConnection()) {
+            setId(conn, entity);
+            boolean generated = needsGeneratedId(entity);
+            try (PreparedStatement pstmt = generated ? prepareForGeneratedKeys(conn, sql) : conn.prepareStatement(sql)) {
+                fillForInsert(pstmt, entity);
+                boolean created = pstmt.executeUpdate() >= 1;
+                if (created && generated) {
+                    try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                        if (keys != null && keys.next()) {
+                            setId(entity, keys.getLong(1));
+                        }
+                    }
+                }
+                return created;
+            }
+        }
+        catch(SQLException sqle) {
+            String msg = "Execute sql:" + toString(sql, null) + " error";
+            logger.error(msg, sqle);
+            throw new RepositoryException(msg, sqle);
+        }
+    }
+
+    /**
+     * Create entities with specific options such as {batch_size->100, ignore_error->true} to avoid cache
+     *
+     * @param entity  Entity entity
+     * @param options Options
+     * @return Statuses of creation
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    @Override
+    public boolean[] create(List<E> entity, Parameters options) throws RepositoryException {
+        if (entity.isEmpty()) {
+            return new boolean[0];
+        }
+        List<E> entities = entity instanceof RandomAccess ? entity : new ArrayList<>(entity);
+        String sql = getInsertSQL(entities.get(0));
+        try (Connection conn = getConnection()) {
+            setIds(conn, entities);
+            GeneratedKeysReader keysReader = null;
+            if (needsGeneratedId(entities.get(0))) {
+                keysReader = (keys, start, end) -> {
+                    for(int i = start; i < end && keys.next(); i ++) {
+                        setId(entities.get(i), keys.getLong(1));
+                    }
+                };
+            }
+            else if (entities.size() > 1 && getRowsPerInsert(options, sql) > 1) {
+                return executeMultiRowInsert(conn, sql, entities, options);
+            }
+            return executeBatch(conn, sql, entities.size(), options,
+                    (pstmt, i) -> fillForInsert(pstmt, entities.get(i)), keysReader);
+        }
+        catch(SQLException sqle) {
+            String msg = "Execute sql:" + toString(sql, null) + " error";
+            logger.error(msg, sqle);
+            throw new RepositoryException(msg, sqle);
+        }
+    }
+
+    /**
+     * Update entity with specific options such as {force->true} to avoid cache.
+     *
+     * With dirty tracking, only the columns modified since the entity was loaded are set.
+     * If nothing was modified, no statement is executed and it returns true,
+     * even if the row has been deleted by others since it was loaded.
+     *
+     * @param entity  Entity entity
+     * @param options Options
+     * @return Updated or not
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    @Override
+    public boolean update(E entity, Parameters options) throws RepositoryException {
+        BitSet dirty = dirtyTracking ? getDirtyColumns(entity) : null;
+        if (dirty != null && dirty.isEmpty()) {
+            //Nothing changed since it was loaded
+            return true;
+        }
+        String updateSQL = dirty != null ? getUpdateSQL(dirty) : getUpdateSQL(entity);
+
+        try (Connection conn = getConnection()) {
+            try (PreparedStatement pstmt = conn.prepareStatement(updateSQL)) {
+                if (dirty != null) {
+                    fillForUpdate(pstmt, entity, dirty);
+                }
+                else {
+                    fillForUpdate(pstmt, entity);
+                }
+                boolean updated = pstmt.executeUpdate() >= 1;
+                if (updated && dirty != null) {
+                    snapshot(entity);
+                }
+                return updated;
+            }
+        }
+        catch(SQLException sqle) {
+            String msg = "Execute sql:" + toString(updateSQL, null) + " error";
+            logger.error(msg, sqle);
+            throw new RepositoryException(msg, sqle);
+        }
+    }
+
+    protected Object convert(Object value) {
+        if (value instanceof Date) {
+            return new Timestamp(((Date)value).getTime());
+        }
+        return value;
+    }
+
+
+    /**
+     * Bind the property of the entity, primitive properties are bound without boxing
+     *
+     * @param pstmt PreparedStatement
+     * @param index Parameter index
+     * @param accessor PropertyAccessor
+     * @param entity Entity
+     * @throws SQLException SQL Exception
+     */
+    protected void bind(PreparedStatement pstmt, int index, PropertyAccessor accessor, E entity) throws SQLException {
+        if (accessor.isPrimitive()) {
+            accessor.bind(entity, pstmt, index);
+        }
+        else {
+            accessor.bindObject(pstmt, index, convert(accessor.get(entity)));
+        }
+    }
+
+    protected void fillForInsert(PreparedStatement pstmt, E entity) throws SQLException {
+        fillForInsert(pstmt, 1, entity);
+    }
+
+    /**
+     * Fill the parameters of the entity from given index, it is for multi-row INSERT
+     *
+     * @param pstmt PreparedStatement
+     * @param index Index of the first parameter
+     * @param entity Entity
+     * @return Index of the next parameter
+     * @throws SQLException SQL Exception
+     */
+    protected int fillForInsert(PreparedStatement pstmt, int index, E entity) throws SQLException {
+        for(PropertyAccessor accessor: insertAccessors) {
+            bind(pstmt, index++, accessor, entity);
+        }
+        return index;
+    }
+
+    protected PropertyAccessor fillForUpdate(PreparedStatement pstmt, E entity) throws SQLException {
+        return fillForUpdate(pstmt, entity, null);
+    }
+
+    /**
+     * Fill the parameters of the update
+     *
+     * @param pstmt PreparedStatement
+     * @param entity Entity
+     * @param dirty Modified columns, null means all the columns
+     * @return Id accessor
+     * @throws SQLException SQL Exception
+     */
+    protected PropertyAccessor fillForUpdate(PreparedStatement pstmt, E entity, BitSet dirty) throws SQLException {
+        int i = 1;
+        if (dirty == null) {
+            for(PropertyAccessor accessor: updateAccessors) {
+                bind(pstmt, i++, accessor, entity);
+            }
+        }
+        else {
+            for(int c = dirty.nextSetBit(0); c >= 0; c = dirty.nextSetBit(c + 1)) {
+                bind(pstmt, i++, updateAccessors[c], entity);
+            }
+        }
+        if (idAccessor == null) {
+            throw new IllegalStateException("No 'id'?");
+        }
+        else {
+            long id = getId(entity);
+            if (id == 0) {
+                throw new IllegalStateException("The id is zero");
+            }
+            bind(pstmt, i, idAccessor, entity);
+        }
+        return idAccessor;
+    }
+
+    /**
+     * Return the id of the entity
+     *
+     * @param entity Entity
+     * @return Id, 0 if there is no id property
+     */
+    protected long getId(E entity) {
+        if (idAccessor == null) {
+            return 0;
+        }
+        Object id = idAccessor.get(entity);
+        return id instanceof Number ? ((Number)id).longValue() : 0;
+    }
+
+    /**
+     * Update entities with specific options such as {batch_size->100} to avoid cache
+     *
+     * @param entities  Entity entity
+     * @param options Options
+     * @return Statuses of update
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    @Override
+    public boolean[] update(List<E> entities, Parameters options) throws RepositoryException {
+        if (entities.isEmpty()) {
+            return new boolean[0];
+        }
+        List<E> list = entities instanceof RandomAccess ? entities : new ArrayList<>(entities);
+        if (dirtyTracking) {
+            return updateDirty(list, options);
+        }
+        String updateSQL = getUpdateSQL(list.get(0));
+
+        try (Connection conn = getConnection()) {
+            return executeBatch(conn, updateSQL, list.size(), options,
+                    (pstmt, i) -> fillForUpdate(pstmt, list.get(i)));
+        }
+        catch(SQLException sqle) {
+            String msg = "Execute sql:" + toString(updateSQL, null) + " error";
+            logger.error(msg, sqle);
+            throw new RepositoryException(msg, sqle);
+        }
+    }
+
+    /**
+     * Update the modified columns of the entities, the entities are grouped by their modified columns,
+     * every group is one batch. The entities without snapshot update all the columns,
+     * the entities without any change are skipped and their statuses are true without checking the rows.
+     *
+     * @param entities Entities
+     * @param options Options
+     * @return Statuses of update
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    protected boolean[] updateDirty(List<E> entities, Parameters options) throws RepositoryException {
+        boolean[] result = new boolean[entities.size()];
+        Map<BitSet, List<Integer>> groups = new LinkedHashMap<>();
+        for(int i = 0; i < entities.size(); i ++) {
+            BitSet dirty = getDirtyColumns(entities.get(i));
+            if (dirty != null && dirty.isEmpty()) {
+                result[i] = true;
+            }
+            else {
+                groups.computeIfAbsent(dirty, k -> new ArrayList<>()).add(i);
+            }
+        }
+        String updateSQL = null;
+        try (Connection conn = getConnection()) {
+            for(Map.Entry<BitSet, List<Integer>> group : groups.entrySet()) {
+                BitSet dirty = group.getKey();
+                List<Integer> indexes = group.getValue();
+                updateSQL = dirty != null ? getUpdateSQL(dirty) : getUpdateSQL(entities.get(indexes.get(0)));
+                boolean[] updated = executeBatch(conn, updateSQL, indexes.size(), options, (pstmt, j) -> {
+                    E entity = entities.get(indexes.get(j));
+                    if (dirty != null) {
+                        fillForUpdate(pstmt, entity, dirty);
+                    }
+                    else {
+                        fillForUpdate(pstmt, entity);
+                    }
+                });
+                for(int j = 0; j < updated.length; j ++) {
+                    result[indexes.get(j)] = updated[j];
+                    if (updated[j] && dirty != null) {
+                        snapshot(entities.get(indexes.get(j)));
+                    }
+                }
+            }
+            return result;
+        }
+        catch(SQLException sqle) {
+            String msg = "Execute sql:" + toString(updateSQL) + " error";
+            logger.error(msg, sqle);
+            throw new RepositoryException(msg, sqle);
+        }
+    }
+
+    /**
+     * Save entity with specific options such as {force->true} to avoid cache.
+     *
+     * The entity with id is saved by native upsert if it is enabled, the dialect tells whether the row was created
+     * by the update count or the returned flag, otherwise the upsert returns 0 for the created row too.
+     *
+     * @param entity  Entity entity
+     * @param options Options
+     * @return 1: Created 0: Updated -1: Failed
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    @Override
+    public int save(E entity, Parameters options) throws RepositoryException {
+        long id = getId(entity);
+        if (id == 0) {
+            //Create
+            return create(entity, options) ? 1 : -1;
+        }
+        UpsertStatement upsert = useUpsert() ? getUpsertStatement(entity) : null;
+        if (upsert == null) {
+            //Update
+            return update(entity, options) ? 0 : -1;
+        }
+        String sql = upsert.getCreatedSql() != null ? upsert.getCreatedSql() : upsert.getSql();
+        try (Connection conn = getConnection()) {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                fillForUpsert(pstmt, upsert, entity);
+                int status;
+                if (upsert.getCreatedSql() != null) {
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        status = !rs.next() ? -1 : rs.getBoolean(1) ? 1 : 0;
+                    }
+                }
+                else {
+                    status = dialect.getUpsertStatus(pstmt.executeUpdate(), useAffectedRows);
+                }
+                if (status >= 0 && dirtyTracking) {
+                    //The row holds all the columns now
+                    snapshot(entity);
+                }
+                return status;
+            }
+        }
+        catch(SQLException sqle) {
+            String msg = "Execute sql:" + toString(sql, entity) + " error";
+            logger.error(msg, sqle);
+            throw new RepositoryException(msg, sqle);
+        }
+    }
+
+    /**
+     * Update entities with specific options such as {batch_size->100} to avoid cache
+     *
+     * @param entities  Entities
+     * @param options Options
+     * @return Statuses of update
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    @Override
+    public boolean[] save(List<E> entities, Parameters options) throws RepositoryException {
+        if (entities.isEmpty()) {
+            return new boolean[0];
+        }
+        if (useUpsert() && getUpsertStatement(entities.get(0)) != null) {
+            return saveByUpsert(entities, options);
+        }
+        List<E> toCreate = new ArrayList<>(entities.size());
+        List<E> toUpdate = new ArrayList<>(entities.size());
+        boolean[] toCreated = new boolean[entities.size()];
+        int i = 0;
+        for(E entity: entities) {
+            long id = getId(entity);
+            if (id == 0) {
+                toCreate.add(entity);
+                toCreated[i++] = true;
+            }
+            else {
+                toUpdate.add(entity);
+                toCreated[i++] = false;
+            }
+        }
+
+        boolean[] created = create(toCreate, options);
+        boolean[] updated = update(toUpdate, options);
+        boolean[] result = new boolean[toCreated.length];
+        int j = 0, k = 0;
+        for(i = 0; i < result.length; i ++) {
+            result[i] = toCreated[i] ? created[j++] : updated[k++];
+        }
+        return result;
+    }
+
+    private boolean useUpsert() {
+        return upsert && (!isIdentity() || dialect.supportsIdentityInsert());
+    }
+
+    /**
+     * Save the entities by native upsert. The ids of the new entities are allocated first,
+     * so all the entities are upserted in one batch. If the ids are generated by the database,
+     * the new entities are created in another batch.
+     *
+     * @param entities Entities
+     * @param options Options
+     * @return Statuses of save
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    protected boolean[] saveByUpsert(List<E> entities, Parameters options) throws RepositoryException {
+        List<E> toCreate = new ArrayList<>();
+        List<E> toUpsert = new ArrayList<>(entities.size());
+        boolean[] toCreated = new boolean[entities.size()];
+        boolean[] upserted;
+        String sql = null;
+        try (Connection conn = getConnection()) {
+            if (idAllocator != null && !isIdentity()) {
+                for(E entity: entities) {
+                    if (getId(entity) == 0) {
+                        toCreate.add(entity);
+                    }
+                }
+                setIds(conn, toCreate);
+                toCreate.clear();
+            }
+            int i = 0;
+            for(E entity: entities) {
+                if (getId(entity) == 0) {
+                    toCreate.add(entity);
+                    toCreated[i++] = true;
+                }
+                else {
+                    toUpsert.add(entity);
+                    toCreated[i++] = false;
+                }
+            }
+            if (toUpsert.isEmpty()) {
+                upserted = new boolean[0];
+            }
+            else {
+                sql = getUpsertStatement(toUpsert.get(0)).getSql();
+                upserted = upsert(conn, toUpsert, options);
+                if (dirtyTracking) {
+                    for(int j = 0; j < upserted.length; j ++) {
+                        if (upserted[j]) {
+                            snapshot(toUpsert.get(j));
+                        }
                     }
                 }
-                return pstmt.executeUpdate() >= 1;
             }
         }
         catch(SQLException sqle) {
-            String msg = "Execute sql:" + toString(sql, null) + " error";
+            String msg = "Execute sql:" + toString(sql) + " error";
             logger.error(msg, sqle);
             throw new RepositoryException(msg, sqle);
         }
+        if (toCreate.isEmpty()) {
+            return upserted;
+        }
+        boolean[] created = create(toCreate, options);
+        boolean[] result = new boolean[toCreated.length];
+        int j = 0, k = 0;
+        for(int i = 0; i < result.length; i ++) {
+            result[i] = toCreated[i] ? created[j++] : upserted[k++];
+        }
+        return result;
     }
 
     /**
-     * Create entities with specific options such as {batch_size->100, ignore_error->true} to avoid cache
+     * Delete entities by ids
+     *
+     * @param ids Entity Id
+     * @return All true if the deletion succeeds, the rows no longer exist
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    @Override
+    public boolean[] deleteByIds(long... ids) throws RepositoryException {
+        return deleteByIds(CollectionUtil.emptyParameters(), ids);
+    }
+
+    /**
+     * Delete entities by ids with specific options such as {batch_size->100, delete_status->true}.
+     *
+     * The distinct ids are deleted by "id IN (?,?,...)" in chunks of IN_LIST_BUCKETS,
+     * or by "id = ANY(?)" in chunks of "batch_size" if the dialect supports array parameter.
+     * Without "delete_status", every status is true once the deletion succeeds, the rows no longer exist,
+     * the update count of a chunk can't tell which of its ids were missing.
+     * With "delete_status", the existing ids are selected before the deletion in the same transaction,
+     * so the statuses tell whether the rows were deleted.
      *
-     * @param entity  Entity entity
      * @param options Options
-     * @return Statuses of creation
+     * @param ids Entity Id
+     * @return All true, or deleted or not with "delete_status"
      * @throws RepositoryException SQL Exception or downstream exceptions
      */
     @Override
-    public boolean[] create(List<E> entity, Parameters options) throws RepositoryException {
-        String sql = getInsertSQL();
+    public boolean[] deleteByIds(Parameters options, long... ids) throws RepositoryException {
+        int n = ids == null ? 0 : ids.length;
+        boolean[] result = new boolean[n];
+        if (n == 0) {
+            return result;
+        }
+        long[] unique = toUniqueIds(ids);
+        boolean status = getBooleanOption(options, OPTION_DELETE_STATUS);
+        boolean[] deleted = new boolean[unique.length];
+        String arrayCondition = dialect.getArrayCondition("id");
+        int arraySize = Math.min(getBatchSize(options), unique.length);
+        int buckets = arrayCondition != null ? 1 : IN_LIST_BUCKETS.length;
+        PreparedStatement[] selects = new PreparedStatement[status ? buckets : 0];
+        PreparedStatement[] deletes = new PreparedStatement[buckets];
+        String sql = null;
         try (Connection conn = getConnection()) {
-            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                for(E e: entity) {
-
-                    setId(conn, e);
-
-                    int i = 1;
-                    for (PropertyInfo propertyInfo : beanInfo.getProperties()) {
-                        if (propertyInfo.isReadable()) {
-                            pstmt.setObject(i++, convert(propertyInfo.invokeGetter(e)));
+            boolean autoCommit = status && RepositoryUtil.setAutoCommit(conn, false);
+            try {
+                for(int start = 0; start < unique.length; ) {
+                    int bucket = arrayCondition != null ? 0 : toBucket(unique.length - start);
+                    int size = arrayCondition != null ? arraySize : IN_LIST_BUCKETS[bucket];
+                    int count = Math.min(size, unique.length - start);
+                    String condition = arrayCondition != null ? arrayCondition : toInList("id", size);
+                    if (status) {
+                        if (selects[bucket] == null) {
+                            sql = "SELECT id FROM " + tableName + " WHERE " + condition;
+                            selects[bucket] = conn.prepareStatement(sql);
+                        }
+                        bindIds(conn, selects[bucket], arrayCondition != null, unique, start, count, size);
+                        try (ResultSet rs = selects[bucket].executeQuery()) {
+                            while (rs.next()) {
+                                int index = Arrays.binarySearch(unique, start, start + count, rs.getLong(1));
+                                if (index >= 0) {
+                                    deleted[index] = true;
+                                }
+                            }
                         }
                     }
-                    pstmt.addBatch();
+                    if (deletes[bucket] == null) {
+                        sql = "DELETE FROM " + tableName + " WHERE " + condition;
+                        deletes[bucket] = conn.prepareStatement(sql);
+                    }
+                    bindIds(conn, deletes[bucket], arrayCondition != null, unique, start, count, size);
+                    deletes[bucket].executeUpdate();
+                    if (status) {
+                        conn.commit();
+                    }
+                    start += count;
+                }
+            }
+            catch(SQLException sqle) {
+                if (status) {
+                    RepositoryUtil.rollback(conn);
                 }
-                int[] batch = pstmt.executeBatch();
-                boolean[] result = new boolean[batch.length];
-                for(int i = 0; i < batch.length; i ++) {
-                    result[i] = batch[i] > 0;
+                throw sqle;
+            }
+            finally {
+                for(PreparedStatement pstmt : selects) {
+                    IOUtil.close(pstmt);
+                }
+                for(PreparedStatement pstmt : deletes) {
+                    IOUtil.close(pstmt);
+                }
+                if (status) {
+                    RepositoryUtil.setAutoCommit(conn, autoCommit);
                 }
-                return result;
             }
         }
         catch(SQLException sqle) {
-            String msg = "Execute sql:" + toString(sql, null) + " error";
+            String msg = "Execute sql:" + sql + " error";
             logger.error(msg, sqle);
             throw new RepositoryException(msg, sqle);
         }
+        for(int i = 0; i < n; i ++) {
+            result[i] = !status || deleted[Arrays.binarySearch(unique, ids[i])];
+        }
+        return result;
     }
 
     /**
-     * Update entity with specific options such as {force->true} to avoid cache
+     * Bind the ids of one chunk, as one array parameter or as the IN-list padded by repeating the last id
      *
-     * @param entity  Entity entity
-     * @param options Options
-     * @return Updated or not
-     * @throws RepositoryException SQL Exception or downstream exceptions
+     * @param conn Connection
+     * @param pstmt PreparedStatement
+     * @param array Bind as array or not
+     * @param ids Ids
+     * @param start Index of the first id
+     * @param count Number of the ids
+     * @param size Size of the IN-list
+     * @throws SQLException SQL Exception
      */
-    @Override
-    public boolean update(E entity, Parameters options) throws RepositoryException {
-        String updateSQL = getUpdateSQL();
-
-        try (Connection conn = getConnection()) {
-            try (PreparedStatement pstmt = conn.prepareStatement(updateSQL)) {
-                fillForUpdate(pstmt, entity);
-                return pstmt.executeUpdate() >= 1;
+    private static void bindIds(Connection conn, PreparedStatement pstmt, boolean array, long[] ids,
+                                int start, int count, int size) throws SQLException {
+        if (array) {
+            Long[] values = new Long[count];
+            for(int i = 0; i < count; i ++) {
+                values[i] = ids[start + i];
             }
+            pstmt.setArray(1, conn.createArrayOf("bigint", values));
         }
-        catch(SQLException sqle) {
-            String msg = "Execute sql:" + toString(updateSQL, null) + " error";
-            logger.error(msg, sqle);
-            throw new RepositoryException(msg, sqle);
+        else {
+            for(int i = 0; i < size; i ++) {
+                pstmt.setLong(i + 1, ids[start + Math.min(i, count - 1)]);
+            }
         }
     }
 
-    protected Object convert(Object value) {
-        if (value instanceof Date) {
-            return new Timestamp(((Date)value).getTime());
-        }
-        return value;
-    }
+    /**
+     * Bind the parameters of the item at given index in batch
+     */
+    protected interface BatchBinder {
 
+        void bind(PreparedStatement pstmt, int index) throws SQLException, RepositoryException;
+    }
 
-    protected PropertyInfo fillForUpdate(PreparedStatement pstmt, E entity) throws SQLException {
-        int i = 1;
+    /**
+     * Execute the items in batches of "batch_size", every batch is sent by executeBatch and then cleared,
+     * so the driver doesn't keep all the items in memory.
+     * If "batch_commit" is true, every batch is committed on its own.
+     *
+     * @param conn Connection
+     * @param sql SQL
+     * @param count Number of items
+     * @param options Options
+     * @param binder Binder of the item
+     * @return Statuses of the items
+     * @throws SQLException SQL Exception
+     * @throws RepositoryException Downstream exceptions
+     */
+    protected boolean[] executeBatch(Connection conn, String sql, int count, Parameters options, BatchBinder binder)
+            throws SQLException, RepositoryException {
+        return executeBatch(conn, sql, count, options, binder, null);
+    }
 
-        for(PropertyInfo propertyInfo: beanInfo.getProperties()) {
-            if (propertyInfo.isReadable()) {
-                String name = propertyInfo.getName();
-                if (!"id".equalsIgnoreCase(name)) {
-                    pstmt.setObject(i++, convert(propertyInfo.invokeGetter(entity)));
+    /**
+     * Execute the items in batches and read the generated keys of every batch.
+     * If the driver can't return the keys of a whole batch, the items are executed one by one on the same statement,
+     * "batch_size" and "batch_commit" are still applied for committing.
+     *
+     * @param conn Connection
+     * @param sql SQL
+     * @param count Number of items
+     * @param options Options
+     * @param binder Binder of the item
+     * @param keysReader Reader of the generated keys, null if the keys are not required
+     * @return Statuses of the items
+     * @throws SQLException SQL Exception
+     * @throws RepositoryException Downstream exceptions
+     */
+    protected boolean[] executeBatch(Connection conn, String sql, int count, Parameters options, BatchBinder binder,
+                                     GeneratedKeysReader keysReader) throws SQLException, RepositoryException {
+        int size = getBatchSize(options);
+        boolean commit = getBooleanOption(options, OPTION_BATCH_COMMIT);
+        boolean batch = keysReader == null || dialect.supportsBatchGeneratedKeys();
+        boolean autoCommit = commit && RepositoryUtil.setAutoCommit(conn, false);
+        boolean[] result = new boolean[count];
+        try (PreparedStatement pstmt = keysReader != null ? prepareForGeneratedKeys(conn, sql) : conn.prepareStatement(sql)) {
+            int start = 0;
+            for(int i = 0; i < count; i ++) {
+                binder.bind(pstmt, i);
+                if (batch) {
+                    pstmt.addBatch();
                 }
                 else {
-                    idPropertyInfo = propertyInfo;
+                    result[i] = pstmt.executeUpdate() > 0;
+                    readGeneratedKeys(pstmt, keysReader, i, i + 1);
+                }
+                if (i + 1 - start == size || i == count - 1) {
+                    if (batch) {
+                        int[] rows = pstmt.executeBatch();
+                        pstmt.clearBatch();
+                        for(int j = 0; j < rows.length; j ++) {
+                            result[start + j] = rows[j] > 0 || rows[j] == Statement.SUCCESS_NO_INFO;
+                        }
+                        if (keysReader != null) {
+                            readGeneratedKeys(pstmt, keysReader, start, i + 1);
+                        }
+                    }
+                    if (commit) {
+                        conn.commit();
+                    }
+                    start = i + 1;
                 }
             }
         }
-        if (idPropertyInfo == null) {
-            throw new IllegalStateException("No 'id'?");
+        catch(SQLException | RepositoryException e) {
+            if (commit) {
+                RepositoryUtil.rollback(conn);
+            }
+            throw e;
         }
-        else {
-            int id = idPropertyInfo.invokeGetter(entity);
-            if (id == 0) {
-                throw new IllegalStateException("The id is zero");
+        finally {
+            if (commit) {
+                RepositoryUtil.setAutoCommit(conn, autoCommit);
             }
-            pstmt.setObject(i, id);
         }
-        return idPropertyInfo;
+        return result;
     }
 
     /**
-     * Update entities with specific options such as {batch_size->100} to avoid cache
-     *
-     * @param entities  Entity entity
-     * @param options Options
-     * @return Statuses of update
-     * @throws RepositoryException SQL Exception or downstream exceptions
+     * Read the generated keys of the items
      */
-    @Override
-    public boolean[] update(List<E> entities, Parameters options) throws RepositoryException {
-        String updateSQL = getUpdateSQL();
+    protected interface GeneratedKeysReader {
+
+        /**
+         * Read the keys of the items from start (inclusive) to end (exclusive)
+         *
+         * @param keys Generated keys
+         * @param start Index of the first item
+         * @param end Index after the last item
+         * @throws SQLException SQL Exception
+         */
+        void read(ResultSet keys, int start, int end) throws SQLException;
+    }
 
-        try (Connection conn = getConnection()) {
-            boolean[] result = new boolean[entities.size()];
-            try (PreparedStatement pstmt = conn.prepareStatement(updateSQL)) {
-                for(E entity: entities) {
-                    fillForUpdate(pstmt, entity);
-                    pstmt.addBatch();
-                }
-                int[] batchResult = pstmt.executeBatch();
-                int i = 0;
-                for (int r : batchResult) {
-                    result[i] = r > 0;
-                }
-                return result;
+    private void readGeneratedKeys(PreparedStatement pstmt, GeneratedKeysReader keysReader, int start, int end)
+            throws SQLException {
+        try (ResultSet keys = pstmt.getGeneratedKeys()) {
+            if (keys != null) {
+                keysReader.read(keys, start, end);
             }
         }
-        catch(SQLException sqle) {
-            String msg = "Execute sql:" + toString(updateSQL, null) + " error";
-            logger.error(msg, sqle);
-            throw new RepositoryException(msg, sqle);
-        }
     }
 
     /**
-     * Update entity with specific options such as {force->true} to avoid cache
+     * Prepare the INSERT which returns the ids generated by the identity column
      *
-     * @param entity  Entity entity
-     * @param options Options
-     * @return Updated or not
-     * @throws RepositoryException SQL Exception or downstream exceptions
+     * @param conn Connection
+     * @param sql Insert SQL
+     * @return PreparedStatement
+     * @throws SQLException SQL Exception
      */
-    @Override
-    public int save(E entity, Parameters options) throws RepositoryException {
-        int id = idPropertyInfo != null ? idPropertyInfo.invokeGetter(entity) : 0;
-        if (id == 0) {
-            //Create
-            return create(entity, options) ? 1 : -1;
-        } else {
-            //Update
-            return update(entity, options) ? 0 : -1;
+    protected PreparedStatement prepareForGeneratedKeys(Connection conn, String sql) throws SQLException {
+        if (dialect.useGeneratedKeyColumnNames()) {
+            return conn.prepareStatement(sql, ID_COLUMNS);
         }
+        return conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
     }
 
+    private Map<String, String[]> multiRowInsertSQLs = new ConcurrentHashMap<>();
+
     /**
-     * Update entities with specific options such as {batch_size->100} to avoid cache
+     * Insert the entities by multi-row INSERT statements.
      *
-     * @param entities  Entities
+     * The row counts of the statements are powers of two up to "rows_per_insert",
+     * every batch of "batch_size" is split into the largest statements first, for example 100 rows with 64 rows per insert
+     * are inserted by 64 + 32 + 4. So only a few statements are generated and cached for every INSERT.
+     *
+     * @param conn Connection
+     * @param sql Single row INSERT
+     * @param entities Entities
      * @param options Options
-     * @return Statuses of update
-     * @throws RepositoryException SQL Exception or downstream exceptions
+     * @return Statuses of creation
+     * @throws SQLException SQL Exception
      */
-    @Override
-    public boolean[] save(List<E> entities, Parameters options) throws RepositoryException {
-        List<E> toCreate = new ArrayList<>(entities.size());
-        List<E> toUpdate = new ArrayList<>(entities.size());
-        boolean[] result = new boolean[entities.size()];
-        int i = 0;
-        for(E entity: entities) {
-            int id = idPropertyInfo != null ? idPropertyInfo.invokeGetter(entity) : 0;
-            if (id == 0) {
-                toCreate.add(entity);
-                result[i++] = true;
+    protected boolean[] executeMultiRowInsert(Connection conn, String sql, List<E> entities, Parameters options)
+            throws SQLException {
+        int count = entities.size();
+        int size = getBatchSize(options);
+        int maxRows = Integer.highestOneBit(getRowsPerInsert(options, sql));
+        boolean commit = getBooleanOption(options, OPTION_BATCH_COMMIT);
+        boolean autoCommit = commit && RepositoryUtil.setAutoCommit(conn, false);
+        boolean[] result = new boolean[count];
+        String[] sqls = multiRowInsertSQLs.computeIfAbsent(sql, k -> new String[Integer.SIZE]);
+        PreparedStatement[] statements = new PreparedStatement[Integer.SIZE];
+        try {
+            for(int start = 0; start < count; ) {
+                int end = (int)Math.min((long)start + size, count);
+                while (start < end) {
+                    int rows = Math.min(maxRows, Integer.highestOneBit(end - start));
+                    int bucket = Integer.numberOfTrailingZeros(rows);
+                    PreparedStatement pstmt = statements[bucket];
+                    if (pstmt == null) {
+                        if (sqls[bucket] == null) {
+                            sqls[bucket] = rows == 1 ? sql : dialect.getMultiRowInsert(sql, rows);
+                        }
+                        pstmt = statements[bucket] = conn.prepareStatement(sqls[bucket]);
+                    }
+                    int index = 1;
+                    for(int i = start; i < start + rows; i ++) {
+                        index = fillForInsert(pstmt, index, entities.get(i));
+                    }
+                    boolean created = pstmt.executeUpdate() >= rows;
+                    for(int i = start; i < start + rows; i ++) {
+                        result[i] = created;
+                    }
+                    start += rows;
+                }
+                if (commit) {
+                    conn.commit();
+                }
             }
-            else {
-                toUpdate.add(entity);
-                result[i++] = false;
+        }
+        catch(SQLException e) {
+            if (commit) {
+                RepositoryUtil.rollback(conn);
             }
+            throw e;
         }
-
-        boolean[] created = create(toCreate, options);
-        boolean[] updated = update(toUpdate, options);
-        int j = 0, k = 0;
-        for(i = 0; i < result.length; i ++) {
-            if (result[i]) { //Create
-                result[i++] = created[j++];
+        finally {
+            for(PreparedStatement pstmt : statements) {
+                IOUtil.close(pstmt);
             }
-            else {
-                result[i++] = updated[k++];
+            if (commit) {
+                RepositoryUtil.setAutoCommit(conn, autoCommit);
             }
         }
         return result;
     }
 
     /**
-     * Delete entity by ids
+     * Number of rows in one multi-row INSERT, it is limited by the maximum number of parameters
+     * and the maximum number of rows per insert of the database
      *
-     * @param ids Entity Id
-     * @return Deleted or not
-     * @throws RepositoryException SQL Exception or downstream exceptions
+     * @param options Options, "rows_per_insert" overrides the rows per insert of this repository
+     * @param sql Single row INSERT
+     * @return Rows per insert, 1 means multi-row INSERT is disabled
      */
-    @Override
-    public boolean[] deleteByIds(long... ids) throws RepositoryException {
-        String sql = "DELETE FROM " + tableName + " WHERE id=?" ;
-        try (Connection conn = getConnection()) {
-            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                for (long id : ids) {
-                    pstmt.setLong(1, id);
-                    pstmt.addBatch();
-                }
-                int[] result = pstmt.executeBatch();
-                boolean[] array = new boolean[result.length];
-                int i = 0;
-                for (int r : result) {
-                    array[i] = r > 0;
-                }
-                return array;
+    protected int getRowsPerInsert(Parameters options, String sql) {
+        int rows = options != null ? options.getInt(OPTION_ROWS_PER_INSERT, rowsPerInsert) : rowsPerInsert;
+        if (rows <= 1) {
+            return 1;
+        }
+        int columns = 0;
+        for(int i = sql.lastIndexOf(" VALUES "); i < sql.length(); i ++) {
+            if (sql.charAt(i) == '?') {
+                columns ++;
             }
         }
-        catch(SQLException sqle) {
-            String msg = "Execute sql:" + sql + " error";
-            logger.error(msg, sqle);
-            throw new RepositoryException(msg, sqle);
+        if (columns == 0) {
+            return 1;
         }
+        int maxRows = Math.min(dialect.getMaxRowsPerInsert(), dialect.getMaxParameters() / columns);
+        return Math.max(1, Math.min(rows, maxRows));
+    }
+
+    /**
+     * Number of items in one executeBatch
+     *
+     * @param options Options, "batch_size" overrides the batch size of this repository
+     * @return Batch size, Integer.MAX_VALUE if it isn't positive, that means all in one batch
+     */
+    protected int getBatchSize(Parameters options) {
+        int size = options != null ? options.getInt(OPTION_BATCH_SIZE, batchSize) : batchSize;
+        return size > 0 ? size : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Boolean option, false if it is absent.
+     * Parameters.getBoolean(String, boolean) converts the key rather than the value, so the value is converted here
+     *
+     * @param options Options
+     * @param name Name of the option
+     * @return Value of the option
+     */
+    private static boolean getBooleanOption(Parameters options, String name) {
+        return options != null && DataUtil.getBoolean(options.get(name), false);
     }
 
     /**
@@ -593,6 +2481,106 @@ public class JdbcRepository<E> implements Repository<E>, InitializableMBean {
         }
     }
 
+    private int fetchSize = 1000;
+
+    /**
+     * Default fetch size of stream and forEach
+     *
+     * @return Fetch size
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    private int batchSize = 1000;
+
+    /**
+     * Default batch size of create, update and save, "batch_size" in options overrides it,
+     * it is the number of ids in one "id = ANY(?)" of deleteByIds
+     *
+     * @return Batch size
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    private boolean dirtyTracking = false;
+
+    /**
+     * Whether the loaded entities are tracked by snapshots, so update only sets the modified columns.
+     * The snapshots are held weakly by the identities of the entities, an entity is tracked until it is collected.
+     *
+     * @return Dirty tracking or not
+     */
+    public boolean isDirtyTracking() {
+        return dirtyTracking;
+    }
+
+    public void setDirtyTracking(boolean dirtyTracking) {
+        this.dirtyTracking = dirtyTracking;
+    }
+
+    private boolean upsert = true;
+
+    /**
+     * Whether save updates the entities with ids by the native upsert of the database,
+     * so the entities with ids assigned by the client are inserted if they don't exist.
+     * The databases with MERGE can't tell the created row from the updated one, the upserted rows are reported as updated(0).
+     * MySQL reports the created row(1) only if {@link #isUseAffectedRows()} is set for a connection with "useAffectedRows=true",
+     * otherwise both are reported as updated, since an unchanged row counts 1 as a created row does.
+     * It is not used for identity tables if the database doesn't accept explicit ids in the identity column.
+     *
+     * @return Upsert or not
+     */
+    public boolean isUpsert() {
+        return upsert;
+    }
+
+    public void setUpsert(boolean upsert) {
+        this.upsert = upsert;
+    }
+
+    private boolean useAffectedRows = false;
+
+    /**
+     * Whether the driver reports the affected rows instead of the found rows,
+     * for example, MySQL Connector/J with "useAffectedRows=true",
+     * then the upsert can tell the created row from the updated one by the update count
+     *
+     * @return Use affected rows or not
+     */
+    public boolean isUseAffectedRows() {
+        return useAffectedRows;
+    }
+
+    public void setUseAffectedRows(boolean useAffectedRows) {
+        this.useAffectedRows = useAffectedRows;
+    }
+
+    private int rowsPerInsert = 1;
+
+    /**
+     * Default number of rows in one multi-row INSERT of batch create, "rows_per_insert" in options overrides it.
+     * It is 1 by default, that means every row is one INSERT in the JDBC batch.
+     *
+     * @return Rows per insert
+     */
+    public int getRowsPerInsert() {
+        return rowsPerInsert;
+    }
+
+    public void setRowsPerInsert(int rowsPerInsert) {
+        this.rowsPerInsert = rowsPerInsert;
+    }
+
     private boolean initialized = false;
 
     /**
@@ -632,6 +2620,32 @@ public class JdbcRepository<E> implements Repository<E>, InitializableMBean {
             throw new IllegalStateException("No data source was bound to this repository for table:" + tableName);
         }
 
+        initEntity();
+        this.dialect = RepositoryUtil.getDialect(dataSource);
+        if (isIdentity() && idAccessor != null) {
+            List<PropertyAccessor> insert = new ArrayList<>(Arrays.asList(insertAccessors));
+            insert.remove(idAccessor);
+            insertAccessors = insert.toArray(new PropertyAccessor[0]);
+        }
+        if (idAllocator == null && !isIdentity() && dialect.supportsSequence()) {
+            String sequenceName = tableName + "_id_seq";
+            idAllocator = idBlockSize > 1 ? new PooledIdAllocator(dialect, sequenceName, idBlockSize)
+                    : new SequenceIdAllocator(dialect, sequenceName);
+        }
+        if (idAllocator instanceof PooledIdAllocator) {
+            try (Connection conn = dataSource.getConnection()) {
+                ((PooledIdAllocator) idAllocator).checkIncrement(conn);
+            }
+            catch(SQLException sqle) {
+                throw new IllegalStateException("Get connection of table:" + tableName + " error", sqle);
+            }
+        }
+    }
+
+    /**
+     * Resolve the entity class and the column to property mapping
+     */
+    protected void initEntity() {
         if (entityType == null) {
             throw new IllegalStateException("No entity type set");
         }
@@ -649,8 +2663,30 @@ public class JdbcRepository<E> implements Repository<E>, InitializableMBean {
             this.tableName = NamingConvention.format(entityClass.getSimpleName());
         }
         this.beanInfo = BeanInfoUtil.getBeanInfo(entityClass, true);
-        this.idPropertyInfo = beanInfo.getProperty("id");
-        this.dialect = RepositoryUtil.getDialect(dataSource);
+
+        Map<String, PropertyAccessor> accessors = new HashMap<>();
+        List<PropertyAccessor> insert = new ArrayList<>();
+        List<PropertyAccessor> update = new ArrayList<>();
+        PropertyAccessor id = null;
+        for(PropertyInfo propertyInfo: beanInfo.getProperties()) {
+            PropertyAccessor accessor = PropertyAccessor.of(propertyInfo);
+            if ("id".equalsIgnoreCase(propertyInfo.getName())) {
+                id = accessor;
+            }
+            if (propertyInfo.isWritable()) {
+                accessors.put(accessor.getColumnName().toLowerCase(), accessor);
+            }
+            if (propertyInfo.isReadable()) {
+                insert.add(accessor);
+                if (accessor != id) {
+                    update.add(accessor);
+                }
+            }
+        }
+        this.idAccessor = id;
+        this.columnAccessors = accessors;
+        this.insertAccessors = insert.toArray(new PropertyAccessor[0]);
+        this.updateAccessors = update.toArray(new PropertyAccessor[0]);
     }
 
     public RdbmsDialect getDialect() {
@@ -0,0 +1,246 @@
+package org.femtoframework.orm.ext;
+
+import org.femtoframework.orm.RepositoryException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Parallel scan over the partitions of a table
+ *
+ * Every partition is read by its own cursor, so it holds its own pooled connection, on its own thread.
+ * The rows are either passed to a thread safe consumer in the scanning threads,
+ * or merged into one iterator through a bounded queue, the scanning threads wait when the queue is full.
+ *
+ * @param <E> Entity
+ */
+public class ParallelScan<E> implements Iterator<E>, AutoCloseable {
+
+    private static Logger logger = LoggerFactory.getLogger(ParallelScan.class);
+
+    /**
+     * One partition of the scan
+     *
+     * @param <E> Entity
+     */
+    public interface Partition<E> {
+
+        /**
+         * Open the cursor of this partition
+         *
+         * @return Cursor
+         * @throws RepositoryException SQL Exception or downstream exceptions
+         */
+        Cursor<E> open() throws RepositoryException;
+    }
+
+    private static final Object END = new Object();
+
+    private static final AtomicInteger SCAN_ID = new AtomicInteger(0);
+
+    private List<Partition<E>> partitions;
+    private ExecutorService executor;
+    private BlockingQueue<Object> queue;
+
+    private volatile boolean closed = false;
+    private AtomicReference<Throwable> error = new AtomicReference<>();
+
+    private boolean started = false;
+    private int running;
+    private Object next;
+
+    /**
+     * Constructor
+     *
+     * @param name Name of the scan, used in thread names
+     * @param partitions Partitions, each one is scanned in its own thread
+     * @param queueSize Capacity of the merging queue for iterator and stream
+     */
+    public ParallelScan(String name, List<Partition<E>> partitions, int queueSize) {
+        this.partitions = partitions;
+        this.queue = new ArrayBlockingQueue<>(Math.max(queueSize, 1));
+        String prefix = "scan-" + name + "-" + SCAN_ID.incrementAndGet() + "-";
+        AtomicInteger threadId = new AtomicInteger(0);
+        this.executor = Executors.newFixedThreadPool(Math.max(partitions.size(), 1), r -> {
+            Thread thread = new Thread(r, prefix + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Pass all entities to the consumer, the consumer is invoked concurrently in the scanning threads,
+     * so it must be thread safe. It returns after all partitions are scanned.
+     *
+     * @param consumer Thread safe consumer
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    public void forEach(Consumer<? super E> consumer) throws RepositoryException {
+        try {
+            List<Future<?>> futures = new ArrayList<>(partitions.size());
+            for (Partition<E> partition : partitions) {
+                futures.add(executor.submit(() -> scan(partition, consumer)));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                }
+                catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new RepositoryException("Interrupted while scanning", ie);
+                }
+                catch (ExecutionException ee) {
+                    fail(ee.getCause());
+                }
+            }
+            Throwable cause = error.get();
+            if (cause != null) {
+                throw toRepositoryException(cause);
+            }
+        }
+        finally {
+            close();
+        }
+    }
+
+    private void scan(Partition<E> partition, Consumer<? super E> consumer) {
+        if (closed) {
+            return;
+        }
+        try (Cursor<E> cursor = partition.open()) {
+            while (!closed && cursor.hasNext()) {
+                consumer.accept(cursor.next());
+            }
+        }
+        catch (Throwable t) {
+            fail(t);
+        }
+    }
+
+    private void fail(Throwable cause) {
+        if (error.compareAndSet(null, cause)) {
+            //Stop other partitions
+            closed = true;
+        }
+    }
+
+    private static RepositoryException toRepositoryException(Throwable cause) {
+        if (cause instanceof RepositoryException) {
+            return (RepositoryException) cause;
+        }
+        if (cause instanceof IllegalStateException && cause.getCause() instanceof SQLException) {
+            cause = cause.getCause();
+        }
+        logger.error("Parallel scan error", cause);
+        return new RepositoryException("Parallel scan error", cause);
+    }
+
+    private void start() {
+        started = true;
+        running = partitions.size();
+        for (Partition<E> partition : partitions) {
+            executor.submit(() -> {
+                scan(partition, this::put);
+                put(END);
+            });
+        }
+    }
+
+    private void put(Object item) {
+        try {
+            while (!queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+                if (closed) {
+                    //Nobody reads it any more
+                    return;
+                }
+            }
+        }
+        catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!started) {
+            start();
+        }
+        while (next == null) {
+            Throwable cause = error.get();
+            if (cause != null) {
+                close();
+                throw new IllegalStateException("Parallel scan error", cause);
+            }
+            if (running == 0 || closed) {
+                close();
+                return false;
+            }
+            try {
+                //Poll with timeout, the scanning threads don't put anything after failure
+                Object item = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (item == null) {
+                    continue;
+                }
+                if (item == END) {
+                    running --;
+                }
+                else {
+                    next = item;
+                }
+            }
+            catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new IllegalStateException("Interrupted while scanning", ie);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more rows");
+        }
+        E entity = (E) next;
+        next = null;
+        return entity;
+    }
+
+    /**
+     * Stream merging all partitions, the order is not defined, closing the stream stops the scan
+     *
+     * @return Stream
+     */
+    public Stream<E> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this,
+                Spliterator.NONNULL), false).onClose(this::close);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        queue.clear();
+        executor.shutdown();
+    }
+}
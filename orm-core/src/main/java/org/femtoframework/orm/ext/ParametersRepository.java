@@ -0,0 +1,436 @@
+package org.femtoframework.orm.ext;
+
+import org.femtoframework.orm.RepositoryException;
+import org.femtoframework.parameters.Parameters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Type safe repository, the rows are Parameters so it doesn't need any POJO.
+ *
+ * The rows are RowParameters, every ResultSet shape has one shared column index,
+ * so hydrating a row only allocates the Object[] of the values.
+ * The column names are in lower case.
+ *
+ * The columns to insert or update are the keys of the Parameters, the statements are cached by the columns.
+ * In batch, the entities are grouped by their columns, so every group shares one statement.
+ * The keys must be the columns of the table, which are read from DatabaseMetaData,
+ * or plain identifiers if the database doesn't tell the columns.
+ */
+public class ParametersRepository extends JdbcRepository<Parameters> {
+
+    private static Logger logger = LoggerFactory.getLogger(ParametersRepository.class);
+
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+    private Set<String> tableColumns = Collections.emptySet();
+
+    private Map<String, ShapeMapping> shapeMappings = new ConcurrentHashMap<>();
+
+    private Map<String, String> insertSQLs = new ConcurrentHashMap<>();
+
+    private Map<String, String> updateSQLs = new ConcurrentHashMap<>();
+
+    private Map<String, UpsertStatement> upsertStatements = new ConcurrentHashMap<>();
+
+    /**
+     * No upsert statement, for example, the dialect doesn't support
+     */
+    private static final UpsertStatement NO_UPSERT = new UpsertStatement(null, new int[0]);
+
+    /**
+     * Row mapping which creates RowParameters of the shape
+     */
+    protected static class ShapeMapping extends RowMapping {
+
+        private final RowParameters.Shape shape;
+
+        ShapeMapping(RowParameters.Shape shape) {
+            super(new int[0], new PropertyAccessor[0]);
+            this.shape = shape;
+        }
+
+        public RowParameters newRow(ResultSet rs) throws SQLException {
+            Object[] values = new Object[shape.size()];
+            for(int i = 0; i < values.length; i ++) {
+                values[i] = rs.getObject(i + 1);
+            }
+            return new RowParameters(shape, values);
+        }
+
+        @Override
+        public int size() {
+            return shape.size();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public ParametersRepository() {
+        setEntityClass((Class) Parameters.class);
+    }
+
+    /**
+     * No entity to resolve, the columns of the table are loaded to check the keys of the Parameters
+     */
+    @Override
+    protected void initEntity() {
+        if (getTableName() == null) {
+            throw new IllegalStateException("No table name set");
+        }
+        tableColumns = loadColumns();
+    }
+
+    /**
+     * Columns of the table in lower case, the table name is in the case which the database stores the identifiers
+     *
+     * @return Columns, empty if the database doesn't tell
+     */
+    protected Set<String> loadColumns() {
+        String tableName = getTableName();
+        try (Connection conn = getDataSource().getConnection()) {
+            DatabaseMetaData metaData = conn.getMetaData();
+            String name = tableName;
+            if (metaData.storesUpperCaseIdentifiers()) {
+                name = name.toUpperCase();
+            }
+            else if (metaData.storesLowerCaseIdentifiers()) {
+                name = name.toLowerCase();
+            }
+            int dot = name.lastIndexOf('.');
+            Set<String> columns = new HashSet<>();
+            try (ResultSet rs = metaData.getColumns(null, dot > 0 ? name.substring(0, dot) : null,
+                    name.substring(dot + 1), null)) {
+                while (rs.next()) {
+                    columns.add(rs.getString("COLUMN_NAME").toLowerCase());
+                }
+            }
+            return columns;
+        }
+        catch(SQLException sqle) {
+            logger.error("Retrieve the columns of table:" + tableName + " error", sqle);
+            throw new IllegalStateException("Retrieve the columns of table:" + tableName + " error", sqle);
+        }
+    }
+
+    /**
+     * The keys are pasted into the SQL as the columns, so they must be the columns of the table
+     *
+     * @param columns Keys of the Parameters
+     * @throws IllegalArgumentException the key is not a column of the table
+     */
+    protected void checkColumns(String[] columns) {
+        for(String column : columns) {
+            boolean valid = tableColumns.isEmpty() ? IDENTIFIER.matcher(column).matches()
+                    : tableColumns.contains(column.toLowerCase());
+            if (!valid) {
+                throw new IllegalArgumentException("No such column:" + column + " in table:" + getTableName());
+            }
+        }
+    }
+
+    /**
+     * Cached statement of the columns, the cache is bounded by MAX_CACHED_STATEMENTS
+     *
+     * @param cache Cache
+     * @param columns Columns, they are checked before the statement is built
+     * @param builder Builder of the statement by the joined columns
+     * @param <S> Statement
+     * @return Statement
+     */
+    private <S> S getStatement(Map<String, S> cache, String[] columns, Function<String, S> builder) {
+        String key = String.join(",", columns);
+        S statement = cache.get(key);
+        if (statement == null) {
+            checkColumns(columns);
+            statement = builder.apply(key);
+            if (cache.size() < MAX_CACHED_STATEMENTS) {
+                cache.put(key, statement);
+            }
+        }
+        return statement;
+    }
+
+    @Override
+    protected Parameters newEntity(ResultSet rs, RowMapping mapping) throws Exception {
+        return ((ShapeMapping) mapping).newRow(rs);
+    }
+
+    @Override
+    protected RowMapping getRowMapping(ResultSet rs) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        String key = RowMapping.toShapeKey(metaData);
+        ShapeMapping mapping = shapeMappings.get(key);
+        if (mapping == null) {
+            String[] columns = new String[metaData.getColumnCount()];
+            for(int i = 0; i < columns.length; i ++) {
+                columns[i] = metaData.getColumnLabel(i + 1).toLowerCase();
+            }
+            mapping = new ShapeMapping(new RowParameters.Shape(columns));
+            shapeMappings.put(key, mapping);
+        }
+        return mapping;
+    }
+
+    /**
+     * The shape is always resolved from the ResultSetMetaData, so the labels are the real column names
+     *
+     * @param projection Column names in selecting sequence
+     * @return null
+     */
+    @Override
+    protected RowMapping getRowMapping(String[] projection) {
+        return null;
+    }
+
+    @Override
+    protected String toColumnName(String column) {
+        return column;
+    }
+
+    @Override
+    protected Object getColumnValue(Parameters entity, String column) {
+        return entity.get(column);
+    }
+
+    @Override
+    protected long getId(Parameters entity) {
+        Object id = entity.get("id");
+        return id instanceof Number ? ((Number)id).longValue() : 0;
+    }
+
+    @Override
+    protected boolean needsId(Parameters entity) {
+        return getIdAllocator() != null && getId(entity) == 0;
+    }
+
+    @Override
+    protected boolean needsGeneratedId(Parameters entity) {
+        return isIdentity() && getId(entity) == 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void setId(Parameters entity, long id) {
+        if (id != 0) {
+            entity.put("id", id);
+        }
+    }
+
+    /**
+     * Columns to insert, they are the keys in sorted sequence,
+     * "id" is included if it is allocated by the IdAllocator, it is excluded if it is generated by the identity column
+     *
+     * @param entity Entity
+     * @return Columns
+     */
+    protected String[] getInsertColumns(Parameters entity) {
+        List<String> columns = new ArrayList<>(entity.size() + 1);
+        boolean generated = needsGeneratedId(entity);
+        for(Object column : entity.keySet()) {
+            if (!generated || !"id".equalsIgnoreCase((String)column)) {
+                columns.add((String)column);
+            }
+        }
+        if (!entity.containsKey("id") && getIdAllocator() != null) {
+            columns.add("id");
+        }
+        String[] array = columns.toArray(new String[0]);
+        Arrays.sort(array);
+        return array;
+    }
+
+    /**
+     * Columns to update, they are the keys except "id" in sorted sequence
+     *
+     * @param entity Entity
+     * @return Columns
+     */
+    protected String[] getUpdateColumns(Parameters entity) {
+        List<String> columns = new ArrayList<>(entity.size());
+        for(Object column : entity.keySet()) {
+            if (!"id".equalsIgnoreCase((String)column)) {
+                columns.add((String)column);
+            }
+        }
+        String[] array = columns.toArray(new String[0]);
+        Arrays.sort(array);
+        return array;
+    }
+
+    @Override
+    protected String getInsertSQL(Parameters entity) {
+        String[] columns = getInsertColumns(entity);
+        return getStatement(insertSQLs, columns, key -> {
+            StringBuilder sb = new StringBuilder(128);
+            sb.append("INSERT INTO ").append(getTableName()).append(" (").append(key).append(") VALUES (");
+            for(int i = 0; i < columns.length; i ++) {
+                sb.append(i == 0 ? "?" : ",?");
+            }
+            return sb.append(')').toString();
+        });
+    }
+
+    @Override
+    protected String getUpdateSQL(Parameters entity) {
+        String[] columns = getUpdateColumns(entity);
+        if (columns.length == 0) {
+            throw new IllegalArgumentException("No column to update");
+        }
+        return getStatement(updateSQLs, columns, key -> {
+            StringBuilder sb = new StringBuilder(128);
+            sb.append("UPDATE ").append(getTableName()).append(" SET ");
+            for(int i = 0; i < columns.length; i ++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append(columns[i]).append("=?");
+            }
+            return sb.append(" WHERE id = ?").toString();
+        });
+    }
+
+    /**
+     * Columns to upsert, "id" and the columns to update
+     *
+     * @param entity Entity
+     * @return Columns
+     */
+    protected String[] getUpsertColumns(Parameters entity) {
+        String[] update = getUpdateColumns(entity);
+        String[] columns = new String[update.length + 1];
+        columns[0] = "id";
+        System.arraycopy(update, 0, columns, 1, update.length);
+        return columns;
+    }
+
+    @Override
+    protected UpsertStatement getUpsertStatement(Parameters entity) {
+        String[] columns = getUpsertColumns(entity);
+        UpsertStatement upsert = getStatement(upsertStatements, columns, key -> {
+            UpsertStatement statement = toUpsertStatement(columns);
+            return statement != null ? statement : NO_UPSERT;
+        });
+        return upsert != NO_UPSERT ? upsert : null;
+    }
+
+    @Override
+    protected void fillForUpsert(PreparedStatement pstmt, UpsertStatement upsert, Parameters entity) throws SQLException {
+        String[] columns = getUpsertColumns(entity);
+        for(int i = 0; i < upsert.getParameterCount(); i ++) {
+            pstmt.setObject(i + 1, convert(entity.get(columns[upsert.getColumn(i)])));
+        }
+    }
+
+    @Override
+    protected int fillForInsert(PreparedStatement pstmt, int index, Parameters entity) throws SQLException {
+        String[] columns = getInsertColumns(entity);
+        for(int i = 0; i < columns.length; i ++) {
+            pstmt.setObject(index ++, convert(entity.get(columns[i])));
+        }
+        return index;
+    }
+
+    @Override
+    protected PropertyAccessor fillForUpdate(PreparedStatement pstmt, Parameters entity) throws SQLException {
+        String[] columns = getUpdateColumns(entity);
+        for(int i = 0; i < columns.length; i ++) {
+            pstmt.setObject(i + 1, convert(entity.get(columns[i])));
+        }
+        long id = getId(entity);
+        if (id == 0) {
+            throw new IllegalStateException("The id is zero");
+        }
+        pstmt.setLong(columns.length + 1, id);
+        return null;
+    }
+
+    /**
+     * Batch operation on entities which share one statement
+     */
+    protected interface Batch {
+
+        boolean[] execute(List<Parameters> entities) throws RepositoryException;
+    }
+
+    /**
+     * Group the entities by the SQL, execute every group in batch and put the results back in the original sequence
+     *
+     * @param entities Entities
+     * @param sqlOf SQL of the entity
+     * @param batch Batch operation
+     * @return Results
+     * @throws RepositoryException SQL Exception or downstream exceptions
+     */
+    protected boolean[] executeBySQL(List<Parameters> entities, Function<Parameters, String> sqlOf, Batch batch)
+            throws RepositoryException {
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        for(int i = 0; i < entities.size(); i ++) {
+            Parameters entity = entities.get(i);
+            String sql = sqlOf.apply(entity);
+            groups.computeIfAbsent(sql, k -> new ArrayList<>()).add(i);
+        }
+        if (groups.size() <= 1) {
+            return batch.execute(entities);
+        }
+        boolean[] result = new boolean[entities.size()];
+        for(List<Integer> indexes : groups.values()) {
+            List<Parameters> group = new ArrayList<>(indexes.size());
+            for(int index : indexes) {
+                group.add(entities.get(index));
+            }
+            boolean[] groupResult = batch.execute(group);
+            for(int i = 0; i < groupResult.length; i ++) {
+                result[indexes.get(i)] = groupResult[i];
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean[] create(List<Parameters> entities, Parameters options) throws RepositoryException {
+        return executeBySQL(entities, this::getInsertSQL, group -> super.create(group, options));
+    }
+
+    @Override
+    public boolean[] update(List<Parameters> entities, Parameters options) throws RepositoryException {
+        return executeBySQL(entities, this::getUpdateSQL, group -> super.update(group, options));
+    }
+
+    @Override
+    protected boolean[] upsert(Connection conn, List<Parameters> entities, Parameters options)
+            throws SQLException, RepositoryException {
+        return executeBySQL(entities, entity -> {
+            UpsertStatement upsert = getUpsertStatement(entity);
+            return upsert != null ? upsert.getSql() : "";
+        }, group -> {
+            UpsertStatement upsert = getUpsertStatement(group.get(0));
+            if (upsert == null) {
+                return update(group, options);
+            }
+            try {
+                return super.upsert(conn, group, options);
+            }
+            catch(SQLException sqle) {
+                throw new RepositoryException("Execute sql:" + upsert.getSql() + " error", sqle);
+            }
+        });
+    }
+}
@@ -0,0 +1,120 @@
+package org.femtoframework.orm.ext;
+
+import org.femtoframework.orm.IdAllocator;
+import org.femtoframework.orm.RepositoryException;
+import org.femtoframework.orm.dialect.RdbmsDialect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pooled sequence id allocator, one sequence round trip allocates a block of ids.
+ *
+ * The sequence must be created with "INCREMENT BY blockSize", every value of the sequence is the lowest id of a block,
+ * so the ids are still unique with other writers calling the sequence directly.
+ * {@link #checkIncrement(Connection)} verifies the increment in the catalog, the repository calls it on init.
+ *
+ * Ids are taken from the current block by an atomic counter without lock. When the block runs out,
+ * the callers fetch a new block, if several callers fetch at the same time, the first block wins
+ * and the remaining ids of the others are skipped, it leaves gaps only.
+ */
+public class PooledIdAllocator implements IdAllocator {
+
+    private static Logger logger = LoggerFactory.getLogger(PooledIdAllocator.class);
+
+    private static final class Block {
+
+        private final AtomicLong next;
+        private final long last;
+
+        Block(long first, long last) {
+            this.next = new AtomicLong(first);
+            this.last = last;
+        }
+    }
+
+    private final IdAllocator sequence;
+    private final int blockSize;
+    private final AtomicReference<Block> current = new AtomicReference<>();
+
+    private String sequenceName;
+    private String incrementSQL;
+
+    public PooledIdAllocator(RdbmsDialect dialect, String sequenceName, int blockSize) {
+        this(new SequenceIdAllocator(dialect, sequenceName), blockSize);
+        this.sequenceName = sequenceName;
+        this.incrementSQL = dialect.getSequenceIncrement();
+    }
+
+    /**
+     * Pooled allocator on given sequence
+     *
+     * @param sequence Allocator which returns the lowest id of every block
+     * @param blockSize Number of ids in one block, it must be the increment of the sequence
+     */
+    public PooledIdAllocator(IdAllocator sequence, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Invalid block size:" + blockSize);
+        }
+        this.sequence = sequence;
+        this.blockSize = blockSize;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Check the increment of the sequence is the block size, otherwise the blocks overlap and the ids are duplicated.
+     * It is skipped if the allocator isn't created by the sequence name or the database can't tell the increment.
+     *
+     * @param conn Connection
+     * @throws IllegalStateException the increment is not the block size, or it can't be retrieved
+     */
+    public void checkIncrement(Connection conn) {
+        if (incrementSQL == null) {
+            return;
+        }
+        String name = sequenceName.substring(sequenceName.lastIndexOf('.') + 1);
+        try (PreparedStatement pstmt = conn.prepareStatement(incrementSQL)) {
+            pstmt.setString(1, name);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    logger.warn("No increment of sequence:" + sequenceName + " in the catalog, it must be " + blockSize);
+                    return;
+                }
+                long increment = rs.getLong(1);
+                if (increment != blockSize) {
+                    throw new IllegalStateException("The increment of sequence:" + sequenceName + " is " + increment
+                            + ", but the block size is " + blockSize);
+                }
+            }
+        }
+        catch(SQLException sqle) {
+            String msg = "Execute sql:" + incrementSQL + " error";
+            logger.error(msg, sqle);
+            throw new IllegalStateException(msg, sqle);
+        }
+    }
+
+    @Override
+    public long nextId(Connection conn) throws RepositoryException {
+        Block block = current.get();
+        if (block != null) {
+            long id = block.next.getAndIncrement();
+            if (id <= block.last) {
+                return id;
+            }
+        }
+        long first = sequence.nextId(conn);
+        //If another caller has installed its block, the rest of this block is dropped
+        current.compareAndSet(block, new Block(first + 1, first + blockSize - 1));
+        return first;
+    }
+}
@@ -0,0 +1,440 @@
+package org.femtoframework.orm.ext;
+
+import org.femtoframework.bean.info.PropertyInfo;
+import org.femtoframework.orm.TypeMapping;
+import org.femtoframework.text.NamingConvention;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandleProxies;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLType;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Property accessor backed by generated getter and setter
+ *
+ * The getter and setter are spun by LambdaMetafactory when the entity class is public and visible,
+ * otherwise they are MethodHandle proxies. If neither can be generated, it falls back to the reflective
+ * PropertyInfo.invokeGetter/invokeSetter.
+ *
+ * Values which don't match the property type are still set through PropertyInfo, so the data conversion
+ * keeps working as before.
+ *
+ * Properties in int, long, double and boolean are read and bound by the primitive ResultSet getters and
+ * PreparedStatement setters, so the values are never boxed.
+ */
+public class PropertyAccessor {
+
+    private static Logger logger = LoggerFactory.getLogger(PropertyAccessor.class);
+
+    private final PropertyInfo propertyInfo;
+    private final String columnName;
+    private final Class<?> type;
+    private final Class<?> boxedType;
+    private final SQLType sqlType;
+    private final Function<Object, Object> getter;
+    private final BiConsumer<Object, Object> setter;
+
+    protected PropertyAccessor(PropertyInfo propertyInfo) {
+        this.propertyInfo = propertyInfo;
+        this.columnName = NamingConvention.format(propertyInfo.getName());
+        this.type = propertyInfo.getTypeClass();
+        this.boxedType = MethodType.methodType(type).wrap().returnType();
+        this.sqlType = TypeMapping.toSQLType(type);
+        this.getter = propertyInfo.isReadable() ? toFunction(propertyInfo.getGetterMethod(), Function.class,
+                "apply", MethodType.methodType(Object.class, Object.class)) : null;
+        this.setter = propertyInfo.isWritable() ? toFunction(propertyInfo.getSetterMethod(), BiConsumer.class,
+                "accept", MethodType.methodType(void.class, Object.class, Object.class)) : null;
+    }
+
+    /**
+     * Create accessor for given property
+     *
+     * @param propertyInfo PropertyInfo
+     * @return PropertyAccessor
+     */
+    public static PropertyAccessor of(PropertyInfo propertyInfo) {
+        Class<?> type = propertyInfo.getTypeClass();
+        if (type == int.class) {
+            return new IntAccessor(propertyInfo);
+        }
+        else if (type == long.class) {
+            return new LongAccessor(propertyInfo);
+        }
+        else if (type == double.class) {
+            return new DoubleAccessor(propertyInfo);
+        }
+        else if (type == boolean.class) {
+            return new BooleanAccessor(propertyInfo);
+        }
+        return new PropertyAccessor(propertyInfo);
+    }
+
+    /**
+     * Whether the LambdaMetafactory can spin a class calling this method from this class loader
+     */
+    private static boolean isLinkable(Method method) {
+        Class<?> clazz = method.getDeclaringClass();
+        if (!Modifier.isPublic(clazz.getModifiers()) || !Modifier.isPublic(method.getModifiers())) {
+            return false;
+        }
+        try {
+            return Class.forName(clazz.getName(), false, PropertyAccessor.class.getClassLoader()) == clazz;
+        }
+        catch(ClassNotFoundException cnfe) {
+            return false;
+        }
+    }
+
+    /**
+     * Generate functional interface instance calling given getter or setter
+     *
+     * @param method Getter or setter
+     * @param functionType Functional interface
+     * @param name Method name of the functional interface
+     * @param samType Erased method type of the functional interface
+     * @return Instance of the functional interface, null if it can't be generated
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T toFunction(Method method, Class<?> functionType, String name, MethodType samType) {
+        if (method == null) {
+            return null;
+        }
+        try {
+            if (!Modifier.isPublic(method.getModifiers()) || !Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+                method.setAccessible(true);
+            }
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle handle = lookup.unreflect(method);
+            if (isLinkable(method)) {
+                try {
+                    MethodType instantiatedType = samType.changeParameterType(0, method.getDeclaringClass());
+                    for(int i = 1; i < samType.parameterCount(); i ++) {
+                        if (samType.parameterType(i) == Object.class) {
+                            instantiatedType = instantiatedType.changeParameterType(i,
+                                    MethodType.methodType(handle.type().parameterType(i)).wrap().returnType());
+                        }
+                    }
+                    if (samType.returnType() == Object.class) {
+                        instantiatedType = instantiatedType.changeReturnType(handle.type().wrap().returnType());
+                    }
+                    CallSite site = LambdaMetafactory.metafactory(lookup, name,
+                            MethodType.methodType(functionType), samType, handle, instantiatedType);
+                    return (T) site.getTarget().invoke();
+                }
+                catch(Throwable t) {
+                    logger.debug("Generating accessor by LambdaMetafactory error:" + method, t);
+                }
+            }
+            return (T) MethodHandleProxies.asInterfaceInstance(functionType, handle.asType(samType));
+        }
+        catch(Throwable t) {
+            logger.warn("Generating accessor error, falls back to reflection:" + method, t);
+            return null;
+        }
+    }
+
+    /**
+     * Get property value
+     *
+     * @param bean Bean
+     * @return Value, the default value of the property if the value is null
+     */
+    public Object get(Object bean) {
+        if (getter == null) {
+            return propertyInfo.invokeGetter(bean);
+        }
+        Object value = getter.apply(bean);
+        return value != null ? value : propertyInfo.getExpectedDefaultValue();
+    }
+
+    /**
+     * Set property value
+     *
+     * @param bean Bean
+     * @param value Value, it will be converted to the property type if it isn't
+     */
+    public void set(Object bean, Object value) {
+        if (setter != null && (value == null ? !type.isPrimitive() : boxedType.isInstance(value))) {
+            setter.accept(bean, value);
+        }
+        else {
+            propertyInfo.invokeSetter(bean, value);
+        }
+    }
+
+    /**
+     * Read the column from current row into the property
+     *
+     * @param bean Bean
+     * @param rs ResultSet
+     * @param column Column index
+     * @throws SQLException SQL Exception
+     */
+    public void read(Object bean, ResultSet rs, int column) throws SQLException {
+        set(bean, rs.getObject(column));
+    }
+
+    /**
+     * Bind the property value as parameter
+     *
+     * @param bean Bean
+     * @param pstmt PreparedStatement
+     * @param index Parameter index
+     * @throws SQLException SQL Exception
+     */
+    public void bind(Object bean, PreparedStatement pstmt, int index) throws SQLException {
+        bindObject(pstmt, index, get(bean));
+    }
+
+    /**
+     * Bind object value by its type
+     *
+     * @param pstmt PreparedStatement
+     * @param index Parameter index
+     * @param value Value which has been converted to JDBC type
+     * @throws SQLException SQL Exception
+     */
+    public void bindObject(PreparedStatement pstmt, int index, Object value) throws SQLException {
+        if (value == null) {
+            if (sqlType != null) {
+                pstmt.setNull(index, sqlType.getVendorTypeNumber());
+            }
+            else {
+                pstmt.setObject(index, null);
+            }
+        }
+        else if (value instanceof String) {
+            pstmt.setString(index, (String)value);
+        }
+        else if (value instanceof Integer) {
+            pstmt.setInt(index, (Integer)value);
+        }
+        else if (value instanceof Long) {
+            pstmt.setLong(index, (Long)value);
+        }
+        else {
+            pstmt.setObject(index, value);
+        }
+    }
+
+    /**
+     * Whether the property is read and bound without boxing
+     *
+     * @return Primitive or not
+     */
+    public boolean isPrimitive() {
+        return false;
+    }
+
+    /**
+     * Whether the getter and setter are generated
+     *
+     * @return Generated or not
+     */
+    public boolean isGenerated() {
+        return (getter != null || !propertyInfo.isReadable()) && (setter != null || !propertyInfo.isWritable());
+    }
+
+    public PropertyInfo getPropertyInfo() {
+        return propertyInfo;
+    }
+
+    public String getName() {
+        return propertyInfo.getName();
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    public SQLType getSqlType() {
+        return sqlType;
+    }
+
+    static class IntAccessor extends PropertyAccessor {
+
+        private final ToIntFunction<Object> intGetter;
+        private final ObjIntConsumer<Object> intSetter;
+
+        IntAccessor(PropertyInfo propertyInfo) {
+            super(propertyInfo);
+            this.intGetter = propertyInfo.isReadable() ? toFunction(propertyInfo.getGetterMethod(), ToIntFunction.class,
+                    "applyAsInt", MethodType.methodType(int.class, Object.class)) : null;
+            this.intSetter = propertyInfo.isWritable() ? toFunction(propertyInfo.getSetterMethod(), ObjIntConsumer.class,
+                    "accept", MethodType.methodType(void.class, Object.class, int.class)) : null;
+        }
+
+        public void read(Object bean, ResultSet rs, int column) throws SQLException {
+            int value = rs.getInt(column);
+            if (!rs.wasNull()) {
+                if (intSetter != null) {
+                    intSetter.accept(bean, value);
+                }
+                else {
+                    set(bean, value);
+                }
+            }
+        }
+
+        public void bind(Object bean, PreparedStatement pstmt, int index) throws SQLException {
+            if (intGetter != null) {
+                pstmt.setInt(index, intGetter.applyAsInt(bean));
+            }
+            else {
+                super.bind(bean, pstmt, index);
+            }
+        }
+
+        public boolean isPrimitive() {
+            return true;
+        }
+    }
+
+    static class LongAccessor extends PropertyAccessor {
+
+        private final ToLongFunction<Object> longGetter;
+        private final ObjLongConsumer<Object> longSetter;
+
+        LongAccessor(PropertyInfo propertyInfo) {
+            super(propertyInfo);
+            this.longGetter = propertyInfo.isReadable() ? toFunction(propertyInfo.getGetterMethod(), ToLongFunction.class,
+                    "applyAsLong", MethodType.methodType(long.class, Object.class)) : null;
+            this.longSetter = propertyInfo.isWritable() ? toFunction(propertyInfo.getSetterMethod(), ObjLongConsumer.class,
+                    "accept", MethodType.methodType(void.class, Object.class, long.class)) : null;
+        }
+
+        public void read(Object bean, ResultSet rs, int column) throws SQLException {
+            long value = rs.getLong(column);
+            if (!rs.wasNull()) {
+                if (longSetter != null) {
+                    longSetter.accept(bean, value);
+                }
+                else {
+                    set(bean, value);
+                }
+            }
+        }
+
+        public void bind(Object bean, PreparedStatement pstmt, int index) throws SQLException {
+            if (longGetter != null) {
+                pstmt.setLong(index, longGetter.applyAsLong(bean));
+            }
+            else {
+                super.bind(bean, pstmt, index);
+            }
+        }
+
+        public boolean isPrimitive() {
+            return true;
+        }
+    }
+
+    static class DoubleAccessor extends PropertyAccessor {
+
+        private final ToDoubleFunction<Object> doubleGetter;
+        private final ObjDoubleConsumer<Object> doubleSetter;
+
+        DoubleAccessor(PropertyInfo propertyInfo) {
+            super(propertyInfo);
+            this.doubleGetter = propertyInfo.isReadable() ? toFunction(propertyInfo.getGetterMethod(), ToDoubleFunction.class,
+                    "applyAsDouble", MethodType.methodType(double.class, Object.class)) : null;
+            this.doubleSetter = propertyInfo.isWritable() ? toFunction(propertyInfo.getSetterMethod(), ObjDoubleConsumer.class,
+                    "accept", MethodType.methodType(void.class, Object.class, double.class)) : null;
+        }
+
+        public void read(Object bean, ResultSet rs, int column) throws SQLException {
+            double value = rs.getDouble(column);
+            if (!rs.wasNull()) {
+                if (doubleSetter != null) {
+                    doubleSetter.accept(bean, value);
+                }
+                else {
+                    set(bean, value);
+                }
+            }
+        }
+
+        public void bind(Object bean, PreparedStatement pstmt, int index) throws SQLException {
+            if (doubleGetter != null) {
+                pstmt.setDouble(index, doubleGetter.applyAsDouble(bean));
+            }
+            else {
+                super.bind(bean, pstmt, index);
+            }
+        }
+
+        public boolean isPrimitive() {
+            return true;
+        }
+    }
+
+    /**
+     * There is no ObjBooleanConsumer in JDK
+     */
+    public interface BooleanSetter {
+
+        void accept(Object bean, boolean value);
+    }
+
+    static class BooleanAccessor extends PropertyAccessor {
+
+        private final Predicate<Object> booleanGetter;
+        private final BooleanSetter booleanSetter;
+
+        BooleanAccessor(PropertyInfo propertyInfo) {
+            super(propertyInfo);
+            this.booleanGetter = propertyInfo.isReadable() ? toFunction(propertyInfo.getGetterMethod(), Predicate.class,
+                    "test", MethodType.methodType(boolean.class, Object.class)) : null;
+            this.booleanSetter = propertyInfo.isWritable() ? toFunction(propertyInfo.getSetterMethod(), BooleanSetter.class,
+                    "accept", MethodType.methodType(void.class, Object.class, boolean.class)) : null;
+        }
+
+        public void read(Object bean, ResultSet rs, int column) throws SQLException {
+            boolean value = rs.getBoolean(column);
+            if (!rs.wasNull()) {
+                if (booleanSetter != null) {
+                    booleanSetter.accept(bean, value);
+                }
+                else {
+                    set(bean, value);
+                }
+            }
+        }
+
+        public void bind(Object bean, PreparedStatement pstmt, int index) throws SQLException {
+            if (booleanGetter != null) {
+                pstmt.setBoolean(index, booleanGetter.test(bean));
+            }
+            else {
+                super.bind(bean, pstmt, index);
+            }
+        }
+
+        public boolean isPrimitive() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.femtoframework.orm.ext;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Row mapping plan for one ResultSet shape
+ *
+ * The column ordinals are resolved to property accessors once from ResultSetMetaData,
+ * so hydrating a row doesn't format any property name or look any column up by name.
+ * Columns which don't match any writable property are skipped.
+ */
+public class RowMapping {
+
+    private final int[] columnIndexes;
+    private final PropertyAccessor[] accessors;
+
+    RowMapping(int[] columnIndexes, PropertyAccessor[] accessors) {
+        this.columnIndexes = columnIndexes;
+        this.accessors = accessors;
+    }
+
+    /**
+     * Build the mapping plan from ResultSetMetaData
+     *
+     * @param metaData ResultSetMetaData
+     * @param columnAccessors Accessors of writable properties by column name in lower case
+     * @return RowMapping
+     * @throws SQLException SQL Exception
+     */
+    public static RowMapping build(ResultSetMetaData metaData,
+                                   Map<String, PropertyAccessor> columnAccessors) throws SQLException {
+        int count = metaData.getColumnCount();
+        int[] indexes = new int[count];
+        PropertyAccessor[] accessors = new PropertyAccessor[count];
+        int size = 0;
+        for(int i = 1; i <= count; i ++) {
+            PropertyAccessor accessor = columnAccessors.get(metaData.getColumnLabel(i).toLowerCase());
+            if (accessor != null) {
+                indexes[size] = i;
+                accessors[size] = accessor;
+                size ++;
+            }
+        }
+        return trim(indexes, accessors, size);
+    }
+
+    /**
+     * Build the mapping plan from the selected columns,
+     * the columns which are not selected are not mapped, so they stay in their default values.
+     *
+     * @param columns Column names in selecting sequence
+     * @param columnAccessors Accessors of writable properties by column name in lower case
+     * @return RowMapping, null if there is any column which is not a plain column name, such as "count(*)" or "a AS b"
+     */
+    public static RowMapping build(String[] columns, Map<String, PropertyAccessor> columnAccessors) {
+        int[] indexes = new int[columns.length];
+        PropertyAccessor[] accessors = new PropertyAccessor[columns.length];
+        int size = 0;
+        for(int i = 0; i < columns.length; i ++) {
+            String column = columns[i].trim();
+            for(int j = 0; j < column.length(); j ++) {
+                char c = column.charAt(j);
+                if (!(Character.isLetterOrDigit(c) || c == '_' || c == '.')) {
+                    return null;
+                }
+            }
+            int dot = column.lastIndexOf('.');
+            PropertyAccessor accessor = columnAccessors.get(column.substring(dot + 1).toLowerCase());
+            if (accessor != null) {
+                indexes[size] = i + 1;
+                accessors[size] = accessor;
+                size ++;
+            }
+        }
+        return trim(indexes, accessors, size);
+    }
+
+    private static RowMapping trim(int[] indexes, PropertyAccessor[] accessors, int size) {
+        if (size < indexes.length) {
+            int[] newIndexes = new int[size];
+            PropertyAccessor[] newAccessors = new PropertyAccessor[size];
+            System.arraycopy(indexes, 0, newIndexes, 0, size);
+            System.arraycopy(accessors, 0, newAccessors, 0, size);
+            indexes = newIndexes;
+            accessors = newAccessors;
+        }
+        return new RowMapping(indexes, accessors);
+    }
+
+    /**
+     * Shape key of the ResultSet, the column labels in sequence
+     *
+     * @param metaData ResultSetMetaData
+     * @return Shape key
+     * @throws SQLException SQL Exception
+     */
+    public static String toShapeKey(ResultSetMetaData metaData) throws SQLException {
+        int count = metaData.getColumnCount();
+        StringBuilder sb = new StringBuilder(count * 16);
+        for(int i = 1; i <= count; i ++) {
+            if (i > 1) {
+                sb.append(',');
+            }
+            sb.append(metaData.getColumnLabel(i));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Fill the current row into the given entity
+     *
+     * @param entity Entity
+     * @param rs ResultSet
+     * @throws SQLException SQL Exception
+     */
+    public void fill(Object entity, ResultSet rs) throws SQLException {
+        for(int i = 0; i < columnIndexes.length; i ++) {
+            accessors[i].read(entity, rs, columnIndexes[i]);
+        }
+    }
+
+    /**
+     * Number of mapped columns
+     *
+     * @return Number of mapped columns
+     */
+    public int size() {
+        return columnIndexes.length;
+    }
+}
@@ -0,0 +1,210 @@
+package org.femtoframework.orm.ext;
+
+import org.femtoframework.parameters.Parameters;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Row as Parameters, it is a flyweight of the shared Shape and the values of the row.
+ *
+ * All the rows of one ResultSet shape share the same column-name-to-ordinal index,
+ * so a row only keeps an Object[] of the values rather than a HashMap.
+ * Putting a column which is not in the shape switches the row to an extended shape,
+ * removing a column switches it to a reduced shape, both of them are shared as well.
+ */
+public class RowParameters extends AbstractMap<String, Object> implements Parameters<Object> {
+
+    /**
+     * Column names and their ordinals, shared by all the rows in this shape
+     */
+    public static final class Shape {
+
+        private final String[] columns;
+        private final Map<String, Integer> ordinals;
+        private final Map<String, Shape> extensions = new ConcurrentHashMap<>();
+        private final Map<String, Shape> reductions = new ConcurrentHashMap<>();
+
+        public Shape(String... columns) {
+            this.columns = columns;
+            this.ordinals = new HashMap<>(columns.length * 2);
+            for(int i = 0; i < columns.length; i ++) {
+                ordinals.put(columns[i], i);
+            }
+        }
+
+        /**
+         * Ordinal of the column
+         *
+         * @param column Column name, it is matched in lower case if there is no exact match
+         * @return Ordinal, -1 if the column is not in this shape
+         */
+        public int indexOf(Object column) {
+            Integer index = ordinals.get(column);
+            if (index == null && column instanceof String) {
+                index = ordinals.get(((String)column).toLowerCase());
+            }
+            return index != null ? index : -1;
+        }
+
+        public String[] getColumns() {
+            return columns;
+        }
+
+        public int size() {
+            return columns.length;
+        }
+
+        /**
+         * Shape with one more column at the end
+         *
+         * @param column Column name
+         * @return Extended shape
+         */
+        public Shape extend(String column) {
+            return extensions.computeIfAbsent(column, c -> {
+                String[] newColumns = Arrays.copyOf(columns, columns.length + 1);
+                newColumns[columns.length] = c;
+                return new Shape(newColumns);
+            });
+        }
+
+        /**
+         * Shape without the column at given ordinal
+         *
+         * @param index Ordinal of the column
+         * @return Reduced shape
+         */
+        public Shape reduce(int index) {
+            return reductions.computeIfAbsent(columns[index], c -> {
+                String[] newColumns = new String[columns.length - 1];
+                System.arraycopy(columns, 0, newColumns, 0, index);
+                System.arraycopy(columns, index + 1, newColumns, index, newColumns.length - index);
+                return new Shape(newColumns);
+            });
+        }
+    }
+
+    private Shape shape;
+    private Object[] values;
+
+    /**
+     * Empty row
+     */
+    public RowParameters() {
+        this(new Shape(), new Object[0]);
+    }
+
+    /**
+     * Row of given shape
+     *
+     * @param shape Shape
+     * @param values Values in sequence of the columns of the shape, it is not copied
+     */
+    public RowParameters(Shape shape, Object[] values) {
+        if (values.length != shape.size()) {
+            throw new IllegalArgumentException("Expected " + shape.size() + " values, but got " + values.length);
+        }
+        this.shape = shape;
+        this.values = values;
+    }
+
+    public Shape getShape() {
+        return shape;
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return shape.indexOf(key) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int index = shape.indexOf(key);
+        return index >= 0 ? values[index] : null;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        int index = shape.indexOf(key);
+        if (index >= 0) {
+            Object old = values[index];
+            values[index] = value;
+            return old;
+        }
+        shape = shape.extend(key);
+        values = Arrays.copyOf(values, values.length + 1);
+        values[values.length - 1] = value;
+        return null;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        int index = shape.indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        Object old = values[index];
+        shape = shape.reduce(index);
+        Object[] newValues = new Object[values.length - 1];
+        System.arraycopy(values, 0, newValues, 0, index);
+        System.arraycopy(values, index + 1, newValues, index, newValues.length - index);
+        values = newValues;
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        shape = new Shape();
+        values = new Object[0];
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new Iterator<Entry<String, Object>>() {
+                    private int index = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < values.length;
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        if (index >= values.length) {
+                            throw new NoSuchElementException();
+                        }
+                        int i = index ++;
+                        return new SimpleEntry<String, Object>(shape.columns[i], values[i]) {
+                            @Override
+                            public Object setValue(Object value) {
+                                values[i] = value;
+                                return super.setValue(value);
+                            }
+                        };
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return values.length;
+            }
+        };
+    }
+}
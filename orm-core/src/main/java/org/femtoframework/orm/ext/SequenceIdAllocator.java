@@ -0,0 +1,92 @@
+package org.femtoframework.orm.ext;
+
+import org.femtoframework.orm.IdAllocator;
+import org.femtoframework.orm.RepositoryException;
+import org.femtoframework.orm.dialect.RdbmsDialect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Id allocator retrieving every id from the sequence.
+ *
+ * Ids for batch are retrieved by one multi-row statement if the dialect supports,
+ * otherwise one statement is prepared and executed once per id.
+ */
+public class SequenceIdAllocator implements IdAllocator {
+
+    private static Logger logger = LoggerFactory.getLogger(SequenceIdAllocator.class);
+
+    private final String sequenceName;
+    private final String nextValSQL;
+    private final String nextValuesSQL;
+
+    public SequenceIdAllocator(RdbmsDialect dialect, String sequenceName) {
+        this.sequenceName = sequenceName;
+        this.nextValSQL = dialect.getSequenceNextVal(sequenceName);
+        this.nextValuesSQL = dialect.getSequenceNextValues(sequenceName);
+    }
+
+    public String getSequenceName() {
+        return sequenceName;
+    }
+
+    @Override
+    public long nextId(Connection conn) throws RepositoryException {
+        try (PreparedStatement pstmt = conn.prepareStatement(nextValSQL)) {
+            return nextVal(pstmt);
+        }
+        catch(SQLException sqle) {
+            String msg = "Execute sql:" + nextValSQL + " error";
+            logger.error(msg, sqle);
+            throw new RepositoryException(msg, sqle);
+        }
+    }
+
+    @Override
+    public long[] nextIds(Connection conn, int count) throws RepositoryException {
+        long[] ids = new long[count];
+        if (count == 0) {
+            return ids;
+        }
+        String sql = nextValuesSQL != null && count > 1 ? nextValuesSQL : nextValSQL;
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            if (sql == nextValuesSQL) {
+                pstmt.setInt(1, count);
+                int i = 0;
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (i < count && rs.next()) {
+                        ids[i ++] = rs.getLong(1);
+                    }
+                }
+                if (i < count) {
+                    throw new SQLException("Expected " + count + " values from sequence:" + sequenceName + ", but got " + i);
+                }
+            }
+            else {
+                for(int i = 0; i < count; i ++) {
+                    ids[i] = nextVal(pstmt);
+                }
+            }
+            return ids;
+        }
+        catch(SQLException sqle) {
+            String msg = "Execute sql:" + sql + " error";
+            logger.error(msg, sqle);
+            throw new RepositoryException(msg, sqle);
+        }
+    }
+
+    private long nextVal(PreparedStatement pstmt) throws SQLException {
+        try (ResultSet rs = pstmt.executeQuery()) {
+            if (!rs.next()) {
+                throw new SQLException("No value from sequence:" + sequenceName);
+            }
+            return rs.getLong(1);
+        }
+    }
+}
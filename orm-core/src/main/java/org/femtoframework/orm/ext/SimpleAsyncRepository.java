@@ -0,0 +1,177 @@
+package org.femtoframework.orm.ext;
+
+import org.femtoframework.orm.AsyncRepository;
+import org.femtoframework.orm.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous Repository on an executor
+ *
+ * The calls are queued and dispatched to the executor by the InFlightLimiter, at most "maxInFlight" calls are running
+ * at the same time, so the calls don't wait for connections in the pool. The caller is never blocked,
+ * if the queue of the limiter is full, the future fails with RejectedExecutionException.
+ *
+ * @param <E> Entity
+ */
+public class SimpleAsyncRepository<E> implements AsyncRepository<E> {
+
+    private static Logger logger = LoggerFactory.getLogger(SimpleAsyncRepository.class);
+
+    private Repository<E> repository;
+
+    private InFlightLimiter limiter;
+
+    private static volatile ExecutorService defaultExecutor;
+
+    private static volatile InFlightLimiter defaultLimiter;
+
+    /**
+     * Asynchronous repository on the shared default limiter,
+     * the calls in flight of all such repositories are limited by the number of processors
+     *
+     * @param repository Repository
+     */
+    public SimpleAsyncRepository(Repository<E> repository) {
+        this(repository, getDefaultLimiter());
+    }
+
+    public SimpleAsyncRepository(Repository<E> repository, Executor executor, int maxInFlight) {
+        this(repository, new InFlightLimiter(executor, maxInFlight));
+    }
+
+    /**
+     * Asynchronous repository sharing the limiter with the other repositories on the same DataSource
+     *
+     * @param repository Repository
+     * @param limiter Limiter of the DataSource
+     */
+    public SimpleAsyncRepository(Repository<E> repository, InFlightLimiter limiter) {
+        this.repository = repository;
+        this.limiter = limiter;
+    }
+
+    /**
+     * Executor which starts a new virtual thread for each task if the JVM supports(Java 21+),
+     * otherwise a cached thread pool of daemon threads, the number of threads is bounded by the calls in flight.
+     *
+     * @param name Name prefix of the threads
+     * @return Executor
+     */
+    public static ExecutorService newExecutor(String name) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (Exception e) {
+            logger.debug("Virtual thread is not supported, using platform threads");
+        }
+        AtomicInteger threadId = new AtomicInteger(0);
+        return Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, name + "-" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Executor shared by the asynchronous repositories which are not given an executor
+     *
+     * @return Executor created by newExecutor
+     */
+    public static ExecutorService getDefaultExecutor() {
+        if (defaultExecutor == null) {
+            synchronized (SimpleAsyncRepository.class) {
+                if (defaultExecutor == null) {
+                    defaultExecutor = newExecutor("repository");
+                }
+            }
+        }
+        return defaultExecutor;
+    }
+
+    private static InFlightLimiter getDefaultLimiter() {
+        if (defaultLimiter == null) {
+            synchronized (SimpleAsyncRepository.class) {
+                if (defaultLimiter == null) {
+                    defaultLimiter = new InFlightLimiter(getDefaultExecutor(), Runtime.getRuntime().availableProcessors());
+                }
+            }
+        }
+        return defaultLimiter;
+    }
+
+    @Override
+    public Repository<E> getRepository() {
+        return repository;
+    }
+
+    @Override
+    public int getMaxInFlight() {
+        return limiter.getMaxInFlight();
+    }
+
+    /**
+     * Limiter of the calls in flight, it may be shared with the other repositories
+     *
+     * @return Limiter
+     */
+    public InFlightLimiter getLimiter() {
+        return limiter;
+    }
+
+    /**
+     * Number of calls which are running in the limiter
+     *
+     * @return Number of calls in flight
+     */
+    public int getInFlight() {
+        return limiter.getInFlight();
+    }
+
+    /**
+     * Number of calls which are waiting in the queue of the limiter
+     *
+     * @return Number of pending calls
+     */
+    public int getPending() {
+        return limiter.getPending();
+    }
+
+    @Override
+    public <R> CompletableFuture<R> execute(Operation<E, R> operation) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        Runnable task = () -> {
+            R result = null;
+            Throwable error = null;
+            try {
+                result = operation.apply(repository);
+            }
+            catch (Throwable t) {
+                error = t;
+            }
+            //Release the slot before completing, the dependent stages may run in this thread
+            limiter.release();
+            if (error != null) {
+                future.completeExceptionally(error);
+            }
+            else {
+                future.complete(result);
+            }
+        };
+        try {
+            limiter.submit(task);
+        }
+        catch (RejectedExecutionException ree) {
+            logger.warn("Repository call is rejected, pending:" + limiter.getPending());
+            future.completeExceptionally(ree);
+        }
+        return future;
+    }
+}
@@ -1,17 +1,34 @@
 package org.femtoframework.orm.ext;
 
+import org.femtoframework.orm.AsyncRepository;
 import org.femtoframework.orm.Repository;
 import org.femtoframework.orm.RepositoryFactory;
+import org.femtoframework.orm.RepositoryUtil;
 import org.femtoframework.parameters.Parameters;
 import org.femtoframework.pattern.ext.BaseFactory;
 import org.femtoframework.text.NamingConvention;
 
 import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 
 public class SimpleRepositoryFactory extends BaseFactory<Repository> implements RepositoryFactory {
 
     private DataSource dataSource;
 
+    private Map<String, AsyncRepository> asyncRepositories = new ConcurrentHashMap<>();
+
+    private Map<String, Repository<Parameters>> typeSafeRepositories = new ConcurrentHashMap<>();
+
+    private volatile ExecutorService executor;
+
+    private volatile InFlightLimiter limiter;
+
+    private int maxInFlight = 0;
+
+    private int maxPending = InFlightLimiter.DEFAULT_MAX_PENDING;
+
     public SimpleRepositoryFactory() {
     }
 
@@ -43,17 +60,70 @@ public class SimpleRepositoryFactory extends BaseFactory<Repository> implements
         return repository;
     }
 
+    /**
+     * Return AsyncRepository by domainClass, all the AsyncRepositories of this factory share the executor
+     * and the limit of calls in flight, since they share the connections of the DataSource
+     *
+     * @param tableName If it is null, will use name conversion from DomainClass
+     * @param domainClass Domain Class
+     * @param <E> Entity
+     * @return AsyncRepository
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <E> AsyncRepository<E> getAsyncRepository(String tableName, Class<E> domainClass) {
+        Repository<E> repository = getRepository(tableName, domainClass);
+        return asyncRepositories.computeIfAbsent(repository.getName(),
+                name -> new SimpleAsyncRepository<>(repository, getLimiter()));
+    }
+
+    protected ExecutorService getExecutor() {
+        if (executor == null) {
+            synchronized (this) {
+                if (executor == null) {
+                    executor = SimpleAsyncRepository.newExecutor("repository");
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Limiter of the calls in flight on the DataSource, it is shared by all the AsyncRepositories of this factory
+     *
+     * @return Limiter
+     */
+    protected InFlightLimiter getLimiter() {
+        if (limiter == null) {
+            synchronized (this) {
+                if (limiter == null) {
+                    limiter = new InFlightLimiter(getExecutor(), getMaxInFlight(), getMaxPending());
+                }
+            }
+        }
+        return limiter;
+    }
+
     /**
      * Type Safe Repository
      * <p>
-     * You don't have to define a POJO, you can use
+     * You don't have to define a POJO, you can use Parameters as the rows, the keys are the column names in lower case
      *
      * @param entityName Table Name(Or entityName)
      * @return Type Safe Repository
      */
     @Override
     public Repository<Parameters> getTypeSafeRepository(String entityName) {
-        return null;
+        if (entityName == null) {
+            throw new IllegalArgumentException("No entity name");
+        }
+        return typeSafeRepositories.computeIfAbsent(entityName, tableName -> {
+            ParametersRepository repository = new ParametersRepository();
+            repository.setTableName(tableName);
+            repository.setDataSource(dataSource);
+            repository.init();
+            return repository;
+        });
     }
 
     public DataSource getDataSource() {
@@ -63,4 +133,30 @@ public class SimpleRepositoryFactory extends BaseFactory<Repository> implements
     public void setDataSource(DataSource dataSource) {
         this.dataSource = dataSource;
     }
+
+    /**
+     * Maximum number of calls in flight of all the AsyncRepositories of this factory
+     *
+     * @return Maximum number of calls in flight, it is the maximum pool size of the DataSource by default
+     */
+    public int getMaxInFlight() {
+        return maxInFlight > 0 ? maxInFlight : RepositoryUtil.getMaximumPoolSize(dataSource);
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Maximum number of calls waiting for a free slot, the calls over it are rejected
+     *
+     * @return Maximum number of pending calls
+     */
+    public int getMaxPending() {
+        return maxPending;
+    }
+
+    public void setMaxPending(int maxPending) {
+        this.maxPending = maxPending;
+    }
 }
@@ -0,0 +1,88 @@
+package org.femtoframework.orm.ext;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Snapshots of the loaded entities for dirty tracking
+ *
+ * The entities are weak keys compared by identity, so the entities with value based equals and hashCode
+ * are still found after they are modified, and the snapshots go away with the entities.
+ */
+public class SnapshotMap {
+
+    private final Map<WeakKey, Object[]> snapshots = new ConcurrentHashMap<>();
+
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+    private static final class WeakKey extends WeakReference<Object> {
+
+        private final int hash;
+
+        WeakKey(Object entity, ReferenceQueue<Object> queue) {
+            super(entity, queue);
+            this.hash = System.identityHashCode(entity);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof WeakKey)) {
+                return false;
+            }
+            Object entity = get();
+            return entity != null && entity == ((WeakKey) obj).get();
+        }
+    }
+
+    /**
+     * Put the snapshot of the entity
+     *
+     * @param entity Entity
+     * @param values Values of the columns
+     */
+    public void put(Object entity, Object[] values) {
+        expunge();
+        snapshots.put(new WeakKey(entity, queue), values);
+    }
+
+    /**
+     * Get the snapshot of the entity
+     *
+     * @param entity Entity
+     * @return Values of the columns, null if the entity wasn't tracked
+     */
+    public Object[] get(Object entity) {
+        return snapshots.get(new WeakKey(entity, null));
+    }
+
+    /**
+     * Stop tracking the entity
+     *
+     * @param entity Entity
+     */
+    public void remove(Object entity) {
+        snapshots.remove(new WeakKey(entity, null));
+    }
+
+    public int size() {
+        expunge();
+        return snapshots.size();
+    }
+
+    private void expunge() {
+        Object key;
+        while ((key = queue.poll()) != null) {
+            snapshots.remove(key);
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package org.femtoframework.orm.ext;
+
+import org.femtoframework.bean.Destroyable;
+import org.femtoframework.bean.Startable;
+import org.femtoframework.bean.Stoppable;
+import org.femtoframework.orm.Repository;
+import org.femtoframework.orm.RepositoryException;
+import org.femtoframework.parameters.Parameters;
+import org.femtoframework.util.CollectionUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Repository which buffers the created entities and writes them behind in batches
+ *
+ * The callers of create(E) put the entities into a lock-free queue and return immediately,
+ * one flusher thread writes the queued entities by create(List) of the delegate repository
+ * when "flushSize" entities are queued or "flushInterval" elapsed.
+ *
+ * The buffer holds at most "capacity" entities including the ones being written, when it is full,
+ * the callers wait up to "offerTimeout" for the space, then RepositoryException is thrown.
+ * The flusher thread is started by start(), the buffer is flushed when the repository is stopped or destroyed.
+ *
+ * The entities are not visible to the queries before they are flushed,
+ * the ids allocated by the delegate are set into the entities when they are written.
+ *
+ * @param <E> Entity
+ */
+public class WriteBehindRepository<E> extends DelegatingRepository<E> implements Startable, Stoppable, Destroyable {
+
+    private static Logger logger = LoggerFactory.getLogger(WriteBehindRepository.class);
+
+    private final int capacity;
+
+    private final int flushSize;
+
+    private final long flushIntervalNanos;
+
+    private final long offerTimeoutNanos;
+
+    private Parameters options = CollectionUtil.emptyParameters();
+
+    private final Queue<Pending<E>> queue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final Semaphore space;
+
+    private volatile Thread flusher;
+
+    private volatile boolean running = false;
+
+    private AtomicLong flushes = new AtomicLong();
+
+    private static class Pending<E> {
+
+        private final E entity;
+
+        private final CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+        Pending(E entity) {
+            this.entity = entity;
+        }
+    }
+
+    /**
+     * Buffer of 10000 entities, flushes every 500 entities or 100 milliseconds, waits up to 1 second when it is full
+     *
+     * @param delegate Repository
+     */
+    public WriteBehindRepository(Repository<E> delegate) {
+        this(delegate, 10000, 500, 100, 1000);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param delegate Repository
+     * @param capacity Maximum number of entities in the buffer
+     * @param flushSize Number of queued entities which triggers a flush, it is also the maximum entities in one batch
+     * @param flushIntervalMillis Maximum time in milliseconds before the queued entities are flushed
+     * @param offerTimeoutMillis Maximum time in milliseconds to wait for the space when the buffer is full
+     */
+    public WriteBehindRepository(Repository<E> delegate, int capacity, int flushSize,
+                                 long flushIntervalMillis, long offerTimeoutMillis) {
+        super(delegate);
+        if (capacity <= 0 || flushSize <= 0) {
+            throw new IllegalArgumentException("Invalid capacity:" + capacity + " or flushSize:" + flushSize);
+        }
+        this.capacity = capacity;
+        this.flushSize = flushSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.offerTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(offerTimeoutMillis);
+        this.space = new Semaphore(capacity);
+    }
+
+    /**
+     * Options of the batch create, such as {rows_per_insert->64}
+     *
+     * @param options Options
+     */
+    public void setOptions(Parameters options) {
+        this.options = options != null ? options : CollectionUtil.emptyParameters();
+    }
+
+    /**
+     * Queue the entity, the future completes when it is written
+     *
+     * @param entity Entity
+     * @return Future of the creation status
+     * @throws RepositoryException the buffer is still full after "offerTimeout", or the repository isn't running
+     */
+    public CompletableFuture<Boolean> enqueue(E entity) throws RepositoryException {
+        if (!running) {
+            throw new RepositoryException("The write-behind repository isn't running");
+        }
+        try {
+            if (!space.tryAcquire(offerTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new RepositoryException("The write-behind buffer is full, capacity:" + capacity);
+            }
+        }
+        catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new RepositoryException("Interrupted while waiting for the write-behind buffer", ie);
+        }
+        Pending<E> pending = new Pending<>(entity);
+        queue.offer(pending);
+        if (queued.incrementAndGet() >= flushSize) {
+            LockSupport.unpark(flusher);
+        }
+        if (!running) {
+            //Stopped while it was queued, nobody else flushes it
+            flush();
+        }
+        return pending.future;
+    }
+
+    /**
+     * Queue the entity and return without waiting for the write
+     *
+     * @param entity  Entity
+     * @param options Options, they are ignored, the entities are written with the options of this repository
+     * @return true if it is queued
+     * @throws RepositoryException the buffer is still full after "offerTimeout", or the repository isn't running
+     */
+    @Override
+    public boolean create(E entity, Parameters options) throws RepositoryException {
+        enqueue(entity);
+        return true;
+    }
+
+    /**
+     * Write all the queued entities in the caller's thread
+     */
+    public void flush() {
+        List<Pending<E>> batch = new ArrayList<>(flushSize);
+        Pending<E> pending;
+        while ((pending = queue.poll()) != null) {
+            queued.decrementAndGet();
+            batch.add(pending);
+            if (batch.size() >= flushSize) {
+                write(batch);
+                batch = new ArrayList<>(flushSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    private void write(List<Pending<E>> batch) {
+        flushes.incrementAndGet();
+        List<E> entities = new ArrayList<>(batch.size());
+        for(Pending<E> pending : batch) {
+            entities.add(pending.entity);
+        }
+        try {
+            boolean[] created = getDelegate().create(entities, options);
+            for(int i = 0; i < batch.size(); i ++) {
+                batch.get(i).future.complete(i < created.length && created[i]);
+            }
+        }
+        catch (Throwable t) {
+            logger.error("Writing " + batch.size() + " entities behind error", t);
+            for(Pending<E> pending : batch) {
+                pending.future.completeExceptionally(t);
+            }
+        }
+        finally {
+            space.release(batch.size());
+        }
+    }
+
+    private void runFlusher() {
+        while (running) {
+            long deadline = System.nanoTime() + flushIntervalNanos;
+            long remaining;
+            while (running && queued.get() < flushSize && (remaining = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, remaining);
+            }
+            flush();
+        }
+    }
+
+    /**
+     * Start the flusher thread
+     */
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        flusher = new Thread(this::runFlusher, "write-behind-" + getDelegate().getName());
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Stop the flusher and write all the queued entities
+     */
+    @Override
+    public synchronized void stop() {
+        running = false;
+        Thread thread = flusher;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            }
+            catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            flusher = null;
+        }
+        flush();
+    }
+
+    @Override
+    public void destroy() {
+        stop();
+    }
+
+    /**
+     * Number of entities in the queue
+     *
+     * @return Number of queued entities
+     */
+    public int getQueuedCount() {
+        return queued.get();
+    }
+
+    /**
+     * Number of batches written to the delegate repository
+     *
+     * @return Number of batches
+     */
+    public long getFlushCount() {
+        return flushes.get();
+    }
+}
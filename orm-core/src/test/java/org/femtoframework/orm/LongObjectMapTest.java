@@ -0,0 +1,37 @@
+package org.femtoframework.orm;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class LongObjectMapTest {
+
+    @Test
+    public void putAndGet() {
+        LongObjectMap<String> map = new LongObjectMap<>(2);
+        for(long i = -500; i < 500; i ++) {
+            assertNull(map.put(i * 31, "v" + i));
+        }
+        assertEquals(1000, map.size());
+        assertEquals("v7", map.get(7 * 31));
+        assertEquals("v0", map.get(0));
+        assertNull(map.get(1));
+        assertFalse(map.containsKey(Long.MAX_VALUE));
+
+        assertEquals("v7", map.put(7 * 31, "seven"));
+        assertEquals("seven", map.get(7 * 31));
+        assertEquals(1000, map.size());
+
+        long[] keys = map.keys();
+        Arrays.sort(keys);
+        assertEquals(-500 * 31, keys[0]);
+        assertEquals(499 * 31, keys[999]);
+        assertEquals(1000, map.values().size());
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(0));
+    }
+}
@@ -0,0 +1,55 @@
+package org.femtoframework.orm;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import static org.junit.Assert.*;
+
+public class OrderByTest {
+
+    private static final OrderBy MODEL = OrderBy.orderBy("model");
+
+    @Test
+    public void then() {
+        OrderBy byTime = MODEL.then("created_time", false, OrderBy.Nulls.LAST);
+        OrderBy byId = MODEL.then("id");
+        assertNull(MODEL.getNext());
+
+        assertEquals("model", byTime.getColumn());
+        assertEquals("created_time", byTime.getNext().getColumn());
+        assertFalse(byTime.getNext().isAscending());
+        assertEquals(OrderBy.Nulls.LAST, byTime.getNext().getNulls());
+        assertNull(byTime.getNext().getNext());
+
+        assertEquals("id", byId.getNext().getColumn());
+        assertNull(byId.getNext().getNext());
+
+        OrderBy three = byTime.then("id");
+        assertEquals("id", three.getNext().getNext().getColumn());
+        assertNull(byTime.getNext().getNext());
+    }
+
+    @Test
+    public void externalize() throws Exception {
+        OrderBy orderBy = MODEL.then("created_time", false, OrderBy.Nulls.FIRST);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(orderBy);
+        }
+        OrderBy read;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            read = (OrderBy) in.readObject();
+        }
+        assertEquals("model", read.getColumn());
+        assertTrue(read.isAscending());
+        assertEquals(OrderBy.Nulls.DEFAULT, read.getNulls());
+        assertEquals("created_time", read.getNext().getColumn());
+        assertFalse(read.getNext().isAscending());
+        assertEquals(OrderBy.Nulls.FIRST, read.getNext().getNulls());
+        assertNull(read.getNext().getNext());
+    }
+}
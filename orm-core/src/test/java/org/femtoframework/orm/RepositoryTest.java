@@ -0,0 +1,176 @@
+package org.femtoframework.orm;
+
+import org.femtoframework.orm.domain.Device;
+import org.femtoframework.parameters.Parameters;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * The default methods work on a repository which only implements the primitives
+ */
+public class RepositoryTest {
+
+    /**
+     * In-memory repository ordered by id, listBy only understands the keyset condition on id
+     */
+    static class ListRepository implements Repository<Device> {
+
+        private final List<Device> devices = new ArrayList<>();
+
+        private final List<String> queries = new ArrayList<>();
+
+        ListRepository(int count) {
+            for(int i = 1; i <= count; i ++) {
+                Device device = new Device();
+                device.setId(i);
+                device.setModel(i % 2 == 0 ? "M2" : "M1");
+                device.setUuid("U" + i);
+                devices.add(device);
+            }
+        }
+
+        @Override
+        public String getName() {
+            return "list";
+        }
+
+        @Override
+        public List<Device> listBy(String[] columns, Limit limit, OrderBy orderBy, String query, Object... parameters) {
+            queries.add(query);
+            long after = query != null && query.startsWith("id > ?") ? ((Number) parameters[parameters.length - 1]).longValue() : 0;
+            return devices.stream().filter(d -> d.getId() > after).limit(limit.getLimit()).collect(Collectors.toList());
+        }
+
+        @Override
+        public <C> Device getBy(String query, Object... parameters) {
+            int id = ((Number) parameters[0]).intValue();
+            return id >= 1 && id <= devices.size() ? devices.get(id - 1) : null;
+        }
+
+        @Override
+        public boolean create(Device entity, Parameters options) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean[] create(List<Device> entity, Parameters options) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean update(Device entity, Parameters options) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean[] update(List<Device> entity, Parameters options) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int save(Device entity, Parameters options) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean[] save(List<Device> entity, Parameters options) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean[] deleteByIds(long... id) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <C> boolean deleteBy(String query, Object... parameters) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    @Test
+    public void listPage() throws Exception {
+        ListRepository repository = new ListRepository(5);
+        Page<Device> page = repository.listPage(Keyset.first(2, "id"), null);
+        assertEquals(Arrays.asList(1, 2), page.getItems().stream().map(Device::getId).collect(Collectors.toList()));
+        assertTrue(page.hasNext());
+        assertArrayEquals(new Object[] {2}, page.getNext().getValues());
+
+        page = repository.listPage(page.getNext(), null);
+        assertEquals("id > ?", repository.queries.get(1));
+        assertEquals(Arrays.asList(3, 4), page.getItems().stream().map(Device::getId).collect(Collectors.toList()));
+
+        page = repository.listPage(page.getNext(), null);
+        assertEquals(1, page.getItems().size());
+        assertFalse(page.hasNext());
+    }
+
+    @Test
+    public void invalidPageSize() throws Exception {
+        try {
+            Keyset.first(0, "id");
+            fail("The size should be positive");
+        }
+        catch (IllegalArgumentException iae) {
+            //Expected
+        }
+        Keyset keyset = Keyset.first(2, "id");
+        try {
+            keyset.setSize(-1);
+            fail("The size should be positive");
+        }
+        catch (IllegalArgumentException iae) {
+            //Expected
+        }
+        assertEquals(2, keyset.getSize());
+    }
+
+    @Test
+    public void scan() throws Exception {
+        ListRepository repository = new ListRepository(3);
+        try (Stream<Device> stream = repository.stream(null)) {
+            assertEquals(3, stream.count());
+        }
+        List<Device> visited = new ArrayList<>();
+        repository.parallelForEach(visited::add, null);
+        assertEquals(3, visited.size());
+
+        LongObjectMap<Device> map = repository.getByIds(2, 9);
+        assertEquals(1, map.size());
+        assertEquals("U2", map.get(2).getUuid());
+    }
+
+    @Test
+    public void countAndColumns() throws Exception {
+        ListRepository repository = new ListRepository(3);
+        assertEquals(3, repository.countAll());
+        assertTrue(repository.existsBy(null));
+        assertArrayEquals(new long[] {1, 2, 3}, repository.listIds(null));
+        assertArrayEquals(new int[] {1, 2, 3}, repository.listIntColumn("id", null));
+        assertEquals(Arrays.asList("U1", "U2", "U3"), repository.listColumn("uuid", String.class, null));
+    }
+
+    @Test
+    public void aggregate() throws Exception {
+        ListRepository repository = new ListRepository(5);
+        AggregateRows rows = repository.aggregate(new Agg[] {Agg.count(), Agg.sum("id"), Agg.avg("id")},
+                Agg.groupBy("model"), null);
+        assertEquals(2, rows.size());
+        assertEquals("M1", rows.getKey(0, 0));
+        assertEquals(3, rows.getLong(0, 0));
+        assertTrue(rows.isIntegral(1));
+        assertEquals(9, rows.getLong(0, 1));
+        assertEquals(3.0, rows.getValue(0, 2), 0.0001);
+        assertEquals(6, rows.getLong(1, 1));
+
+        assertEquals(15, repository.aggregateLong(Agg.sum("id"), null));
+        assertTrue(Double.isNaN(new ListRepository(0).aggregate(Agg.max("id"), null)));
+    }
+}
@@ -11,4 +11,17 @@ public class MysqlDialectTest {
         RdbmsDialect rdbmsDialect = ImplementUtil.getInstance("mysql", RdbmsDialect.class);
         assertNotNull(rdbmsDialect);
     }
+
+    @org.junit.Test
+    public void getUpsertStatus() {
+        MysqlDialect dialect = new MysqlDialect();
+        //CLIENT_FOUND_ROWS counts 1 for the unchanged row too
+        assertEquals(0, dialect.getUpsertStatus(1, false));
+        assertEquals(0, dialect.getUpsertStatus(2, false));
+        assertEquals(1, dialect.getUpsertStatus(1, true));
+        assertEquals(0, dialect.getUpsertStatus(2, true));
+        assertEquals(0, dialect.getUpsertStatus(0, true));
+        assertEquals(-1, dialect.getUpsertStatus(-3, false));
+        assertNull(dialect.getUpsertCreatedClause());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,150 @@
+package org.femtoframework.orm.dialect;
+
+import org.femtoframework.orm.Agg;
+import org.femtoframework.orm.OrderBy;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RdbmsDialectTest {
+
+    @Test
+    public void getKeysetCondition() {
+        String[] columns = {"model", "id"};
+        Object[] values = {"M1", 5};
+
+        List<Object> parameters = new ArrayList<>();
+        assertEquals("(model,id) > (?,?)",
+                new MysqlDialect().getKeysetCondition(columns, true, values, parameters));
+        assertEquals(Arrays.asList("M1", 5), parameters);
+
+        parameters.clear();
+        assertEquals("((model < ?) OR (model = ? AND id < ?))",
+                new DerbyDialect().getKeysetCondition(columns, false, values, parameters));
+        assertEquals(Arrays.asList("M1", "M1", 5), parameters);
+
+        parameters.clear();
+        assertEquals("id > ?",
+                new OracleDialect().getKeysetCondition(new String[] {"id"}, true, new Object[] {5}, parameters));
+        assertEquals(Arrays.asList(5), parameters);
+    }
+
+    @Test
+    public void appendOrderBy() {
+        StringBuilder sb = new StringBuilder();
+        new PostgresDialect().appendOrderBy(sb, "model", false, OrderBy.Nulls.LAST);
+        assertEquals("model DESC NULLS LAST", sb.toString());
+
+        sb.setLength(0);
+        new MysqlDialect().appendOrderBy(sb, "model", true, OrderBy.Nulls.FIRST);
+        assertEquals("CASE WHEN model IS NULL THEN 0 ELSE 1 END,model", sb.toString());
+
+        sb.setLength(0);
+        new MssqlDialect().appendOrderBy(sb, "id", false, OrderBy.Nulls.DEFAULT);
+        assertEquals("id DESC", sb.toString());
+    }
+
+    @Test
+    public void getLimitString() {
+        String sql = "SELECT * FROM device WHERE model = ? ORDER BY model DESC,id";
+        assertEquals(sql + " OFFSET ? ROWS FETCH NEXT ? ROWS ONLY",
+                new DerbyDialect().getLimitString(sql, 10, 5));
+        assertEquals(sql + " OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY",
+                new MssqlDialect().getLimitString(sql, 0, 5, true));
+        assertEquals("SELECT * FROM device ORDER BY (SELECT NULL) OFFSET ? ROWS FETCH NEXT ? ROWS ONLY",
+                new MssqlDialect().getLimitString("SELECT * FROM device", 10, 5, false));
+        //The column named "order by" is not taken as ordered
+        assertEquals("SELECT \"order by\" FROM device ORDER BY (SELECT NULL) OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY",
+                new MssqlDialect().getLimitString("SELECT \"order by\" FROM device", 0, 5, false));
+        assertEquals("SELECT * FROM ( SELECT ROW_.*, ROWNUM ROWNUM_ FROM ( " + sql
+                        + " ) ROW_ WHERE ROWNUM <= ?) WHERE ROWNUM_ > ?",
+                new OracleDialect().getLimitString(sql, 10, 5));
+        assertEquals("select * from ( select row_number() over(ORDER BY model DESC,id) as rownumber_, "
+                        + "* FROM device WHERE model = ? ORDER BY model DESC,id ) as temp_ "
+                        + "where rownumber_ between ?+1 and ? order by rownumber_",
+                new Db2Dialect().getLimitString(sql, 10, 5));
+    }
+
+    @Test
+    public void getAggregateExpression() {
+        assertEquals("COUNT(*)", new MysqlDialect().getAggregateExpression(Agg.Function.COUNT, null));
+        assertEquals("SUM(amount)", new PostgresDialect().getAggregateExpression(Agg.Function.SUM, "amount"));
+        assertEquals("AVG(amount)", new MysqlDialect().getAggregateExpression(Agg.Function.AVG, "amount"));
+        assertEquals("AVG(CAST(amount AS DOUBLE))",
+                new DerbyDialect().getAggregateExpression(Agg.Function.AVG, "amount"));
+        assertEquals("AVG(CAST(amount AS FLOAT))",
+                new MssqlDialect().getAggregateExpression(Agg.Function.AVG, "amount"));
+    }
+
+    @Test
+    public void getSequenceNextVal() {
+        assertEquals("SELECT device_id_seq.NEXTVAL FROM DUAL", new OracleDialect().getSequenceNextVal("device_id_seq"));
+        assertEquals("SELECT device_id_seq.NEXTVAL FROM DUAL CONNECT BY LEVEL <= ?",
+                new OracleDialect().getSequenceNextValues("device_id_seq"));
+        assertEquals("select nextval ('device_id_seq')", new PostgresDialect().getSequenceNextVal("device_id_seq"));
+        assertEquals("values next value for device_id_seq", new DerbyDialect().getSequenceNextVal("device_id_seq"));
+        assertEquals("SELECT NEXT VALUE FOR device_id_seq", new MssqlDialect().getSequenceNextVal("device_id_seq"));
+        assertNull(new DerbyDialect().getSequenceNextValues("device_id_seq"));
+    }
+
+    @Test
+    public void getMultiRowInsert() {
+        String sql = "INSERT INTO device (id,product_no) VALUES (?,?)";
+        assertEquals("INSERT INTO device (id,product_no) VALUES (?,?),(?,?),(?,?)",
+                new DerbyDialect().getMultiRowInsert(sql, 3));
+        assertEquals("INSERT ALL INTO device (id,product_no) VALUES (?,?) INTO device (id,product_no) VALUES (?,?)"
+                + " SELECT 1 FROM DUAL", new OracleDialect().getMultiRowInsert(sql, 2));
+    }
+
+    @Test
+    public void getUpsert() {
+        String[] columns = {"id", "model", "product_no"};
+        List<Integer> parameters = new ArrayList<>();
+        assertEquals("MERGE INTO device t USING SYSIBM.SYSDUMMY1 ON t.id = ? WHEN MATCHED THEN UPDATE SET model = ?, product_no = ?"
+                + " WHEN NOT MATCHED THEN INSERT (id,model,product_no) VALUES (?,?,?)",
+                new DerbyDialect().getUpsert("device", columns, parameters));
+        assertEquals(Arrays.asList(0, 1, 2, 0, 1, 2), parameters);
+
+        parameters.clear();
+        assertEquals("INSERT INTO device (id,model,product_no) VALUES (?,?,?) ON CONFLICT (id) DO UPDATE SET"
+                + " model = EXCLUDED.model, product_no = EXCLUDED.product_no",
+                new PostgresDialect().getUpsert("device", columns, parameters));
+        assertEquals(Arrays.asList(0, 1, 2), parameters);
+
+        parameters.clear();
+        assertEquals("INSERT INTO device (id,model,product_no) VALUES (?,?,?) ON DUPLICATE KEY UPDATE"
+                + " model = VALUES(model), product_no = VALUES(product_no)",
+                new MysqlDialect().getUpsert("device", columns, parameters));
+
+        parameters.clear();
+        assertEquals("MERGE INTO device t USING (SELECT ? id, ? model, ? product_no FROM DUAL) s ON (t.id = s.id)"
+                + " WHEN MATCHED THEN UPDATE SET t.model = s.model, t.product_no = s.product_no"
+                + " WHEN NOT MATCHED THEN INSERT (id,model,product_no) VALUES (s.id,s.model,s.product_no)",
+                new OracleDialect().getUpsert("device", columns, parameters));
+        assertEquals(Arrays.asList(0, 1, 2), parameters);
+
+        parameters.clear();
+        assertEquals("MERGE INTO device WITH (HOLDLOCK) AS t USING (VALUES (?,?,?)) AS s (id,model,product_no) ON (t.id = s.id)"
+                + " WHEN MATCHED THEN UPDATE SET t.model = s.model, t.product_no = s.product_no"
+                + " WHEN NOT MATCHED THEN INSERT (id,model,product_no) VALUES (s.id,s.model,s.product_no);",
+                new MssqlDialect().getUpsert("device", columns, parameters));
+    }
+
+    @Test
+    public void getUpsertStatus() {
+        assertEquals(0, new DerbyDialect().getUpsertStatus(1, true));
+        assertEquals(-1, new DerbyDialect().getUpsertStatus(0, false));
+        assertNull(new DerbyDialect().getUpsertCreatedClause());
+        assertEquals(" RETURNING (xmax = 0)", new PostgresDialect().getUpsertCreatedClause());
+    }
+
+    @Test
+    public void getMaxRowsPerInsert() {
+        assertEquals(Integer.MAX_VALUE, new DerbyDialect().getMaxRowsPerInsert());
+        assertEquals(1000, new MssqlDialect().getMaxRowsPerInsert());
+    }
+}
@@ -0,0 +1,56 @@
+package org.femtoframework.orm.ext;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class CoalescingRepositoryTest {
+
+    @Test
+    public void getById() throws Exception {
+        StubRepository<String> delegate = new StubRepository<>(id -> id > 0 ? "E" + id : null);
+        CoalescingRepository<String> repository = new CoalescingRepository<>(delegate, 20_000, 128);
+
+        int threads = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> futures = new ArrayList<>();
+        for(int i = 0; i < threads; i ++) {
+            long id = i % 8;
+            futures.add(executor.submit(() -> {
+                start.await();
+                return repository.getById(id);
+            }));
+        }
+        start.countDown();
+        for(int i = 0; i < threads; i ++) {
+            long id = i % 8;
+            assertEquals(id > 0 ? "E" + id : null, futures.get(i).get());
+        }
+        executor.shutdown();
+
+        assertEquals(threads, repository.getRequestCount());
+        int queries = delegate.getQueries().size();
+        assertEquals(queries, repository.getBatchCount());
+        assertTrue("Queries:" + queries, queries < threads / 2);
+    }
+
+    @Test
+    public void maxBatchSize() throws Exception {
+        StubRepository<String> delegate = new StubRepository<>(id -> "E" + id);
+        //Batch of one id is loaded immediately without waiting for the window
+        CoalescingRepository<String> repository = new CoalescingRepository<>(delegate, 10_000_000, 1);
+        long begin = System.nanoTime();
+        assertEquals("E1", repository.getById(1));
+        assertEquals("E2", repository.getById(2));
+        assertTrue(System.nanoTime() - begin < 5_000_000_000L);
+        assertEquals(2, delegate.getQueries().size());
+    }
+}
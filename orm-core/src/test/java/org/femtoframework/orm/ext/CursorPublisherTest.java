@@ -0,0 +1,169 @@
+package org.femtoframework.orm.ext;
+
+import org.femtoframework.orm.OrderBy;
+import org.femtoframework.orm.Repository;
+import org.femtoframework.orm.RepositoryException;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class CursorPublisherTest {
+
+    private static final int ROWS = 1000;
+
+    /**
+     * ResultSet of the ids from "from" to ROWS
+     */
+    private static ResultSet rows(int from) {
+        Object[][] rows = new Object[ROWS - from + 1][];
+        for(int i = 0; i < rows.length; i ++) {
+            rows[i] = new Object[] {from + i};
+        }
+        return MockResultSet.of(new String[] {"id"}, rows);
+    }
+
+    private static Cursor<Integer> cursor(List<String> calls, ResultSet rs) throws RepositoryException {
+        Connection conn = MockConnection.of(calls, rs);
+        try {
+            PreparedStatement pstmt = conn.prepareStatement("SELECT id FROM device");
+            return new Cursor<>(conn, false, true, pstmt, pstmt.executeQuery(), r -> r.getInt(1));
+        }
+        catch (SQLException sqle) {
+            throw new RepositoryException("Open cursor error", sqle);
+        }
+    }
+
+    private static class SlowSubscriber implements Subscriber<Integer> {
+
+        private Subscription subscription;
+        private List<Integer> received = new ArrayList<>();
+        private int maxAhead = 0;
+        private IntSupplier fetched;
+        private int cancelAfter;
+        private CountDownLatch done = new CountDownLatch(1);
+        private volatile boolean completed = false;
+
+        SlowSubscriber(IntSupplier fetched, int cancelAfter) {
+            this.fetched = fetched;
+            this.cancelAfter = cancelAfter;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            this.subscription = s;
+            s.request(1);
+        }
+
+        @Override
+        public void onNext(Integer item) {
+            received.add(item);
+            maxAhead = Math.max(maxAhead, fetched.getAsInt() - received.size());
+            try {
+                Thread.sleep(1);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (received.size() == cancelAfter) {
+                subscription.cancel();
+                done.countDown();
+            }
+            else {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            done.countDown();
+        }
+    }
+
+    @Test
+    public void slowSubscriber() throws Exception {
+        List<String> calls = new CopyOnWriteArrayList<>();
+        ResultSet rs = rows(1);
+        AtomicBoolean opened = new AtomicBoolean();
+        CursorPublisher<Integer> publisher = new CursorPublisher<>(() -> {
+            opened.set(true);
+            return cursor(calls, rs);
+        }, null);
+
+        SlowSubscriber subscriber = new SlowSubscriber(() -> MockResultSet.getFetched(rs), 100);
+        publisher.subscribe(subscriber);
+        assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+
+        assertTrue(opened.get());
+        assertEquals(100, subscriber.received.size());
+        assertEquals(100, subscriber.received.get(99).intValue());
+        //Rows are pulled only as requested, at most one row is read ahead for eager completion
+        assertTrue("Read ahead:" + subscriber.maxAhead, subscriber.maxAhead <= 1);
+        assertTrue(MockResultSet.getFetched(rs) <= 101);
+        assertFalse(subscriber.completed);
+        assertTrue(MockResultSet.isClosed(rs));
+        assertEquals(Arrays.asList("prepareStatement", "executeQuery", "closeStatement", "close"), calls);
+    }
+
+    @Test
+    public void completeOnExecutor() throws Exception {
+        List<String> calls = new CopyOnWriteArrayList<>();
+        ResultSet rs = rows(ROWS - 9);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CursorPublisher<Integer> publisher = new CursorPublisher<>(() -> cursor(calls, rs), executor);
+
+        SlowSubscriber subscriber = new SlowSubscriber(() -> MockResultSet.getFetched(rs), Integer.MAX_VALUE);
+        publisher.subscribe(subscriber);
+        assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+        assertEquals(10, subscriber.received.size());
+        assertEquals(ROWS, subscriber.received.get(9).intValue());
+        assertTrue(subscriber.completed);
+        assertTrue(MockResultSet.isClosed(rs));
+        assertTrue(calls.contains("close"));
+        executor.shutdown();
+    }
+
+    @Test
+    public void publishRepository() throws Exception {
+        AtomicInteger fetched = new AtomicInteger();
+        AtomicBoolean closed = new AtomicBoolean();
+        Repository<Integer> repository = new StubRepository<Integer>(id -> null) {
+            @Override
+            public Stream<Integer> stream(int fetchSize, String[] columns, OrderBy orderBy, String query, Object... parameters) {
+                return Stream.iterate(1, i -> i + 1).limit(ROWS).peek(i -> fetched.incrementAndGet())
+                        .onClose(() -> closed.set(true));
+            }
+        };
+
+        SlowSubscriber subscriber = new SlowSubscriber(fetched::get, 10);
+        CursorPublisher.of(repository, null).subscribe(subscriber);
+        assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+        assertEquals(10, subscriber.received.size());
+        assertTrue(fetched.get() <= 11);
+        assertTrue(closed.get());
+    }
+}
@@ -0,0 +1,150 @@
+package org.femtoframework.orm.ext;
+
+import org.femtoframework.orm.NamedDataSource;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Logger;
+
+/**
+ * Embedded in-memory Derby for the integration tests, it records the prepared statements
+ */
+public class DerbyDataSource implements NamedDataSource {
+
+    static {
+        if (System.getProperty("derby.stream.error.file") == null) {
+            System.setProperty("derby.stream.error.file", "target/derby.log");
+        }
+    }
+
+    private final String url;
+
+    private final List<String> statements = new CopyOnWriteArrayList<>();
+
+    public DerbyDataSource(String database) {
+        this.url = "jdbc:derby:memory:" + database + ";create=true";
+    }
+
+    /**
+     * Execute the DDL or DML statements, the errors of "DROP" are ignored
+     *
+     * @param sqls Statements
+     * @throws SQLException SQL Exception
+     */
+    public void execute(String... sqls) throws SQLException {
+        try (Connection conn = DriverManager.getConnection(url); Statement stmt = conn.createStatement()) {
+            for(String sql : sqls) {
+                try {
+                    stmt.execute(sql);
+                }
+                catch (SQLException sqle) {
+                    if (!sql.startsWith("DROP")) {
+                        throw sqle;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Query one long value
+     *
+     * @param sql Query
+     * @return Value of the first column in the first row
+     * @throws SQLException SQL Exception
+     */
+    public long queryForLong(String sql) throws SQLException {
+        try (Connection conn = DriverManager.getConnection(url); Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * Statements prepared by the repositories since the last clear
+     *
+     * @return SQL of the statements
+     */
+    public List<String> getStatements() {
+        return statements;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection conn = DriverManager.getConnection(url);
+        return (Connection) Proxy.newProxyInstance(DerbyDataSource.class.getClassLoader(),
+                new Class[] {Connection.class}, (p, m, a) -> {
+                    if ("prepareStatement".equals(m.getName())) {
+                        statements.add((String) a[0]);
+                    }
+                    try {
+                        return m.invoke(conn, a);
+                    }
+                    catch (InvocationTargetException ite) {
+                        throw ite.getCause();
+                    }
+                });
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+
+    @Override
+    public String getName() {
+        return "derby";
+    }
+
+    @Override
+    public String getProvider() {
+        return "derby";
+    }
+
+    @Override
+    public boolean isDefault() {
+        return true;
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return 0;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        throw new SQLException("Not a wrapper");
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return false;
+    }
+}
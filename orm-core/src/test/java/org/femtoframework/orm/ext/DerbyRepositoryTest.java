@@ -0,0 +1,353 @@
+package org.femtoframework.orm.ext;
+
+import org.femtoframework.orm.Agg;
+import org.femtoframework.orm.AggregateRows;
+import org.femtoframework.orm.Repository;
+import org.femtoframework.orm.RepositoryException;
+import org.femtoframework.orm.domain.Device;
+import org.femtoframework.parameters.Parameters;
+import org.femtoframework.parameters.ParametersMap;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * JdbcRepository against embedded Derby
+ */
+public class DerbyRepositoryTest {
+
+    private DerbyDataSource dataSource;
+
+    @Before
+    public void setUp() throws Exception {
+        dataSource = new DerbyDataSource("repository");
+        dataSource.execute("DROP TABLE device", "DROP SEQUENCE device_id_seq RESTRICT",
+                "CREATE SEQUENCE device_id_seq AS INT START WITH 1",
+                "CREATE TABLE device (id INT NOT NULL PRIMARY KEY, product_no VARCHAR(15) NOT NULL, " +
+                        "model VARCHAR(10), uuid VARCHAR(15))",
+                "DROP TABLE ident",
+                "CREATE TABLE ident (id INT GENERATED ALWAYS AS IDENTITY PRIMARY KEY, product_no VARCHAR(15) NOT NULL, " +
+                        "model VARCHAR(10), uuid VARCHAR(15))");
+        dataSource.getStatements().clear();
+    }
+
+    private JdbcRepository<Device> repository(boolean dirtyTracking) {
+        JdbcRepository<Device> repository = new JdbcRepository<>();
+        repository.setDataSource(dataSource);
+        repository.setEntityClass(Device.class);
+        repository.setDirtyTracking(dirtyTracking);
+        repository.init();
+        return repository;
+    }
+
+    private static Device device(String productNo, String model) {
+        Device device = new Device();
+        device.setProductNo(productNo);
+        device.setModel(model);
+        device.setUuid("UUID");
+        return device;
+    }
+
+    private static List<Device> devices(int count) {
+        List<Device> devices = new ArrayList<>(count);
+        for(int i = 0; i < count; i ++) {
+            devices.add(device("P" + i, "M"));
+        }
+        return devices;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Parameters options(Object... pairs) {
+        Parameters options = new ParametersMap();
+        for(int i = 0; i < pairs.length; i += 2) {
+            options.put(pairs[i], pairs[i + 1]);
+        }
+        return options;
+    }
+
+    @Test
+    public void batchCommit() throws Exception {
+        JdbcRepository<Device> repository = repository(false);
+        Parameters options = options(Repository.OPTION_BATCH_SIZE, 100, Repository.OPTION_BATCH_COMMIT, true);
+        List<Device> devices = devices(250);
+        boolean[] created = repository.create(devices, options);
+        assertEquals(250, created.length);
+        for(boolean c : created) {
+            assertTrue(c);
+        }
+
+        //The missing row fails in its own chunk only
+        devices.get(120).setId(1000);
+        for(Device device : devices) {
+            device.setModel("U");
+        }
+        boolean[] updated = repository.update(devices, options);
+        for(int i = 0; i < updated.length; i ++) {
+            assertEquals(i != 120, updated[i]);
+        }
+        assertEquals(249, dataSource.queryForLong("SELECT COUNT(*) FROM device WHERE model = 'U'"));
+
+        //The chunks before the failed one are committed
+        List<Device> more = devices(250);
+        more.get(220).setProductNo(null);
+        try {
+            repository.create(more, options);
+            fail("product_no is not null");
+        }
+        catch (RepositoryException re) {
+            //Expected
+        }
+        assertEquals(450, dataSource.queryForLong("SELECT COUNT(*) FROM device"));
+    }
+
+    @Test
+    public void generatedKeys() throws Exception {
+        JdbcRepository<Device> repository = new JdbcRepository<>();
+        repository.setDataSource(dataSource);
+        repository.setEntityClass(Device.class);
+        repository.setTableName("ident");
+        repository.setIdentity(true);
+        repository.init();
+
+        Device device = device("P0", "M");
+        assertTrue(repository.create(device));
+        assertEquals(1, device.getId());
+
+        List<Device> devices = devices(5);
+        repository.create(devices, options(Repository.OPTION_BATCH_SIZE, 2));
+        for(int i = 0; i < devices.size(); i ++) {
+            assertEquals(i + 2, devices.get(i).getId());
+            assertEquals("P" + i, repository.getById(i + 2).getProductNo());
+        }
+    }
+
+    @Test
+    public void sequenceIds() throws Exception {
+        JdbcRepository<Device> repository = repository(false);
+        List<Device> devices = devices(3);
+        repository.create(devices);
+        for(int i = 0; i < devices.size(); i ++) {
+            assertEquals(i + 1, devices.get(i).getId());
+        }
+    }
+
+    @Test
+    public void pooledIds() throws Exception {
+        JdbcRepository<Device> repository = new JdbcRepository<>();
+        repository.setDataSource(dataSource);
+        repository.setEntityClass(Device.class);
+        repository.setIdBlockSize(10);
+        try {
+            repository.init();
+            fail("The sequence is INCREMENT BY 1");
+        }
+        catch (IllegalStateException ise) {
+            //Expected
+        }
+
+        dataSource.execute("DROP SEQUENCE device_id_seq RESTRICT",
+                "CREATE SEQUENCE device_id_seq AS INT START WITH 1 INCREMENT BY 10");
+        repository = new JdbcRepository<>();
+        repository.setDataSource(dataSource);
+        repository.setEntityClass(Device.class);
+        repository.setIdBlockSize(10);
+        repository.init();
+        List<Device> devices = devices(15);
+        repository.create(devices);
+        for(int i = 0; i < devices.size(); i ++) {
+            assertEquals(i + 1, devices.get(i).getId());
+        }
+        assertEquals(21, dataSource.queryForLong("VALUES NEXT VALUE FOR device_id_seq"));
+    }
+
+    @Test
+    public void multiRowInsert() throws Exception {
+        JdbcRepository<Device> repository = repository(false);
+        List<Device> devices = devices(100);
+        boolean[] created = repository.create(devices,
+                options(Repository.OPTION_BATCH_SIZE, 100, Repository.OPTION_ROWS_PER_INSERT, 64));
+        for(boolean c : created) {
+            assertTrue(c);
+        }
+        List<Integer> rows = new ArrayList<>();
+        for(String sql : dataSource.getStatements()) {
+            if (sql.startsWith("INSERT")) {
+                rows.add(sql.split("\\),\\(").length);
+            }
+        }
+        assertEquals(Arrays.asList(64, 32, 4), rows);
+        assertEquals(100, dataSource.queryForLong("SELECT COUNT(DISTINCT id) FROM device"));
+        assertEquals("P99", repository.getById(devices.get(99).getId()).getProductNo());
+    }
+
+    @Test
+    public void upsert() throws Exception {
+        JdbcRepository<Device> repository = repository(false);
+        Device device = device("P1", "A");
+        device.setId(10);
+        //MERGE can't tell the created row from the updated one
+        assertEquals(0, repository.save(device));
+        assertEquals("A", repository.getById(10).getModel());
+
+        device.setModel("B");
+        assertEquals(0, repository.save(device));
+        assertEquals("B", repository.getById(10).getModel());
+        assertEquals(1, dataSource.queryForLong("SELECT COUNT(*) FROM device"));
+
+        Device created = device("P2", "C");
+        assertEquals(1, repository.save(created));
+        assertTrue(created.getId() != 0);
+
+        Device other = device("P3", "D");
+        other.setId(20);
+        device.setModel("E");
+        assertArrayEquals(new boolean[] {true, true}, repository.save(Arrays.asList(device, other)));
+        assertEquals("E", repository.getById(10).getModel());
+        assertEquals("D", repository.getById(20).getModel());
+        assertEquals(3, dataSource.queryForLong("SELECT COUNT(*) FROM device"));
+    }
+
+    @Test
+    public void upsertRefreshesSnapshot() throws Exception {
+        JdbcRepository<Device> repository = repository(true);
+        assertTrue(repository.create(device("P1", "A")));
+
+        Device device = repository.getById(1);
+        device.setModel("B");
+        assertEquals(0, repository.save(device));
+        assertEquals("B", repository.getById(1).getModel());
+
+        //The snapshot holds "B" now, so setting "A" back is a change
+        device.setModel("A");
+        assertTrue(repository.update(device));
+        assertEquals("A", repository.getById(1).getModel());
+
+        Device other = repository.getById(1);
+        other.setModel("C");
+        assertArrayEquals(new boolean[] {true}, repository.save(Collections.singletonList(other)));
+        other.setModel("A");
+        assertTrue(repository.update(other));
+        assertEquals("A", repository.getById(1).getModel());
+    }
+
+    @Test
+    public void partialUpdate() throws Exception {
+        JdbcRepository<Device> repository = repository(true);
+        assertTrue(repository.create(device("P1", "A")));
+        assertTrue(repository.create(device("P2", "A")));
+
+        Device device = repository.getById(1);
+        //Changed by others after it was loaded
+        dataSource.execute("UPDATE device SET uuid = 'OTHER' WHERE id = 1");
+        dataSource.getStatements().clear();
+        device.setModel("B");
+        assertTrue(repository.update(device));
+        assertEquals(Collections.singletonList("UPDATE device SET model=? WHERE id = ?"), dataSource.getStatements());
+        Device updated = repository.getById(1);
+        assertEquals("B", updated.getModel());
+        assertEquals("OTHER", updated.getUuid());
+
+        //Nothing changed, no statement at all
+        dataSource.getStatements().clear();
+        assertTrue(repository.update(device));
+        assertTrue(dataSource.getStatements().isEmpty());
+
+        Device other = repository.getById(2);
+        dataSource.getStatements().clear();
+        device.setModel("C");
+        device.setProductNo("Q1");
+        other.setModel("C");
+        other.setProductNo("Q2");
+        assertArrayEquals(new boolean[] {true, true}, repository.update(Arrays.asList(device, other)));
+        assertEquals(Collections.singletonList("UPDATE device SET model=?,product_no=? WHERE id = ?"),
+                dataSource.getStatements());
+        assertEquals("OTHER", repository.getById(1).getUuid());
+        assertEquals("Q2", repository.getById(2).getProductNo());
+    }
+
+    @Test
+    public void deleteByIds() throws Exception {
+        JdbcRepository<Device> repository = repository(false);
+        repository.create(devices(4));
+
+        //Without "delete_status" the statuses don't depend on which ids share a chunk
+        assertArrayEquals(new boolean[] {true, true, true}, repository.deleteByIds(1, 2, 999));
+        assertArrayEquals(new boolean[] {true, true}, repository.deleteByIds(1, 999));
+        assertEquals(2, dataSource.queryForLong("SELECT COUNT(*) FROM device"));
+
+        Parameters options = options(Repository.OPTION_DELETE_STATUS, true);
+        assertArrayEquals(new boolean[] {true, false, true, true},
+                repository.deleteByIds(options, 3, 999, 4, 3));
+        assertEquals(0, dataSource.queryForLong("SELECT COUNT(*) FROM device"));
+    }
+
+    @Test
+    public void aggregate() throws Exception {
+        dataSource.execute("DROP TABLE ledger",
+                "CREATE TABLE ledger (id INT NOT NULL PRIMARY KEY, device_id INT, amount BIGINT)",
+                "INSERT INTO ledger VALUES (1, 1, 9007199254740993), (2, 1, 2), (3, 2, 5)");
+        ParametersRepository repository = new ParametersRepository();
+        repository.setTableName("ledger");
+        repository.setDataSource(dataSource);
+        repository.init();
+
+        //2^53 + 3 is not a double
+        assertEquals(9007199254740995L, repository.aggregateLong(Agg.sum("amount"), "device_id = ?", 1));
+        assertEquals(3, repository.aggregateLong(Agg.count(), null));
+        assertEquals(0, repository.aggregateLong(Agg.sum("amount"), "device_id = ?", 3));
+
+        AggregateRows rows = repository.aggregate(new Agg[] {Agg.sum("amount"), Agg.avg("id"), Agg.max("amount")},
+                Agg.groupBy("device_id"), "device_id = ?", 1);
+        assertEquals(1, rows.size());
+        assertTrue(rows.isIntegral(0));
+        assertFalse(rows.isIntegral(1));
+        assertEquals(9007199254740995L, rows.getLong(0, 0));
+        assertEquals(1.5, rows.getValue(0, 1), 0.0001);
+        assertArrayEquals(new long[] {9007199254740993L}, rows.getLongs(2));
+
+        rows = repository.aggregate(new Agg[] {Agg.max("amount")}, (String[]) null, "device_id = ?", 3);
+        assertTrue(rows.isNull(0, 0));
+        assertTrue(Double.isNaN(rows.getValue(0, 0)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void parametersColumns() throws Exception {
+        ParametersRepository repository = new ParametersRepository();
+        repository.setTableName("device");
+        repository.setDataSource(dataSource);
+        repository.init();
+
+        Parameters row = new ParametersMap();
+        row.put("product_no", "P1");
+        row.put("MODEL", "A");
+        assertTrue(repository.create(row));
+        assertEquals(1L, ((Number) row.get("id")).longValue());
+
+        Parameters bad = new ParametersMap();
+        bad.put("product_no", "P2");
+        bad.put("model) SELECT 1 FROM device --", "A");
+        try {
+            repository.create(bad);
+            fail("The key is not a column");
+        }
+        catch (IllegalArgumentException iae) {
+            //Expected
+        }
+        bad.put("id", 1);
+        try {
+            repository.update(bad);
+            fail("The key is not a column");
+        }
+        catch (IllegalArgumentException iae) {
+            //Expected
+        }
+        assertEquals(1, dataSource.queryForLong("SELECT COUNT(*) FROM device"));
+    }
+}
@@ -0,0 +1,97 @@
+package org.femtoframework.orm.ext;
+
+import org.femtoframework.orm.RepositoryException;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class GroupCommitExecutorTest {
+
+    @Test
+    public void execute() throws Exception {
+        List<String> calls = new CopyOnWriteArrayList<>();
+        DataSource dataSource = MockConnection.dataSource(calls);
+        GroupCommitExecutor executor = new GroupCommitExecutor(dataSource, 5000, 16);
+
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for(int t = 0; t < threads; t ++) {
+            for(int i = 0; i < 50; i ++) {
+                int value = t * 100 + i;
+                futures.add(pool.submit(() -> executor.execute(() -> {
+                    //The repositories in the write get the connection of the group
+                    Connection conn = GroupCommitExecutor.getConnection(dataSource);
+                    assertNotNull(conn);
+                    try {
+                        assertFalse(conn.getAutoCommit());
+                        conn.commit();
+                        conn.close();
+                    }
+                    catch (SQLException sqle) {
+                        throw new RepositoryException("Unexpected", sqle);
+                    }
+                    return value;
+                })));
+            }
+        }
+        for(int i = 0; i < futures.size(); i ++) {
+            assertEquals((i / 50) * 100 + i % 50, futures.get(i).get().intValue());
+        }
+        pool.shutdown();
+
+        assertEquals(400, executor.getWriteCount());
+        assertTrue(executor.getCommitCount() < 400);
+        long commits = calls.stream().filter("commit"::equals).count();
+        assertEquals(executor.getCommitCount(), commits);
+        assertEquals(commits, calls.stream().filter("getConnection"::equals).count());
+        assertEquals(commits, calls.stream().filter("close"::equals).count());
+        assertNull(GroupCommitExecutor.getConnection(dataSource));
+    }
+
+    @Test
+    public void failedWrite() throws Exception {
+        List<String> calls = new CopyOnWriteArrayList<>();
+        DataSource dataSource = MockConnection.dataSource(calls);
+        GroupCommitExecutor executor = new GroupCommitExecutor(dataSource, 50_000, 2);
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        Future<Integer> ok = pool.submit(() -> executor.execute(() -> 1));
+        try {
+            executor.execute(() -> {
+                throw new RepositoryException("Bad write");
+            });
+            fail("The write should fail");
+        }
+        catch (RepositoryException re) {
+            assertEquals("Bad write", re.getMessage());
+        }
+        assertEquals(1, ok.get().intValue());
+        pool.shutdown();
+
+        assertEquals(1, executor.getCommitCount());
+        assertEquals(1, calls.stream().filter("rollbackToSavepoint"::equals).count());
+        assertEquals(1, calls.stream().filter("commit"::equals).count());
+        assertFalse(calls.contains("rollback"));
+    }
+
+    @Test
+    public void nestedWrite() throws Exception {
+        List<String> calls = new CopyOnWriteArrayList<>();
+        DataSource dataSource = MockConnection.dataSource(calls);
+        GroupCommitExecutor executor = new GroupCommitExecutor(dataSource, 0, 64);
+        assertEquals("nested", executor.execute(() -> executor.execute(() -> "nested")));
+        assertEquals(1, executor.getWriteCount());
+        assertEquals(1, executor.getCommitCount());
+    }
+}
@@ -27,4 +27,10 @@ public class JdbcRepositoryTest {
         indexedQuery = jdbcRepository.toIndexedQuery("");
         assertNull(indexedQuery);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void toUniqueIds() {
+        assertArrayEquals(new long[] {1, 3, 5}, JdbcRepository.toUniqueIds(new long[] {5, 1, 3, 1, 5}));
+        assertArrayEquals(new long[0], JdbcRepository.toUniqueIds(new long[0]));
+    }
+}
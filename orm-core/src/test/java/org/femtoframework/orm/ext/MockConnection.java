@@ -0,0 +1,102 @@
+package org.femtoframework.orm.ext;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Savepoint;
+import java.util.List;
+
+/**
+ * Connection for testing the transaction handling without database,
+ * it records "getConnection", "commit", "rollback", "rollbackToSavepoint", "close" and the other unhandled calls.
+ * The statements it prepares return the given ResultSet on "executeQuery", they record "prepareStatement",
+ * "executeQuery" and "closeStatement".
+ */
+public class MockConnection implements InvocationHandler {
+
+    private final List<String> calls;
+    private final ResultSet resultSet;
+    private volatile boolean autoCommit = true;
+
+    private MockConnection(List<String> calls, ResultSet resultSet) {
+        this.calls = calls;
+        this.resultSet = resultSet;
+    }
+
+    public static Connection of(List<String> calls) {
+        return of(calls, null);
+    }
+
+    /**
+     * Connection whose statements query the given ResultSet
+     *
+     * @param calls Recorded calls
+     * @param resultSet ResultSet returned by "executeQuery", for example, one created by MockResultSet
+     * @return Connection
+     */
+    public static Connection of(List<String> calls, ResultSet resultSet) {
+        return (Connection)Proxy.newProxyInstance(MockConnection.class.getClassLoader(),
+                new Class[] {Connection.class}, new MockConnection(calls, resultSet));
+    }
+
+    /**
+     * DataSource returning the same connection for every getConnection
+     *
+     * @param calls Recorded calls
+     * @return DataSource
+     */
+    public static DataSource dataSource(List<String> calls) {
+        Connection conn = of(calls);
+        return (DataSource)Proxy.newProxyInstance(MockConnection.class.getClassLoader(),
+                new Class[] {DataSource.class}, (p, m, a) -> {
+                    if ("getConnection".equals(m.getName())) {
+                        calls.add("getConnection");
+                        return conn;
+                    }
+                    throw new UnsupportedOperationException(m.getName());
+                });
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "getAutoCommit":
+                return autoCommit;
+            case "setAutoCommit":
+                autoCommit = (Boolean)args[0];
+                return null;
+            case "setSavepoint":
+                return Proxy.newProxyInstance(MockConnection.class.getClassLoader(),
+                        new Class[] {Savepoint.class}, (p, m, a) -> null);
+            case "releaseSavepoint":
+                return null;
+            case "prepareStatement":
+                calls.add("prepareStatement");
+                return Proxy.newProxyInstance(MockConnection.class.getClassLoader(),
+                        new Class[] {PreparedStatement.class}, (p, m, a) -> {
+                            switch (m.getName()) {
+                                case "executeQuery":
+                                    calls.add("executeQuery");
+                                    return resultSet;
+                                case "close":
+                                    calls.add("closeStatement");
+                                    return null;
+                                default:
+                                    throw new UnsupportedOperationException(m.getName());
+                            }
+                        });
+            case "isClosed":
+                return false;
+            case "rollback":
+                calls.add(args == null ? "rollback" : "rollbackToSavepoint");
+                return null;
+            default:
+                calls.add(method.getName());
+                return null;
+        }
+    }
+}
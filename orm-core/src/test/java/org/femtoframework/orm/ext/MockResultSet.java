@@ -0,0 +1,112 @@
+package org.femtoframework.orm.ext;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+
+/**
+ * In-memory ResultSet for testing row mapping without database
+ */
+public class MockResultSet implements InvocationHandler {
+
+    private final String[] labels;
+    private final Object[][] rows;
+    private int row = -1;
+    private boolean wasNull = false;
+    private int reads = 0;
+    private boolean closed = false;
+
+    private MockResultSet(String[] labels, Object[][] rows) {
+        this.labels = labels;
+        this.rows = rows;
+    }
+
+    public static ResultSet of(String[] labels, Object[]... rows) {
+        return (ResultSet)Proxy.newProxyInstance(MockResultSet.class.getClassLoader(),
+                new Class[] {ResultSet.class}, new MockResultSet(labels, rows));
+    }
+
+    public static int getReads(ResultSet rs) {
+        return ((MockResultSet)Proxy.getInvocationHandler(rs)).reads;
+    }
+
+    /**
+     * Number of rows which have been fetched by "next"
+     *
+     * @param rs ResultSet created by "of"
+     * @return Fetched rows
+     */
+    public static int getFetched(ResultSet rs) {
+        MockResultSet handler = (MockResultSet)Proxy.getInvocationHandler(rs);
+        return Math.min(handler.row + 1, handler.rows.length);
+    }
+
+    public static boolean isClosed(ResultSet rs) {
+        return ((MockResultSet)Proxy.getInvocationHandler(rs)).closed;
+    }
+
+    private int indexOf(String label) {
+        for(int i = 0; i < labels.length; i ++) {
+            if (labels[i].equalsIgnoreCase(label)) {
+                return i + 1;
+            }
+        }
+        throw new IllegalArgumentException("No such column:" + label);
+    }
+
+    private Object value(Object column) {
+        int index = column instanceof String ? indexOf((String)column) : (Integer)column;
+        Object value = rows[row][index - 1];
+        wasNull = value == null;
+        reads ++;
+        return value;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        switch (name) {
+            case "next":
+                return ++ row < rows.length;
+            case "wasNull":
+                return wasNull;
+            case "close":
+                closed = true;
+                return null;
+            case "getMetaData":
+                return Proxy.newProxyInstance(MockResultSet.class.getClassLoader(),
+                        new Class[] {ResultSetMetaData.class}, (p, m, a) -> {
+                            switch (m.getName()) {
+                                case "getColumnCount":
+                                    return labels.length;
+                                case "getColumnLabel":
+                                case "getColumnName":
+                                    return labels[(Integer)a[0] - 1];
+                                default:
+                                    throw new UnsupportedOperationException(m.getName());
+                            }
+                        });
+            case "getObject":
+                return value(args[0]);
+            case "getString":
+                Object str = value(args[0]);
+                return str == null ? null : String.valueOf(str);
+            case "getInt":
+                Object i = value(args[0]);
+                return i == null ? 0 : ((Number)i).intValue();
+            case "getLong":
+                Object l = value(args[0]);
+                return l == null ? 0L : ((Number)l).longValue();
+            case "getDouble":
+                Object d = value(args[0]);
+                return d == null ? 0.0 : ((Number)d).doubleValue();
+            case "getBoolean":
+                Object b = value(args[0]);
+                return b != null && (Boolean)b;
+            default:
+                throw new UnsupportedOperationException(name);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.femtoframework.orm.ext;
+
+import org.femtoframework.orm.IdAllocator;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class PooledIdAllocatorTest {
+
+    @Test
+    public void nextId() throws Exception {
+        //Sequence "START WITH 1 INCREMENT BY 10"
+        AtomicLong sequence = new AtomicLong(1);
+        AtomicInteger trips = new AtomicInteger();
+        IdAllocator blocks = conn -> {
+            trips.incrementAndGet();
+            return sequence.getAndAdd(10);
+        };
+        PooledIdAllocator allocator = new PooledIdAllocator(blocks, 10);
+        for(long i = 1; i <= 25; i ++) {
+            assertEquals(i, allocator.nextId(null));
+        }
+        assertEquals(3, trips.get());
+
+        long[] ids = allocator.nextIds(null, 5);
+        assertEquals(26, ids[0]);
+        assertEquals(30, ids[4]);
+        assertEquals(3, trips.get());
+    }
+
+    @Test
+    public void concurrent() throws Exception {
+        AtomicLong sequence = new AtomicLong(1);
+        PooledIdAllocator allocator = new PooledIdAllocator(conn -> sequence.getAndAdd(50), 50);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        ConcurrentHashMap<Long, Boolean> ids = new ConcurrentHashMap<>();
+        List<Future<?>> futures = new ArrayList<>();
+        for(int t = 0; t < threads; t ++) {
+            futures.add(executor.submit(() -> {
+                for(int i = 0; i < 10000; i ++) {
+                    assertNull(ids.put(allocator.nextId(null), Boolean.TRUE));
+                }
+                return null;
+            }));
+        }
+        for(Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertEquals(threads * 10000, ids.size());
+    }
+}
@@ -0,0 +1,134 @@
+package org.femtoframework.orm.ext;
+
+import org.femtoframework.bean.info.BeanInfo;
+import org.femtoframework.bean.info.BeanInfoUtil;
+import org.femtoframework.bean.info.PropertyInfo;
+import org.femtoframework.orm.domain.Device;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.JDBCType;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class PropertyAccessorTest {
+
+    @Test
+    public void getAndSet() {
+        BeanInfo beanInfo = BeanInfoUtil.getBeanInfo(Device.class, true);
+        PropertyAccessor id = PropertyAccessor.of(beanInfo.getProperty("id"));
+        PropertyAccessor model = PropertyAccessor.of(beanInfo.getProperty("model"));
+        assertTrue(id.isGenerated());
+        assertTrue(model.isGenerated());
+        assertEquals("product_no", PropertyAccessor.of(beanInfo.getProperty("productNo")).getColumnName());
+
+        Device device = new Device();
+        id.set(device, 12);
+        model.set(device, "AI-600");
+        assertEquals(12, device.getId());
+        assertEquals(12, id.get(device));
+        assertEquals("AI-600", model.get(device));
+
+        //Converted through PropertyInfo
+        id.set(device, 13L);
+        assertEquals(13, device.getId());
+        model.set(device, null);
+        assertNull(device.getModel());
+    }
+
+    @Test
+    public void readAndBind() throws Exception {
+        BeanInfo beanInfo = BeanInfoUtil.getBeanInfo(Device.class, true);
+        PropertyAccessor id = PropertyAccessor.of(beanInfo.getProperty("id"));
+        PropertyAccessor uuid = PropertyAccessor.of(beanInfo.getProperty("uuid"));
+        assertTrue(id.isPrimitive());
+        assertFalse(uuid.isPrimitive());
+        assertEquals(JDBCType.INTEGER, id.getSqlType());
+
+        ResultSet rs = MockResultSet.of(new String[] {"id", "uuid"},
+                new Object[] {5, "ABC"}, new Object[] {null, null});
+        Device device = new Device();
+        assertTrue(rs.next());
+        id.read(device, rs, 1);
+        uuid.read(device, rs, 2);
+        assertEquals(5, device.getId());
+        assertEquals("ABC", device.getUuid());
+
+        device = new Device();
+        device.setUuid("DEF");
+        assertTrue(rs.next());
+        id.read(device, rs, 1);
+        uuid.read(device, rs, 2);
+        assertEquals(0, device.getId());
+        assertNull(device.getUuid());
+
+        List<String> calls = new ArrayList<>();
+        PreparedStatement pstmt = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[] {PreparedStatement.class}, (proxy, method, args) -> {
+                    calls.add(method.getName() + ":" + args[0] + ":" + args[1]);
+                    return null;
+                });
+        device.setId(7);
+        id.bind(device, pstmt, 1);
+        uuid.bindObject(pstmt, 2, device.getUuid());
+        assertEquals("setInt:1:7", calls.get(0));
+        assertEquals("setNull:2:" + JDBCType.VARCHAR.getVendorTypeNumber(), calls.get(1));
+    }
+
+    /**
+     * Per row cost of hydrating and binding a Device, reflective PropertyInfo vs generated accessors,
+     * it only runs with "-Dbenchmark=true"
+     */
+    @Test
+    public void benchmark() {
+        assumeTrue(Boolean.getBoolean("benchmark"));
+        BeanInfo beanInfo = BeanInfoUtil.getBeanInfo(Device.class, true);
+        List<PropertyInfo> infos = new ArrayList<>(beanInfo.getProperties());
+        List<PropertyAccessor> accessors = new ArrayList<>();
+        Object[] values = new Object[infos.size()];
+        for(int i = 0; i < infos.size(); i ++) {
+            PropertyInfo info = infos.get(i);
+            accessors.add(PropertyAccessor.of(info));
+            values[i] = "id".equals(info.getName()) ? (Object)i : "value" + i;
+        }
+
+        int rows = 200000;
+        long sink = 0;
+        long reflection = 0;
+        long generated = 0;
+        for(int round = 0; round < 3; round ++) {
+            long start = System.nanoTime();
+            for (int r = 0; r < rows; r++) {
+                Device device = new Device();
+                for (int i = 0; i < values.length; i++) {
+                    infos.get(i).invokeSetter(device, values[i]);
+                }
+                for (int i = 0; i < values.length; i++) {
+                    sink += infos.get(i).invokeGetter(device) != null ? 1 : 0;
+                }
+            }
+            reflection = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int r = 0; r < rows; r++) {
+                Device device = new Device();
+                for (int i = 0; i < values.length; i++) {
+                    accessors.get(i).set(device, values[i]);
+                }
+                for (int i = 0; i < values.length; i++) {
+                    sink += accessors.get(i).get(device) != null ? 1 : 0;
+                }
+            }
+            generated = System.nanoTime() - start;
+        }
+        assertTrue(sink > 0);
+        //The last round is warmed up
+        assertTrue("PropertyInfo=" + (reflection / rows) + "ns, PropertyAccessor=" + (generated / rows) + "ns per row",
+                generated < reflection);
+    }
+}
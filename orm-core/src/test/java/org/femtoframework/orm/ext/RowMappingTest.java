@@ -0,0 +1,67 @@
+package org.femtoframework.orm.ext;
+
+import org.femtoframework.orm.Repository;
+import org.femtoframework.orm.domain.Device;
+import org.junit.Test;
+
+import java.sql.ResultSet;
+
+import static org.junit.Assert.*;
+
+public class RowMappingTest {
+
+    @Test
+    public void newEntity() throws Exception {
+        JdbcRepository<Device> repository = new JdbcRepository<>();
+        repository.setEntityClass(Device.class);
+        repository.initEntity();
+
+        ResultSet rs = MockResultSet.of(new String[] {"ID", "PRODUCT_NO", "MODEL", "UUID", "EXTRA"},
+                new Object[] {1, "600123456789", "AI-600", "ABCDEF", "ignored"},
+                new Object[] {2, "600123456790", "AI-700", null, "ignored"});
+
+        RowMapping mapping = repository.getRowMapping(rs);
+        assertEquals(4, mapping.size());
+        assertSame(mapping, repository.getRowMapping(rs));
+
+        assertTrue(rs.next());
+        Device device = repository.newEntity(rs, mapping);
+        assertEquals(1, device.getId());
+        assertEquals("600123456789", device.getProductNo());
+        assertEquals("AI-600", device.getModel());
+        assertEquals("ABCDEF", device.getUuid());
+
+        assertTrue(rs.next());
+        device = repository.newEntity(rs, mapping);
+        assertEquals(2, device.getId());
+        assertEquals("AI-700", device.getModel());
+        assertNull(device.getUuid());
+        assertFalse(rs.next());
+    }
+
+    @Test
+    public void projection() throws Exception {
+        JdbcRepository<Device> repository = new JdbcRepository<>();
+        repository.setEntityClass(Device.class);
+        repository.initEntity();
+
+        String[] projection = repository.toProjection(new String[] {"id", "productNo"});
+        assertArrayEquals(new String[] {"id", "product_no"}, projection);
+        assertNull(repository.toProjection(Repository.LIST_ALL_COLUMNS));
+        assertNull(repository.getRowMapping(new String[] {"count(*)"}));
+
+        RowMapping mapping = repository.getRowMapping(projection);
+        assertEquals(2, mapping.size());
+        assertSame(mapping, repository.getRowMapping(projection));
+
+        ResultSet rs = MockResultSet.of(new String[] {"ID", "PRODUCT_NO"},
+                new Object[] {1, "600123456789"});
+        assertTrue(rs.next());
+        Device device = repository.newEntity(rs, mapping);
+        assertEquals(1, device.getId());
+        assertEquals("600123456789", device.getProductNo());
+        assertNull(device.getModel());
+        assertNull(device.getUuid());
+        assertEquals(2, MockResultSet.getReads(rs));
+    }
+}
@@ -0,0 +1,75 @@
+package org.femtoframework.orm.ext;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class RowParametersTest {
+
+    @Test
+    public void getAndPut() {
+        RowParameters.Shape shape = new RowParameters.Shape("id", "product_no", "model");
+        RowParameters row = new RowParameters(shape, new Object[] {1, "P1", null});
+        RowParameters other = new RowParameters(shape, new Object[] {2, "P2", "M2"});
+
+        assertEquals(3, row.size());
+        assertEquals(1, row.getInt("id"));
+        assertEquals("P1", row.getString("PRODUCT_NO"));
+        assertTrue(row.containsKey("model"));
+        assertNull(row.get("model"));
+        assertFalse(row.containsKey("uuid"));
+
+        assertNull(row.put("model", "M1"));
+        assertEquals("M1", row.get("model"));
+        assertSame(shape, row.getShape());
+
+        //New column switches to the shared extended shape
+        row.put("uuid", "U1");
+        other.put("uuid", "U2");
+        assertEquals(4, row.size());
+        assertNotSame(shape, row.getShape());
+        assertSame(row.getShape(), other.getShape());
+        assertEquals("U1", row.get("uuid"));
+
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("id", 1);
+        expected.put("product_no", "P1");
+        expected.put("model", "M1");
+        expected.put("uuid", "U1");
+        assertEquals(expected, row);
+    }
+
+    @Test
+    public void remove() {
+        RowParameters.Shape shape = new RowParameters.Shape("id", "product_no", "model");
+        RowParameters row = new RowParameters(shape, new Object[] {1, "P1", "M1"});
+        RowParameters other = new RowParameters(shape, new Object[] {2, "P2", "M2"});
+
+        //Removed column switches to the shared reduced shape
+        assertEquals("P1", row.remove("PRODUCT_NO"));
+        assertEquals("P2", other.remove("product_no"));
+        assertEquals(2, row.size());
+        assertFalse(row.containsKey("product_no"));
+        assertSame(row.getShape(), other.getShape());
+        assertArrayEquals(new String[] {"id", "model"}, row.getShape().getColumns());
+        assertEquals(1, row.getInt("id"));
+        assertEquals("M1", row.get("model"));
+        assertNull(row.remove("product_no"));
+
+        //The shape of the other rows is not changed
+        assertEquals(3, shape.size());
+
+        row.clear();
+        assertTrue(row.isEmpty());
+        assertNull(row.put("id", 3));
+        assertEquals(3, row.getInt("id"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrongValues() {
+        new RowParameters(new RowParameters.Shape("id"), new Object[0]);
+    }
+}
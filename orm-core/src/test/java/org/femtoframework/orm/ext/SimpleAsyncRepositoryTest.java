@@ -0,0 +1,99 @@
+package org.femtoframework.orm.ext;
+
+import org.femtoframework.orm.RepositoryException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SimpleAsyncRepositoryTest {
+
+    @Test
+    public void maxInFlight() throws Exception {
+        ExecutorService executor = SimpleAsyncRepository.newExecutor("test");
+        SimpleAsyncRepository<Object> async = new SimpleAsyncRepository<>(null, executor, 3);
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for(int i = 0; i < 20; i ++) {
+            int value = i;
+            futures.add(async.execute(repository -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(10);
+                }
+                catch (InterruptedException e) {
+                    throw new RepositoryException("Interrupted", e);
+                }
+                running.decrementAndGet();
+                return value;
+            }));
+        }
+        for(int i = 0; i < 20; i ++) {
+            assertEquals(i, futures.get(i).get().intValue());
+        }
+        assertTrue(peak.get() <= 3);
+        assertEquals(0, async.getInFlight());
+        assertEquals(0, async.getPending());
+
+        CompletableFuture<Object> failed = async.execute(repository -> {
+            throw new RepositoryException("Failed");
+        });
+        try {
+            failed.get();
+            fail("It should fail");
+        }
+        catch (ExecutionException ee) {
+            assertTrue(ee.getCause() instanceof RepositoryException);
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    public void sharedLimiter() throws Exception {
+        ExecutorService executor = SimpleAsyncRepository.newExecutor("test");
+        InFlightLimiter limiter = new InFlightLimiter(executor, 1, 2);
+        SimpleAsyncRepository<Object> first = new SimpleAsyncRepository<>(null, limiter);
+        SimpleAsyncRepository<Object> second = new SimpleAsyncRepository<>(null, limiter);
+
+        CountDownLatch blocker = new CountDownLatch(1);
+        CompletableFuture<Integer> running = first.execute(repository -> {
+            try {
+                blocker.await();
+            }
+            catch (InterruptedException e) {
+                throw new RepositoryException("Interrupted", e);
+            }
+            return 1;
+        });
+        CompletableFuture<Integer> queued1 = second.execute(repository -> 2);
+        CompletableFuture<Integer> queued2 = first.execute(repository -> 3);
+        assertEquals(1, second.getInFlight());
+        assertEquals(2, second.getPending());
+
+        CompletableFuture<Integer> rejected = second.execute(repository -> 4);
+        try {
+            rejected.get();
+            fail("It should be rejected");
+        }
+        catch (ExecutionException ee) {
+            assertTrue(ee.getCause() instanceof RejectedExecutionException);
+        }
+
+        blocker.countDown();
+        assertEquals(1, running.get().intValue());
+        assertEquals(2, queued1.get().intValue());
+        assertEquals(3, queued2.get().intValue());
+        assertEquals(0, limiter.getPending());
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,27 @@
+package org.femtoframework.orm.ext;
+
+import org.femtoframework.orm.domain.Device;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SnapshotMapTest {
+
+    @Test
+    public void identity() {
+        SnapshotMap snapshots = new SnapshotMap();
+        Device device = new Device();
+        Device equal = new Device();
+        Object[] values = {"P1"};
+        snapshots.put(device, values);
+
+        //Found by identity even if its hashCode changed
+        device.setProductNo("P2");
+        assertSame(values, snapshots.get(device));
+        assertNull(snapshots.get(equal));
+
+        snapshots.remove(device);
+        assertNull(snapshots.get(device));
+        assertEquals(0, snapshots.size());
+    }
+}
@@ -0,0 +1,112 @@
+package org.femtoframework.orm.ext;
+
+import org.femtoframework.orm.LongObjectMap;
+import org.femtoframework.orm.Repository;
+import org.femtoframework.orm.RepositoryException;
+import org.femtoframework.parameters.Parameters;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.LongFunction;
+
+/**
+ * In-memory delegate for testing the repositories which add behaviors on particular calls.
+ * It loads the entities of getByIds by the loader and records the batches of create,
+ * the other calls are unsupported.
+ *
+ * @param <E> Entity
+ */
+public class StubRepository<E> extends DelegatingRepository<E> {
+
+    private final LongFunction<E> loader;
+
+    private final CountDownLatch blocker;
+
+    private final List<long[]> queries = new CopyOnWriteArrayList<>();
+
+    private final List<List<E>> batches = new CopyOnWriteArrayList<>();
+
+    /**
+     * Stub with given loader
+     *
+     * @param loader Entity of the id, null means the id doesn't exist
+     */
+    public StubRepository(LongFunction<E> loader) {
+        this(loader, new CountDownLatch(0));
+    }
+
+    /**
+     * Stub with given loader and blocker
+     *
+     * @param loader Entity of the id, null means the id doesn't exist
+     * @param blocker The batch create waits until it counts down
+     */
+    public StubRepository(LongFunction<E> loader, CountDownLatch blocker) {
+        super(unsupported());
+        this.loader = loader;
+        this.blocker = blocker;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> Repository<E> unsupported() {
+        return (Repository<E>) Proxy.newProxyInstance(StubRepository.class.getClassLoader(),
+                new Class[] {Repository.class}, (p, m, a) -> {
+                    throw new UnsupportedOperationException(m.getName());
+                });
+    }
+
+    @Override
+    public String getName() {
+        return "stub";
+    }
+
+    @Override
+    public LongObjectMap<E> getByIds(String[] columns, long... ids) throws RepositoryException {
+        queries.add(ids);
+        LongObjectMap<E> map = new LongObjectMap<>(ids.length);
+        for(long id : ids) {
+            E entity = loader.apply(id);
+            if (entity != null) {
+                map.put(id, entity);
+            }
+        }
+        return map;
+    }
+
+    @Override
+    public boolean[] create(List<E> entities, Parameters options) throws RepositoryException {
+        try {
+            blocker.await();
+        }
+        catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new RepositoryException("Interrupted", ie);
+        }
+        batches.add(new ArrayList<>(entities));
+        boolean[] created = new boolean[entities.size()];
+        Arrays.fill(created, true);
+        return created;
+    }
+
+    /**
+     * Ids of every getByIds
+     *
+     * @return Ids of the queries
+     */
+    public List<long[]> getQueries() {
+        return queries;
+    }
+
+    /**
+     * Entities of every batch create
+     *
+     * @return Batches
+     */
+    public List<List<E>> getBatches() {
+        return batches;
+    }
+}
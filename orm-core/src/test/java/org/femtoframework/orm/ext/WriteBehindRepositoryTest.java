@@ -0,0 +1,108 @@
+package org.femtoframework.orm.ext;
+
+import org.femtoframework.orm.RepositoryException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class WriteBehindRepositoryTest {
+
+    @Test
+    public void create() throws Exception {
+        StubRepository<String> delegate = new StubRepository<>(id -> null);
+        WriteBehindRepository<String> repository = new WriteBehindRepository<>(delegate, 1000, 100, 10, 1000);
+        repository.start();
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<List<CompletableFuture<Boolean>>>> futures = new ArrayList<>();
+        for(int t = 0; t < threads; t ++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                List<CompletableFuture<Boolean>> list = new ArrayList<>();
+                for(int i = 0; i < 100; i ++) {
+                    list.add(repository.enqueue(thread + "-" + i));
+                }
+                return list;
+            }));
+        }
+        for(Future<List<CompletableFuture<Boolean>>> future : futures) {
+            for(CompletableFuture<Boolean> created : future.get()) {
+                assertTrue(created.get(5, TimeUnit.SECONDS));
+            }
+        }
+        executor.shutdown();
+
+        int total = 0;
+        for(List<String> batch : delegate.getBatches()) {
+            assertTrue(batch.size() <= 100);
+            total += batch.size();
+        }
+        assertEquals(800, total);
+        assertTrue(repository.getFlushCount() < 800);
+        repository.stop();
+    }
+
+    @Test
+    public void backpressure() throws Exception {
+        CountDownLatch blocker = new CountDownLatch(1);
+        WriteBehindRepository<String> repository = new WriteBehindRepository<>(
+                new StubRepository<>(id -> null, blocker), 4, 2, 10_000, 50);
+        repository.start();
+        for(int i = 0; i < 4; i ++) {
+            repository.create("E" + i);
+        }
+        try {
+            repository.create("E4");
+            fail("The buffer should be full");
+        }
+        catch (RepositoryException re) {
+            //Expected
+        }
+        blocker.countDown();
+        //The space comes back after the blocked batches are written, the second one reaches the flush size
+        CompletableFuture<Boolean> future = repository.enqueue("E5");
+        repository.enqueue("E6");
+        assertTrue(future.get(5, TimeUnit.SECONDS));
+        repository.stop();
+    }
+
+    @Test
+    public void flushOnStop() throws Exception {
+        StubRepository<String> delegate = new StubRepository<>(id -> null);
+        WriteBehindRepository<String> repository = new WriteBehindRepository<>(delegate, 100, 50, 60_000, 1000);
+        try {
+            repository.create("E0");
+            fail("The repository isn't started");
+        }
+        catch (RepositoryException re) {
+            //Expected
+        }
+        repository.start();
+        CompletableFuture<Boolean> future = repository.enqueue("E1");
+        repository.create("E2");
+        assertFalse(future.isDone());
+
+        repository.destroy();
+        assertTrue(future.isDone());
+        assertEquals(0, repository.getQueuedCount());
+        assertEquals(Arrays.asList("E1", "E2"), delegate.getBatches().get(0));
+        try {
+            repository.create("E3");
+            fail("The repository was stopped");
+        }
+        catch (RepositoryException re) {
+            //Expected
+        }
+    }
+}